@@ -0,0 +1,67 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.json.LushAdviceEncoder;
+import com.px3j.lush.core.json.LushJson;
+import com.px3j.lush.core.model.LushAdvice;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares producing the x-lush-advice header with LushJson.toJson (as done before LushAdviceEncoder) against
+ * LushAdviceEncoder, for an untouched advice (the common case) and one with a warning and an extra.  A new advice is
+ * created per call, as happens per request.
+ * <pre>
+ *     java -jar target/benchmarks.jar AdviceHeaderBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdviceHeaderBenchmark {
+    private static final String TRACE_ID = "6719d2a5c0e1f7b3a94e02d4c5b6a7f8,a94e02d4c5b6a7f8";
+
+    @Param({"gson", "jackson"})
+    private String backend;
+
+    private LushJson lushJson;
+    private LushAdviceEncoder encoder;
+
+    @Setup
+    public void setup() {
+        lushJson = new LushJson(LushJson.Backend.valueOf(backend.toUpperCase()), true, new SimpleMeterRegistry());
+        encoder = new LushAdviceEncoder(lushJson);
+    }
+
+    @Benchmark
+    public String defaultToJson() {
+        return lushJson.toJson(new LushAdvice(TRACE_ID, 200));
+    }
+
+    @Benchmark
+    public String defaultEncoder() {
+        return encoder.encode(new LushAdvice(TRACE_ID, 200));
+    }
+
+    @Benchmark
+    public String mutatedToJson() {
+        return lushJson.toJson(mutated());
+    }
+
+    @Benchmark
+    public String mutatedEncoder() {
+        return encoder.encode(mutated());
+    }
+
+    private static LushAdvice mutated() {
+        LushAdvice advice = new LushAdvice(TRACE_ID, 200);
+        advice.addWarning(new LushAdvice.LushWarning(600, Map.of("delayedData", true)));
+        advice.putExtra("page", 2);
+        return advice;
+    }
+}
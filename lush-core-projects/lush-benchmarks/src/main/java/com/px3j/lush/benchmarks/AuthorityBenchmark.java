@@ -0,0 +1,78 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.authority.TicketAuthorizationManager;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.web.security.TicketAuthenticationToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares an authority check for a ticket with many roles: the 2024.Q4.1 path (authorities copied into the token,
+ * AuthorityAuthorizationManager / AuthorityUtils string comparisons) against TicketAuthenticationToken and
+ * TicketAuthorizationManager (no copy, bit test against the ticket's AuthoritySet).  Each benchmark builds the token
+ * and performs one check, as happens on every request.
+ * <pre>
+ *     java -jar target/benchmarks.jar AuthorityBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorityBenchmark {
+    private static final int ROLES = 40;
+    private static final String CHECKED = "role-" + (ROLES - 1);
+
+    private LushTicket ticket;
+
+    private AuthorityAuthorizationManager<Object> legacyManager;
+    private TicketAuthorizationManager<Object> ticketManager;
+
+    @Setup
+    public void setup() {
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+        for( int i = 0; i < ROLES; i++ ) {
+            authorities.add(new SimpleGrantedAuthority("role-" + i));
+        }
+
+        ticket = new LushTicket("paul", "", authorities).toImmutable();
+
+        legacyManager = AuthorityAuthorizationManager.hasAuthority(CHECKED);
+        ticketManager = TicketAuthorizationManager.hasAuthority(CHECKED);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public boolean legacyAuthorizationManager() {
+        Authentication token = UsernamePasswordAuthenticationToken.authenticated(ticket, null, ticket.getAuthorities());
+        return legacyManager.check(() -> token, null).isGranted();
+    }
+
+    @Benchmark
+    public boolean legacyAuthorityUtils() {
+        Authentication token = UsernamePasswordAuthenticationToken.authenticated(ticket, null, ticket.getAuthorities());
+        return AuthorityUtils.authorityListToSet(token.getAuthorities()).contains(CHECKED);
+    }
+
+    @Benchmark
+    public boolean ticketAuthorizationManager() {
+        TicketAuthenticationToken token = new TicketAuthenticationToken(ticket);
+        token.setAuthenticated(true);
+        return ticketManager.isGranted(token);
+    }
+
+    @Benchmark
+    public boolean ticketHasAuthority() {
+        return new TicketAuthenticationToken(ticket).hasAuthority(CHECKED);
+    }
+}
@@ -0,0 +1,17 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.model.LushContext;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.web.common.LushControllerMethod;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Controller used by ControllerDecoratorBenchmark, lush-core-processor generates BenchmarkController_Lush for it.
+ */
+public class BenchmarkController {
+    @LushControllerMethod
+    public ResponseEntity<String> hello(LushTicket ticket, LushContext lushContext) {
+        lushContext.getAdvice().putExtra("helloMessage", ticket.getUsername());
+        return ResponseEntity.ok("hello");
+    }
+}
@@ -0,0 +1,182 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.cache.ResponseCaches;
+import com.px3j.lush.core.json.LushAdviceEncoder;
+import com.px3j.lush.core.json.LushJson;
+import com.px3j.lush.core.limit.AdmissionController;
+import com.px3j.lush.core.limit.ConcurrencyLimiters;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.web.LushTaskDecorator;
+import com.px3j.lush.web.WebAdviceHeaderWriter;
+import com.px3j.lush.web.WebArgumentResolver;
+import com.px3j.lush.web.WebControllerAspect;
+import com.px3j.lush.web.WebControllerDecorator;
+import com.px3j.lush.web.common.ControllerAspect;
+import com.px3j.lush.web.common.GeneratedDecorators;
+import com.px3j.lush.web.security.TicketAuthenticationToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways a Lush controller can be decorated (lush.aop.mode): proxy, the Spring AOP aspect
+ * (WebControllerAspect), against generated, the subclass generated by lush-core-processor (BenchmarkController_Lush).
+ * <pre>
+ *  direct / proxy / generated - one call to a decorated controller method (direct is the undecorated method)
+ *  startupProxy / startupGenerated - create and refresh a context of BEANS beans plus the controller
+ * </pre>
+ *
+ * Both contexts register the AspectJ auto proxy creator, as a service with method security does.
+ * <pre>
+ *     java -jar target/benchmarks.jar ControllerDecoratorBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerDecoratorBenchmark {
+    private static final int BEANS = 500;
+
+    private static final Tracer TRACER = Tracer.NOOP;
+    private static final LushJson LUSH_JSON = new LushJson(LushJson.Backend.GSON, false, new SimpleMeterRegistry());
+    private static final AdmissionController ADMISSION = new AdmissionController(
+            new SimpleMeterRegistry(), false, 200, 0.9, 0.5, 0.9, new String[] {"lush-monitor"}, new String[] {"batch"});
+
+    private AnnotationConfigApplicationContext proxyContext;
+    private AnnotationConfigApplicationContext generatedContext;
+
+    private BenchmarkController direct;
+    private BenchmarkController proxied;
+    private BenchmarkController generated;
+
+    private WebArgumentResolver argumentResolver;
+    private MockHttpServletRequest request;
+    private LushTicket ticket;
+
+    @Setup
+    public void setup() {
+        proxyContext = context(false, 0);
+        generatedContext = context(true, 0);
+
+        direct = new BenchmarkController();
+        proxied = proxyContext.getBean(BenchmarkController.class);
+        generated = generatedContext.getBean(BenchmarkController.class);
+        if( !(generated instanceof BenchmarkController_Lush) || proxied.getClass() == BenchmarkController.class ) {
+            throw new IllegalStateException("Controllers are not decorated - proxy: " + proxied.getClass() + " generated: " + generated.getClass());
+        }
+
+        argumentResolver = new WebArgumentResolver(TRACER);
+        request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        ticket = new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user"))).toImmutable();
+        TicketAuthenticationToken token = new TicketAuthenticationToken(ticket);
+        token.setAuthenticated(true);
+        SecurityContextHolder.getContext().setAuthentication(token);
+    }
+
+    @TearDown
+    public void tearDown() {
+        proxyContext.close();
+        generatedContext.close();
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * The undecorated method, given the arguments the argument resolver would give it.
+     */
+    @Benchmark
+    public ResponseEntity<String> direct() {
+        return direct.hello(ticket.toMutable(), argumentResolver.contextFor(newRequest()));
+    }
+
+    /**
+     * The arguments are left null (as when the method is called directly) so that the decorator supplies them.
+     */
+    @Benchmark
+    public ResponseEntity<String> proxy() {
+        newRequest();
+        return proxied.hello(null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> generated() {
+        newRequest();
+        return generated.hello(null, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public void startupProxy() {
+        context(false, BEANS).close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public void startupGenerated() {
+        context(true, BEANS).close();
+    }
+
+    private MockHttpServletRequest newRequest() {
+        // each call is a new request, so a new LushContext
+        request.removeAttribute("lushContext");
+        return request;
+    }
+
+    private static AnnotationConfigApplicationContext context(boolean generated, int beans) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("lush", Map.of(ControllerAspect.MODE_PROPERTY, generated ? "generated" : "proxy")));
+        AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(context);
+
+        WebArgumentResolver argumentResolver = new WebArgumentResolver(TRACER);
+        context.registerBean(WebArgumentResolver.class, () -> argumentResolver);
+        context.registerBean(WebControllerDecorator.class, () -> new WebControllerDecorator(TRACER, new ConcurrencyLimiters(new SimpleMeterRegistry()), ADMISSION, new ResponseCaches(new SimpleMeterRegistry(), false, 1000, Duration.ofSeconds(60)), new WebAdviceHeaderWriter(new LushAdviceEncoder(LUSH_JSON)), argumentResolver, new LushTaskDecorator(TRACER)));
+        // only one of these is registered, depending on lush.aop.mode
+        context.registerBean(GeneratedDecorators.class);
+        context.registerBean(WebControllerAspect.class);
+
+        context.registerBean("benchmarkController", BenchmarkController.class);
+        for( int i = 0; i < beans; i++ ) {
+            context.registerBean("service" + i, Service.class);
+        }
+
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * A typical bean, every method is matched against the pointcuts when proxies are used.
+     */
+    public static class Service {
+        public String find(String id) { return id; }
+        public List<String> findAll() { return List.of(); }
+        public String save(String value) { return value; }
+        public void delete(String id) { }
+        public int count() { return 0; }
+        public boolean exists(String id) { return false; }
+    }
+}
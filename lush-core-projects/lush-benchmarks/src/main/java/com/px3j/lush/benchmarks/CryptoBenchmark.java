@@ -0,0 +1,84 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.util.CryptoHelper;
+import com.px3j.lush.core.util.CryptoKeys;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares CryptoHelper (reused per-thread Cipher state) against the 2024.Q4.1 implementation that creates a Cipher
+ * on every call.
+ * <pre>
+ *     java -jar target/benchmarks.jar CryptoBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoBenchmark {
+    private static final String PLAIN_TEXT =
+            "{\"username\":\"paul\",\"password\":\"\",\"authorities\":[{\"role\":\"user\"},{\"role\":\"lush-monitor\"}],\"extras\":{}}";
+
+    private CryptoHelper cryptoHelper;
+    private LegacyCryptoHelper legacyCryptoHelper;
+
+    private String cipherText;
+    private byte[] plainBytes;
+    private byte[] cipherBytes;
+
+    @Setup
+    public void setup() throws Exception {
+        CryptoKeys keys = new CryptoKeys(
+                Base64.getEncoder().encodeToString(CryptoHelper.generateKey(256).getEncoded()),
+                Base64.getEncoder().encodeToString(CryptoHelper.generateIv().getIV())
+        );
+
+        cryptoHelper = new CryptoHelper(keys);
+        legacyCryptoHelper = new LegacyCryptoHelper(keys);
+
+        cipherText = cryptoHelper.encrypt(PLAIN_TEXT);
+        plainBytes = PLAIN_TEXT.getBytes(StandardCharsets.UTF_8);
+        cipherBytes = cryptoHelper.encrypt(plainBytes);
+    }
+
+    @Benchmark
+    public String legacyEncrypt() {
+        return legacyCryptoHelper.encrypt(PLAIN_TEXT);
+    }
+
+    @Benchmark
+    public String legacyDecrypt() {
+        return legacyCryptoHelper.decrypt(cipherText);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return cryptoHelper.encrypt(PLAIN_TEXT);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return cryptoHelper.decrypt(cipherText);
+    }
+
+    @Benchmark
+    public byte[] decryptFromBase64() {
+        return cryptoHelper.decryptFromBase64(cipherText);
+    }
+
+    @Benchmark
+    public byte[] encryptBytes() {
+        return cryptoHelper.encrypt(plainBytes);
+    }
+
+    @Benchmark
+    public byte[] decryptBytes() {
+        return cryptoHelper.decrypt(cipherBytes);
+    }
+}
@@ -0,0 +1,44 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.util.CryptoKeys;
+
+import javax.crypto.Cipher;
+import java.util.Base64;
+
+/**
+ * The CryptoHelper implementation as of 2024.Q4.1 (a new Cipher is created and initialized on every call).  Kept here
+ * as the baseline for CryptoBenchmark.
+ */
+public class LegacyCryptoHelper {
+    private final String algorithm = "AES/CBC/PKCS5Padding";
+    private final CryptoKeys cryptoKeys;
+
+    public LegacyCryptoHelper(CryptoKeys cryptoKeys) {
+        this.cryptoKeys = cryptoKeys;
+    }
+
+    public String encrypt(String input) {
+        try {
+            Cipher cipher = Cipher.getInstance(algorithm);
+            cipher.init(Cipher.ENCRYPT_MODE, cryptoKeys.secretKey, cryptoKeys.accessKey);
+            byte[] cipherText = cipher.doFinal(input.getBytes());
+            return Base64.getEncoder().encodeToString(cipherText);
+        }
+        catch (Exception e) {
+            throw new LushException( "Failed to encrypt", e );
+        }
+    }
+
+    public String decrypt(String cipherText)  {
+        try {
+            Cipher cipher = Cipher.getInstance(algorithm);
+            cipher.init(Cipher.DECRYPT_MODE, cryptoKeys.secretKey, cryptoKeys.accessKey);
+            byte[] plainText = cipher.doFinal(Base64.getDecoder().decode(cipherText));
+            return new String(plainText);
+        }
+        catch (Exception e) {
+            throw new LushException( "Failed to decrypt", e);
+        }
+    }
+}
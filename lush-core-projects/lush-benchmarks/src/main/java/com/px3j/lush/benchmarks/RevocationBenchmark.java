@@ -0,0 +1,82 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.revocation.TicketRevocationChecker;
+import com.px3j.lush.core.revocation.RevocationFilterWriter;
+import com.px3j.lush.core.ticket.LushTicket;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-request expiry/revocation check against a memory-mapped filter of one million revoked ticket ids,
+ * the check should not allocate.
+ * <pre>
+ *     java -jar target/benchmarks.jar RevocationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RevocationBenchmark {
+    private static final int REVOKED = 1_000_000;
+
+    private Path file;
+    private TicketRevocationChecker checker;
+
+    private LushTicket validTicket;
+    private LushTicket revokedTicket;
+
+    @Setup
+    public void setup() throws Exception {
+        file = Files.createTempFile("lush-revoked", ".lrbf");
+
+        RevocationFilterWriter writer = new RevocationFilterWriter(REVOKED, RevocationFilterWriter.DEFAULT_FALSE_POSITIVE_RATE);
+        String revokedId = null;
+        for( int i = 0; i < REVOKED; i++ ) {
+            revokedId = UUID.randomUUID().toString();
+            writer.add(revokedId);
+        }
+        writer.writeTo(file);
+
+        checker = new TicketRevocationChecker(true, file.toString(), Duration.ofHours(1), Duration.ofSeconds(30), null);
+
+        validTicket = ticket(UUID.randomUUID().toString());
+        revokedTicket = ticket(revokedId);
+
+        System.out.println();
+        System.out.println("revocation filter size: " + Files.size(file) + " bytes");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        checker.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    private static LushTicket ticket(String id) {
+        LushTicket ticket = new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")));
+        ticket.setId(id);
+        ticket.setIssuedAt(System.currentTimeMillis());
+        ticket.setExpiresAt(ticket.getIssuedAt() + TimeUnit.HOURS.toMillis(1));
+        return ticket.toImmutable();
+    }
+
+    @Benchmark
+    public boolean validTicket() {
+        return checker.isRejected(validTicket);
+    }
+
+    @Benchmark
+    public boolean revokedTicket() {
+        return checker.isRejected(revokedTicket);
+    }
+}
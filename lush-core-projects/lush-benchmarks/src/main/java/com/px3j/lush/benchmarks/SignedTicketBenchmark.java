@@ -0,0 +1,91 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.json.LushJson;
+import com.px3j.lush.core.ticket.EncryptedTicketUtil;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.SignedTicketUtil;
+import com.px3j.lush.core.ticket.TicketSerializer;
+import com.px3j.lush.core.util.CryptoHelper;
+import com.px3j.lush.core.util.CryptoKeys;
+import com.px3j.lush.core.util.HmacHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the signed-ticket mode (HMAC-SHA256) against the default encrypted mode (AES/CBC), both using the JSON
+ * ticket format.
+ * <pre>
+ *     java -jar target/benchmarks.jar SignedTicketBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignedTicketBenchmark {
+    private LushTicket ticket;
+
+    private EncryptedTicketUtil encryptedTicketUtil;
+    private SignedTicketUtil signedTicketUtil;
+
+    private String encryptedHeader;
+    private String signedHeader;
+
+    @Setup
+    public void setup() throws Exception {
+        CryptoKeys keys = new CryptoKeys(
+                Base64.getEncoder().encodeToString(CryptoHelper.generateKey(256).getEncoded()),
+                Base64.getEncoder().encodeToString(CryptoHelper.generateIv().getIV())
+        );
+        LushJson lushJson = new LushJson(LushJson.Backend.GSON, false, new SimpleMeterRegistry());
+        TicketSerializer serializer = new TicketSerializer(TicketSerializer.Format.JSON, List.of("user", "lush-monitor"), lushJson);
+
+        encryptedTicketUtil = new EncryptedTicketUtil(new CryptoHelper(keys), serializer);
+        signedTicketUtil = new SignedTicketUtil(new HmacHelper(HmacHelper.generateKey()), serializer);
+
+        ticket = new LushTicket(
+                "paul",
+                "",
+                List.of(new SimpleGrantedAuthority("user"), new SimpleGrantedAuthority("lush-monitor"))
+        );
+        ticket.putExtra("tenant", "px3j");
+
+        encryptedHeader = encryptedTicketUtil.encrypt(ticket);
+        signedHeader = signedTicketUtil.encrypt(ticket);
+
+        System.out.println();
+        System.out.println("x-lush-ticket header size - encrypted: " + encryptedHeader.length() + " signed: " + signedHeader.length());
+    }
+
+    @Benchmark
+    public String encryptedEncode() {
+        return encryptedTicketUtil.encrypt(ticket);
+    }
+
+    @Benchmark
+    public String signedEncode() {
+        return signedTicketUtil.encrypt(ticket);
+    }
+
+    @Benchmark
+    public LushTicket encryptedDecode() {
+        return encryptedTicketUtil.decrypt(encryptedHeader);
+    }
+
+    @Benchmark
+    public LushTicket signedDecode() {
+        return signedTicketUtil.decrypt(signedHeader);
+    }
+
+    @Benchmark
+    public boolean signedVerifyOnly() {
+        return signedTicketUtil.verify(signedHeader);
+    }
+}
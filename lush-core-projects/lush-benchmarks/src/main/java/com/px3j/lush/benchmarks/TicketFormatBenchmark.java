@@ -0,0 +1,150 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.json.LushJson;
+import com.px3j.lush.core.ticket.EncryptedTicketUtil;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketCompressor;
+import com.px3j.lush.core.ticket.TicketSerializer;
+import com.px3j.lush.core.util.CryptoHelper;
+import com.px3j.lush.core.util.CryptoKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the JSON and binary ticket formats end to end (serialize + encrypt + Base64 and the reverse), which is
+ * what happens to the x-lush-ticket header, along with compression (see TicketCompressor) of a ticket with large
+ * extras.  The header size of each format is printed during setup.
+ * <pre>
+ *     java -jar target/benchmarks.jar TicketFormatBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketFormatBenchmark {
+    private static final List<String> AUTHORITY_CODES = List.of("user", "lush-monitor");
+
+    private LushTicket ticket;
+
+    private EncryptedTicketUtil jsonTicketUtil;
+    private EncryptedTicketUtil binaryTicketUtil;
+
+    private EncryptedTicketUtil compressedJsonTicketUtil;
+    private EncryptedTicketUtil compressedBinaryTicketUtil;
+
+    private String jsonHeader;
+    private String binaryHeader;
+
+    private LushTicket largeTicket;
+    private String largeBinaryHeader;
+    private String compressedJsonHeader;
+    private String compressedBinaryHeader;
+
+    @Setup
+    public void setup() throws Exception {
+        CryptoKeys keys = new CryptoKeys(
+                Base64.getEncoder().encodeToString(CryptoHelper.generateKey(256).getEncoded()),
+                Base64.getEncoder().encodeToString(CryptoHelper.generateIv().getIV())
+        );
+        CryptoHelper cryptoHelper = new CryptoHelper(keys);
+        LushJson lushJson = new LushJson(LushJson.Backend.GSON, false, new SimpleMeterRegistry());
+
+        jsonTicketUtil = new EncryptedTicketUtil(cryptoHelper, new TicketSerializer(TicketSerializer.Format.JSON, AUTHORITY_CODES, lushJson));
+        binaryTicketUtil = new EncryptedTicketUtil(cryptoHelper, new TicketSerializer(TicketSerializer.Format.BINARY, AUTHORITY_CODES, lushJson));
+
+        TicketCompressor compressor = new TicketCompressor(true, 256, 6, false, null);
+        compressedJsonTicketUtil = new EncryptedTicketUtil(cryptoHelper, new TicketSerializer(TicketSerializer.Format.JSON, AUTHORITY_CODES, lushJson, compressor));
+        compressedBinaryTicketUtil = new EncryptedTicketUtil(cryptoHelper, new TicketSerializer(TicketSerializer.Format.BINARY, AUTHORITY_CODES, lushJson, compressor));
+
+        ticket = new LushTicket(
+                "paul",
+                "",
+                List.of(new SimpleGrantedAuthority("user"), new SimpleGrantedAuthority("lush-monitor"))
+        );
+        ticket.setId("5f0c6a4e-2d1b-4c47-9a55-0f3c2d9e7b11");
+        ticket.putExtra("tenant", "px3j");
+        ticket.putExtra("region", "us-east-1");
+        ticket.putExtra("groups", List.of("cats", "dogs"));
+        ticket.putExtra("preferences", Map.of("theme", "dark", "pageSize", 50L));
+
+        jsonHeader = jsonTicketUtil.encrypt(ticket);
+        binaryHeader = binaryTicketUtil.encrypt(ticket);
+
+        largeTicket = new LushTicket(ticket.getUsername(), ticket.getPassword(), ticket.getAuthorities());
+        largeTicket.setId(ticket.getId());
+        largeTicket.setExtras(new HashMap<>(ticket.getExtras()));
+        largeTicket.putExtra("features", IntStream.range(0, 40).mapToObj(i -> Map.of("name", "feature-" + i, "enabled", i % 3 == 0)).toList());
+        largeTicket.putExtra("permissions", IntStream.range(0, 30).mapToObj(i -> "orders:read:region-" + i).toList());
+
+        String largeJsonHeader = jsonTicketUtil.encrypt(largeTicket);
+        largeBinaryHeader = binaryTicketUtil.encrypt(largeTicket);
+        compressedJsonHeader = compressedJsonTicketUtil.encrypt(largeTicket);
+        compressedBinaryHeader = compressedBinaryTicketUtil.encrypt(largeTicket);
+
+        System.out.println();
+        System.out.println("x-lush-ticket header size - json: " + jsonHeader.length() + " binary: " + binaryHeader.length());
+        System.out.println("large x-lush-ticket header size - json: " + largeJsonHeader.length() + " binary: " + largeBinaryHeader.length()
+                + " compressed json: " + compressedJsonHeader.length() + " compressed binary: " + compressedBinaryHeader.length());
+    }
+
+    @Benchmark
+    public String encodeJson() {
+        return jsonTicketUtil.encrypt(ticket);
+    }
+
+    @Benchmark
+    public String encodeBinary() {
+        return binaryTicketUtil.encrypt(ticket);
+    }
+
+    @Benchmark
+    public LushTicket decodeJson() {
+        return jsonTicketUtil.decrypt(jsonHeader);
+    }
+
+    @Benchmark
+    public LushTicket decodeBinary() {
+        return binaryTicketUtil.decrypt(binaryHeader);
+    }
+
+    @Benchmark
+    public String encodeLargeBinary() {
+        return binaryTicketUtil.encrypt(largeTicket);
+    }
+
+    @Benchmark
+    public String encodeLargeCompressedJson() {
+        return compressedJsonTicketUtil.encrypt(largeTicket);
+    }
+
+    @Benchmark
+    public String encodeLargeCompressedBinary() {
+        return compressedBinaryTicketUtil.encrypt(largeTicket);
+    }
+
+    @Benchmark
+    public LushTicket decodeLargeBinary() {
+        return binaryTicketUtil.decrypt(largeBinaryHeader);
+    }
+
+    @Benchmark
+    public LushTicket decodeLargeCompressedJson() {
+        return compressedJsonTicketUtil.decrypt(compressedJsonHeader);
+    }
+
+    @Benchmark
+    public LushTicket decodeLargeCompressedBinary() {
+        return compressedBinaryTicketUtil.decrypt(compressedBinaryHeader);
+    }
+}
@@ -0,0 +1,176 @@
+package com.px3j.lush.benchmarks;
+
+import com.px3j.lush.core.json.LushJson;
+import com.px3j.lush.core.ticket.ClearTicketUtil;
+import com.px3j.lush.core.ticket.EncryptedTicketUtil;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketSerializer;
+import com.px3j.lush.core.util.CryptoHelper;
+import com.px3j.lush.core.util.CryptoKeys;
+import com.px3j.lush.web.security.TicketAuthenticationToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures each step a ticket goes through on every request so that a Lush upgrade can be checked for authentication
+ * latency regressions: the x-lush-ticket header to/from a LushTicket (CryptoHelper + EncryptedTicketUtil and
+ * ClearTicketUtil), LushTicket.populateFrom and TicketAuthenticationToken construction.  Tickets come in three
+ * sizes:
+ * <pre>
+ *  small - two authorities, no extras
+ *  typical - a handful of authorities and extras
+ *  large - many authorities and large extras (feature flags, permissions)
+ * </pre>
+ *
+ * Throughput and average time are reported, run it with the GC profiler for allocation rate (main() does this):
+ * <pre>
+ *     java -cp target/benchmarks.jar com.px3j.lush.benchmarks.TicketPipelineBenchmark
+ *     java -jar target/benchmarks.jar TicketPipelineBenchmark -prof gc -p size=large
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketPipelineBenchmark {
+    @Param({"small", "typical", "large"})
+    public String size;
+
+    private LushTicket ticket;
+    private LushTicket frozenTicket;
+
+    private EncryptedTicketUtil jsonTicketUtil;
+    private EncryptedTicketUtil binaryTicketUtil;
+    private ClearTicketUtil clearTicketUtil;
+
+    private String jsonHeader;
+    private String binaryHeader;
+    private String clearHeader;
+
+    @Setup
+    public void setup() throws Exception {
+        CryptoKeys keys = new CryptoKeys(
+                Base64.getEncoder().encodeToString(CryptoHelper.generateKey(256).getEncoded()),
+                Base64.getEncoder().encodeToString(CryptoHelper.generateIv().getIV())
+        );
+        CryptoHelper cryptoHelper = new CryptoHelper(keys);
+        LushJson lushJson = new LushJson(LushJson.Backend.GSON, false, new SimpleMeterRegistry());
+        List<String> authorityCodes = List.of("user", "lush-monitor");
+
+        jsonTicketUtil = new EncryptedTicketUtil(cryptoHelper, new TicketSerializer(TicketSerializer.Format.JSON, authorityCodes, lushJson));
+        binaryTicketUtil = new EncryptedTicketUtil(cryptoHelper, new TicketSerializer(TicketSerializer.Format.BINARY, authorityCodes, lushJson));
+        clearTicketUtil = new ClearTicketUtil(lushJson);
+
+        ticket = ticket(size);
+        frozenTicket = ticket.toImmutable();
+
+        jsonHeader = jsonTicketUtil.encrypt(ticket);
+        binaryHeader = binaryTicketUtil.encrypt(ticket);
+        clearHeader = clearTicketUtil.encrypt(ticket);
+
+        System.out.println();
+        System.out.println(size + " x-lush-ticket header size - json: " + jsonHeader.length() + " binary: " + binaryHeader.length() + " clear: " + clearHeader.length());
+    }
+
+    static LushTicket ticket(String size) {
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>(List.of(new SimpleGrantedAuthority("user"), new SimpleGrantedAuthority("lush-monitor")));
+        if( size.equals("small") ) {
+            LushTicket small = new LushTicket("paul", "", authorities);
+            small.setId("5f0c6a4e-2d1b-4c47-9a55-0f3c2d9e7b11");
+            return small;
+        }
+
+        int roles = size.equals("large") ? 40 : 4;
+        for( int i = 0; i < roles; i++ ) {
+            authorities.add(new SimpleGrantedAuthority("role-" + i));
+        }
+
+        LushTicket ticket = new LushTicket("paul", "", authorities);
+        ticket.setId("5f0c6a4e-2d1b-4c47-9a55-0f3c2d9e7b11");
+        ticket.putExtra("tenant", "px3j");
+        ticket.putExtra("region", "us-east-1");
+        ticket.putExtra("groups", List.of("cats", "dogs"));
+        ticket.putExtra("preferences", Map.of("theme", "dark", "pageSize", 50L));
+
+        if( size.equals("large") ) {
+            ticket.putExtra("features", IntStream.range(0, 40).mapToObj(i -> Map.of("name", "feature-" + i, "enabled", i % 3 == 0)).toList());
+            ticket.putExtra("permissions", IntStream.range(0, 30).mapToObj(i -> "orders:read:region-" + i).toList());
+        }
+        else if( !size.equals("typical") ) {
+            throw new IllegalArgumentException("Unknown ticket size: " + size);
+        }
+
+        return ticket;
+    }
+
+    @Benchmark
+    public String encryptJson() {
+        return jsonTicketUtil.encrypt(ticket);
+    }
+
+    @Benchmark
+    public LushTicket decryptJson() {
+        return jsonTicketUtil.decrypt(jsonHeader);
+    }
+
+    @Benchmark
+    public String encryptBinary() {
+        return binaryTicketUtil.encrypt(ticket);
+    }
+
+    @Benchmark
+    public LushTicket decryptBinary() {
+        return binaryTicketUtil.decrypt(binaryHeader);
+    }
+
+    @Benchmark
+    public String encryptClear() {
+        return clearTicketUtil.encrypt(ticket);
+    }
+
+    @Benchmark
+    public LushTicket decryptClear() {
+        return clearTicketUtil.decrypt(clearHeader);
+    }
+
+    @Benchmark
+    public LushTicket populateFrom() {
+        LushTicket target = new LushTicket();
+        target.populateFrom(frozenTicket);
+        return target;
+    }
+
+    @Benchmark
+    public TicketAuthenticationToken authenticationToken() {
+        TicketAuthenticationToken token = new TicketAuthenticationToken(frozenTicket);
+        token.setAuthenticated(true);
+        return token;
+    }
+
+    /**
+     * Run every size with the GC profiler.
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TicketPipelineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,335 @@
+package com.px3j.lush.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Generates, at build time, a subclass of every controller that has @LushControllerMethod methods.  Each decorated
+ * method is overridden to call the Lush decorator directly, so that when lush.aop.mode is generated no Spring AOP
+ * aspect (pointcut matching at startup, proxy and join point per call) is needed.  For a controller named Foo the
+ * subclass is Foo_Lush, it is listed in META-INF/lush/decorators and used in place of Foo by GeneratedDecorators.
+ * <br/><br/>
+ * Methods are decorated as they are by the Lush aspects: public methods returning a Mono/Flux (WebFlux) or, when the
+ * Spring MVC decorator is on the classpath, any public method.  The processor is opt-in, add lush-core-processor to the annotation processor path of the
+ * service.
+ *
+ * @author Paul Parrone
+ */
+@SupportedAnnotationTypes(LushDecoratorProcessor.CONTROLLER_METHOD)
+public class LushDecoratorProcessor extends AbstractProcessor {
+    static final String CONTROLLER_METHOD = "com.px3j.lush.web.common.LushControllerMethod";
+    static final String SUFFIX = "_Lush";
+    static final String INDEX = "META-INF/lush/decorators";
+
+    private static final String COMMON = "com.px3j.lush.web.common.";
+
+    private enum Kind {
+        MONO("reactor.core.publisher.Mono", "com.px3j.lush.webflux.ReactiveControllerDecorator", "lush$reactiveDecorator", "decorateMono"),
+        FLUX("reactor.core.publisher.Flux", "com.px3j.lush.webflux.ReactiveControllerDecorator", "lush$reactiveDecorator", "decorateFlux"),
+        // any return type, including void
+        WEB(null, "com.px3j.lush.web.WebControllerDecorator", "lush$webDecorator", "decorate");
+
+        final String returnType;
+        final String decoratorType;
+        final String field;
+        final String method;
+
+        Kind(String returnType, String decoratorType, String field, String method) {
+            this.returnType = returnType;
+            this.decoratorType = decoratorType;
+            this.field = field;
+            this.method = method;
+        }
+    }
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    private final Set<String> index = new TreeSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if( roundEnv.processingOver() ) {
+            writeIndex();
+            return false;
+        }
+
+        Map<TypeElement, List<ExecutableElement>> controllers = new LinkedHashMap<>();
+        for( TypeElement annotation : annotations ) {
+            for( ExecutableElement method : ElementFilter.methodsIn(roundEnv.getElementsAnnotatedWith(annotation)) ) {
+                controllers.computeIfAbsent((TypeElement) method.getEnclosingElement(), k -> new ArrayList<>()).add(method);
+            }
+        }
+
+        controllers.forEach(this::generate);
+        return false;
+    }
+
+    private void generate(TypeElement controller, List<ExecutableElement> annotated) {
+        if( !isExtendable(controller) ) {
+            return;
+        }
+
+        Map<ExecutableElement, Kind> methods = new LinkedHashMap<>();
+        for( ExecutableElement method : annotated ) {
+            Kind kind = kindOf(method);
+            if( kind == null ) {
+                // not decorated by the aspects either
+                continue;
+            }
+            if( method.getModifiers().contains(Modifier.FINAL) || !method.getTypeParameters().isEmpty() ) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Lush can't generate a decorator for a final or generic @LushControllerMethod", method);
+                return;
+            }
+            methods.put(method, kind);
+        }
+
+        if( methods.isEmpty() ) {
+            return;
+        }
+
+        String packageName = elements.getPackageOf(controller).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(controller).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + SUFFIX;
+        String generatedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        try( Writer out = filer.createSourceFile(generatedName, controller).openWriter() ) {
+            out.write(source(controller, packageName, simpleName, methods));
+        }
+        catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Unable to write Lush decorator: " + generatedName + " - " + e.getMessage(), controller);
+            return;
+        }
+
+        index.add(binaryName + "=" + generatedName);
+    }
+
+    private String source(TypeElement controller, String packageName, String simpleName, Map<ExecutableElement, Kind> methods) {
+        String controllerName = controller.getQualifiedName().toString();
+        StringBuilder src = new StringBuilder();
+
+        if( !packageName.isEmpty() ) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        src.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        src.append("public class ").append(simpleName).append(" extends ").append(controllerName).append(" {\n");
+
+        // plans
+        int i = 0;
+        for( ExecutableElement method : methods.keySet() ) {
+            src.append("    private static final ").append(COMMON).append("InvocationPlan PLAN_").append(i++)
+                    .append(" = ").append(COMMON).append("GeneratedInvocation.plan(").append(controllerName).append(".class, \"")
+                    .append(method.getSimpleName()).append('"');
+            for( VariableElement parameter : method.getParameters() ) {
+                src.append(", ").append(types.erasure(parameter.asType())).append(".class");
+            }
+            src.append(");\n");
+        }
+        src.append('\n');
+
+        // decorators, injected by Spring
+        Map<String, String> decorators = new LinkedHashMap<>();
+        methods.values().forEach(kind -> decorators.put(kind.field, kind.decoratorType));
+        decorators.forEach((field, type) -> src.append("    private ").append(type).append(' ').append(field).append(";\n"));
+        src.append('\n');
+
+        for( ExecutableElement constructor : ElementFilter.constructorsIn(controller.getEnclosedElements()) ) {
+            if( constructor.getModifiers().contains(Modifier.PRIVATE) ) {
+                continue;
+            }
+            annotations(src, "    ", constructor.getAnnotationMirrors(), "\n");
+            src.append("    public ").append(simpleName).append('(');
+            parameters(src, constructor);
+            src.append(')');
+            throwsClause(src, constructor);
+            src.append(" {\n        super(").append(arguments(constructor)).append(");\n    }\n\n");
+        }
+
+        decorators.forEach((field, type) -> src
+                .append("    @org.springframework.beans.factory.annotation.Autowired\n")
+                .append("    void ").append(setter(field)).append('(').append(type).append(" decorator) {\n")
+                .append("        this.").append(field).append(" = decorator;\n")
+                .append("    }\n\n"));
+
+        i = 0;
+        for( Map.Entry<ExecutableElement, Kind> entry : methods.entrySet() ) {
+            ExecutableElement method = entry.getKey();
+            Kind kind = entry.getValue();
+            String returnType = method.getReturnType().toString();
+            List<? extends VariableElement> parameters = method.getParameters();
+
+            src.append("    @java.lang.Override\n");
+            src.append("    public ").append(returnType).append(' ').append(method.getSimpleName()).append('(');
+            parameters(src, method);
+            src.append(')');
+            throwsClause(src, method);
+            src.append(" {\n");
+            boolean isVoid = method.getReturnType().getKind() == TypeKind.VOID;
+            src.append(isVoid ? "        " : "        return (" + returnType + ") ").append(kind.field).append('.').append(kind.method)
+                    .append("(PLAN_").append(i++).append(", new ").append(COMMON).append("GeneratedInvocation(").append(arguments(method)).append(") {\n");
+            src.append("            @java.lang.Override\n");
+            src.append("            public java.lang.Object proceed(java.lang.Object[] lush$args) throws java.lang.Throwable {\n");
+            src.append(isVoid ? "                " : "                return ").append(simpleName).append(".super.").append(method.getSimpleName()).append('(');
+            for( int p = 0; p < parameters.size(); p++ ) {
+                src.append(p == 0 ? "" : ", ").append('(').append(parameters.get(p).asType()).append(") lush$args[").append(p).append(']');
+            }
+            src.append(");\n");
+            if( isVoid ) {
+                src.append("                return null;\n");
+            }
+            src.append("            }\n");
+            src.append("        });\n");
+            src.append("    }\n\n");
+        }
+
+        src.setLength(src.length() - 1);
+        src.append("}\n");
+        return src.toString();
+    }
+
+    private boolean isExtendable(TypeElement controller) {
+        Set<Modifier> modifiers = controller.getModifiers();
+        boolean nested = controller.getNestingKind() != NestingKind.TOP_LEVEL;
+
+        if( controller.getKind() != ElementKind.CLASS || modifiers.contains(Modifier.ABSTRACT) ) {
+            // an abstract controller is decorated by the proxy aspect only
+            return false;
+        }
+
+        if( modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.PRIVATE) || (nested && !modifiers.contains(Modifier.STATIC)) ) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Lush can't generate a decorator for a final, private or inner class", controller);
+            return false;
+        }
+
+        boolean constructor = ElementFilter.constructorsIn(controller.getEnclosedElements()).stream()
+                .anyMatch(c -> !c.getModifiers().contains(Modifier.PRIVATE));
+        if( !constructor ) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Lush can't generate a decorator for a class without a non-private constructor", controller);
+        }
+        return constructor;
+    }
+
+    private Kind kindOf(ExecutableElement method) {
+        if( !method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC) ) {
+            return null;
+        }
+
+        TypeMirror returnType = types.erasure(method.getReturnType());
+        for( Kind kind : Kind.values() ) {
+            if( elements.getTypeElement(kind.decoratorType) == null ) {
+                continue;
+            }
+            if( kind.returnType == null ) {
+                return kind;
+            }
+
+            TypeElement type = elements.getTypeElement(kind.returnType);
+            if( type != null && types.isSameType(returnType, types.erasure(type.asType())) ) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    private void parameters(StringBuilder src, ExecutableElement executable) {
+        List<? extends VariableElement> parameters = executable.getParameters();
+        for( int p = 0; p < parameters.size(); p++ ) {
+            VariableElement parameter = parameters.get(p);
+            String type = parameter.asType().toString();
+            if( executable.isVarArgs() && p == parameters.size() - 1 && type.endsWith("[]") ) {
+                type = type.substring(0, type.length() - 2) + "...";
+            }
+
+            src.append(p == 0 ? "" : ", ");
+            annotations(src, "", parameter.getAnnotationMirrors(), " ");
+            src.append(type).append(' ').append(parameter.getSimpleName());
+        }
+    }
+
+    private static void annotations(StringBuilder src, String indent, List<? extends AnnotationMirror> annotations, String separator) {
+        for( AnnotationMirror annotation : annotations ) {
+            src.append(indent).append(annotation).append(separator);
+        }
+    }
+
+    private static void throwsClause(StringBuilder src, ExecutableElement executable) {
+        if( !executable.getThrownTypes().isEmpty() ) {
+            src.append(" throws ").append(executable.getThrownTypes().stream().map(TypeMirror::toString).collect(Collectors.joining(", ")));
+        }
+    }
+
+    private static String setter(String field) {
+        // lush$webDecorator -> lush$setWebDecorator
+        int name = field.indexOf('$') + 1;
+        return field.substring(0, name) + "set" + Character.toUpperCase(field.charAt(name)) + field.substring(name + 1);
+    }
+
+    private static String arguments(ExecutableElement executable) {
+        return executable.getParameters().stream().map(p -> p.getSimpleName().toString()).collect(Collectors.joining(", "));
+    }
+
+    private void writeIndex() {
+        if( index.isEmpty() ) {
+            return;
+        }
+
+        try {
+            FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try( Writer out = resource.openWriter() ) {
+                for( String line : index ) {
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+        }
+        catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Unable to write the Lush decorator index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.px3j.lush.web;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.tracing.CurrentTraceContext;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Carries the thread bound state of a Lush request (the SecurityContext and so the LushTicket, the MDC including
+ * lush-user-name, and the current observation/span along with its baggage) to work that the request hands off to
+ * another thread.
+ * <br/><br/>
+ * As a TaskDecorator bean it is applied by Spring Boot to the applicationTaskExecutor, which Spring MVC uses for
+ * asynchronous requests (StreamingResponseBody, Callable).  Controllers returning a CompletableFuture or sending to
+ * an SseEmitter/ResponseBodyEmitter should do their work on that executor (or one decorated by this class) to see
+ * the same state.
+ *
+ * @author Paul Parrone
+ */
+@Component
+public class LushTaskDecorator implements TaskDecorator {
+    private final ContextSnapshotFactory contextSnapshotFactory = ContextSnapshotFactory.builder().build();
+    private final Tracer tracer;
+
+    @Autowired
+    public LushTaskDecorator(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Captured captured = capture();
+        return () -> {
+            try (Scope ignored = captured.restore()) {
+                runnable.run();
+            }
+        };
+    }
+
+    /**
+     * @return The state of the calling thread, to be restored on another thread.
+     */
+    public Captured capture() {
+        return new Captured(
+                tracer.currentTraceContext(),
+                contextSnapshotFactory.captureAll(),
+                tracer.currentTraceContext().context(),
+                MDC.getCopyOfContextMap(),
+                SecurityContextHolder.getContext()
+        );
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * The observation is restored from the context snapshot, the trace context is restored on top of it as the
+     * lush-user-name baggage was added to the trace context (by WebControllerDecorator) after the observation
+     * started.  The MDC is restored last as restoring a trace context updates its correlation fields.
+     */
+    public record Captured(CurrentTraceContext currentTraceContext, ContextSnapshot snapshot, TraceContext traceContext,
+                           Map<String, String> mdc, SecurityContext securityContext) {
+        /**
+         * Restore the captured state on the calling thread.
+         *
+         * @return Scope that puts back the thread's previous state when closed.
+         */
+        public Scope restore() {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+
+            SecurityContextHolder.setContext(securityContext);
+            ContextSnapshot.Scope snapshotScope = snapshot.setThreadLocals();
+            CurrentTraceContext.Scope traceScope = currentTraceContext.maybeScope(traceContext);
+            setMdc(mdc);
+
+            return () -> {
+                traceScope.close();
+                snapshotScope.close();
+                SecurityContextHolder.setContext(previousSecurityContext);
+                setMdc(previousMdc);
+            };
+        }
+
+        private static void setMdc(Map<String, String> mdc) {
+            if( mdc == null ) {
+                MDC.clear();
+            }
+            else {
+                MDC.setContextMap(mdc);
+            }
+        }
+    }
+}
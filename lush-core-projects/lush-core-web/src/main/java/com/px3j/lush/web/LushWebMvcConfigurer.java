@@ -0,0 +1,36 @@
+package com.px3j.lush.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registers the Lush Spring MVC extensions.
+ *
+ * @author Paul Parrone
+ */
+@Configuration
+public class LushWebMvcConfigurer implements WebMvcConfigurer {
+    private final WebArgumentResolver argumentResolver;
+    private final WebAdviceHeaderWriter adviceHeaderWriter;
+
+    @Autowired
+    public LushWebMvcConfigurer(WebArgumentResolver argumentResolver, WebAdviceHeaderWriter adviceHeaderWriter) {
+        this.argumentResolver = argumentResolver;
+        this.adviceHeaderWriter = adviceHeaderWriter;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(argumentResolver);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(adviceHeaderWriter);
+    }
+}
@@ -0,0 +1,100 @@
+package com.px3j.lush.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread (ie: while holding a monitor, inside a
+ * synchronized block or method) using the JFR jdk.VirtualThreadPinned event.  A pinned virtual thread holds its
+ * carrier, enough of them and requests stop being served even though the CPU is idle.
+ * <br/><br/>
+ * Each pinned event of at least lush.web.virtual-threads.pinned-threshold is recorded by the
+ * lush.web.virtual-threads.pinned timer.  The first time a pin is seen at a location (the innermost frame outside of
+ * the JDK) it is logged as a warning with its stack trace.
+ * <br/><br/>
+ * Only active when virtual threads are enabled by Spring Boot's spring.threads.virtual.enabled, which runs requests
+ * and the applicationTaskExecutor (used with LushTaskDecorator) on virtual threads.  A request runs on a single
+ * virtual thread so the thread bound state Lush uses (the SecurityContext, the lush-user-name MDC entry and baggage)
+ * is set and read on the same thread as it is with platform threads.  Per-thread state held by Lush (Ciphers,
+ * Deflaters...) is pooled for virtual threads, see PerThread.
+ *
+ * @author Paul Parrone
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j(topic = "lush.core.debug")
+public class VirtualThreadPinningMonitor {
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final Timer pinned;
+    private final Map<String, Boolean> reported = new ConcurrentHashMap<>();
+    private final RecordingStream stream;
+
+    @Autowired
+    public VirtualThreadPinningMonitor(
+            @Value("${lush.web.virtual-threads.pinned-threshold:20ms}") Duration threshold,
+            MeterRegistry meterRegistry
+    ) {
+        this.pinned = Timer.builder("lush.web.virtual-threads.pinned")
+                .description("Time virtual threads were blocked while pinned to their carrier thread")
+                .register(meterRegistry);
+
+        this.stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+
+        log.debug( "Lush :: monitoring virtual thread pinning, threshold: {}", threshold );
+    }
+
+    /**
+     * @return The number of pinned events recorded.
+     */
+    public long getPinnedCount() {
+        return pinned.count();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+
+        String location = locationOf(event.getStackTrace());
+        if( reported.putIfAbsent(location, Boolean.TRUE) == null ) {
+            log.warn( "Lush :: virtual thread pinned for {}ms at {}, stack trace:\n{}",
+                    event.getDuration().toMillis(), location, event.getStackTrace() );
+        }
+    }
+
+    private static String locationOf(RecordedStackTrace stackTrace) {
+        if( stackTrace == null ) {
+            return "unknown";
+        }
+
+        for( RecordedFrame frame : stackTrace.getFrames() ) {
+            String type = frame.getMethod().getType().getName();
+            if( !type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.") ) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+}
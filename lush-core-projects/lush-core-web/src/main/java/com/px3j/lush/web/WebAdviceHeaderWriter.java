@@ -0,0 +1,117 @@
+package com.px3j.lush.web;
+
+import com.px3j.lush.core.json.LushAdviceEncoder;
+import com.px3j.lush.core.model.LushContext;
+import com.px3j.lush.web.common.Constants;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the x-lush-advice header to the response of a Lush controller method.  The WebControllerDecorator marks the
+ * request once the controller method has returned, the header is then added to the response in place (any headers
+ * set by the controller are left as they are) just before the body is written.  Controller methods can return a
+ * ResponseEntity or any body type.
+ * <br/><br/>
+ * When no body is written (a null return value or a method without a body) the header is added by the
+ * HandlerInterceptor, registered by LushWebMvcConfigurer, after the handler has run.  For a CompletableFuture this
+ * happens once it has completed, so the header carries the advice as it was on completion.  The body of a
+ * StreamingResponseBody or ResponseBodyEmitter is written after the headers have been sent, the header is written by
+ * the WebControllerDecorator when the method returns.
+ *
+ * @author Paul Parrone
+ */
+@ControllerAdvice
+@Slf4j(topic = "lush.core.debug")
+public class WebAdviceHeaderWriter implements ResponseBodyAdvice<Object>, HandlerInterceptor {
+    static final String PENDING_ATTRIBUTE = "lushAdvicePending";
+
+    private final LushAdviceEncoder adviceEncoder;
+
+    @Autowired
+    public WebAdviceHeaderWriter(LushAdviceEncoder adviceEncoder) {
+        this.adviceEncoder = adviceEncoder;
+    }
+
+    /**
+     * Mark the request as needing the x-lush-advice header, called once the LushAdvice is complete.
+     *
+     * @param request The current request.
+     * @param lushContext The context holding the advice to return.
+     */
+    public void markPending(HttpServletRequest request, LushContext lushContext) {
+        request.setAttribute(PENDING_ATTRIBUTE, lushContext);
+    }
+
+    /**
+     * Add the x-lush-advice header to the response now, used when the headers are sent before the body is produced.
+     *
+     * @param request The current request, it is no longer marked as pending.
+     * @param response The response, it must not be committed.
+     * @param lushContext The context holding the advice to return.
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, LushContext lushContext) {
+        request.removeAttribute(PENDING_ATTRIBUTE);
+        addHeader(response, adviceEncoder.encode(lushContext.getAdvice()));
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        // nothing is written for a null body so neither are these headers, it is left to postHandle
+        if( body != null && request instanceof ServletServerHttpRequest servletRequest ) {
+            String advice = takePending(servletRequest.getServletRequest());
+            if( advice != null ) {
+                HttpHeaders headers = response.getHeaders();
+                headers.add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, Constants.ADVICE_HEADER_NAME);
+                headers.add(Constants.ADVICE_HEADER_NAME, advice);
+            }
+        }
+        return body;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        if( response.isCommitted() ) {
+            return;
+        }
+
+        String advice = takePending(request);
+        if( advice != null ) {
+            if( log.isDebugEnabled() ) log.debug( "Lush :: no body written, adding the advice header to the servlet response" );
+            addHeader(response, advice);
+        }
+    }
+
+    private static void addHeader(HttpServletResponse response, String advice) {
+        response.addHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, Constants.ADVICE_HEADER_NAME);
+        response.addHeader(Constants.ADVICE_HEADER_NAME, advice);
+    }
+
+    private String takePending(HttpServletRequest request) {
+        if( !(request.getAttribute(PENDING_ATTRIBUTE) instanceof LushContext lushContext) ) {
+            return null;
+        }
+
+        request.removeAttribute(PENDING_ATTRIBUTE);
+        return adviceEncoder.encode(lushContext.getAdvice());
+    }
+}
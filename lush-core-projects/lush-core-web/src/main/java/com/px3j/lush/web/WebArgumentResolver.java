@@ -0,0 +1,96 @@
+package com.px3j.lush.web;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.model.LushContext;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.web.security.TicketAuthenticationToken;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves LushTicket and LushContext controller arguments to the instances for the current request: the working
+ * ticket of the request's TicketAuthenticationToken and the request's LushContext (the same LushContext is used by
+ * the WebControllerDecorator to return the LushAdvice).  Registered by LushWebMvcConfigurer.
+ *
+ * @author Paul Parrone
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class WebArgumentResolver implements HandlerMethodArgumentResolver {
+    static final String CONTEXT_ATTRIBUTE = "lushContext";
+
+    private final Tracer tracer;
+
+    @Autowired
+    public WebArgumentResolver(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return type == LushTicket.class || type == LushContext.class;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer, NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        if( parameter.getParameterType() == LushContext.class ) {
+            HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+            if( request == null ) {
+                throw new LushException("LushContext can only be resolved for an HTTP request");
+            }
+            return contextFor(request);
+        }
+
+        LushTicket ticket = TicketAuthenticationToken.workingTicketOf(SecurityContextHolder.getContext().getAuthentication());
+        if( ticket == null ) {
+            throw new LushException("LushTicket can only be resolved for a request authenticated with a LushTicket");
+        }
+
+        if (log.isDebugEnabled()) log.debug("Lush - Resolved LushTicket for: " + ticket.getUsername());
+        return ticket;
+    }
+
+    /**
+     * Get the LushContext of the passed in request, creating it on first use.  The trace ID of the context (and it's
+     * LushAdvice) comes from the current span.
+     *
+     * @param request The current request.
+     * @return The LushContext of the request.
+     */
+    public LushContext contextFor(HttpServletRequest request) {
+        if( request.getAttribute(CONTEXT_ATTRIBUTE) instanceof LushContext lushContext ) {
+            return lushContext;
+        }
+
+        String requestKey = generateTraceId(tracer);
+        LushContext lushContext = new LushContext();
+        lushContext.setTraceId(requestKey);
+        lushContext.setAdvice(new LushAdvice(requestKey, 200));
+
+        request.setAttribute(CONTEXT_ATTRIBUTE, lushContext);
+        return lushContext;
+    }
+
+    private String generateTraceId(Tracer tracer) {
+        String contextKey = "?/?";
+
+        Span currentSpan = tracer.currentSpan();
+        if (currentSpan != null) {
+            contextKey = currentSpan.context().traceId() + "," + currentSpan.context().spanId();
+        }
+
+        return contextKey;
+    }
+}
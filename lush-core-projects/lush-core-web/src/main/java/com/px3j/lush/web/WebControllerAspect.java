@@ -0,0 +1,33 @@
+package com.px3j.lush.web;
+
+import com.px3j.lush.web.common.ControllerAspect;
+import com.px3j.lush.web.common.LushInvocation;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aspect, applied via Spring AOP, that intercepts calls to public Lush controller methods and passes them to the
+ * WebControllerDecorator.  Only registered when lush.aop.mode is proxy (the default).
+ *
+ * @author Paul Parrone
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = ControllerAspect.MODE_PROPERTY, havingValue = "proxy", matchIfMissing = true)
+public class WebControllerAspect extends ControllerAspect {
+    private final WebControllerDecorator decorator;
+
+    @Autowired
+    public WebControllerAspect(WebControllerDecorator decorator) {
+        this.decorator = decorator;
+    }
+
+    @Around("lushControllerMethods() && execution(public * *(..))")
+    public Object invocationAdvice(ProceedingJoinPoint joinPoint) {
+        return decorator.decorate(invocationPlans.get(joinPoint), LushInvocation.of(joinPoint));
+    }
+}
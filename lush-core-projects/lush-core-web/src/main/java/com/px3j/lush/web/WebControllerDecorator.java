@@ -1,49 +1,82 @@
 package com.px3j.lush.web;
 
 import brave.baggage.BaggageField;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.px3j.lush.core.exception.LushException;
 import com.px3j.lush.core.exception.StackTraceToLoggerWriter;
-import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.cache.ResponseCache;
+import com.px3j.lush.core.cache.ResponseCaches;
+import com.px3j.lush.core.limit.AdmissionController;
+import com.px3j.lush.core.limit.ConcurrencyLimiter;
+import com.px3j.lush.core.limit.ConcurrencyLimiters;
 import com.px3j.lush.core.model.LushContext;
 import com.px3j.lush.core.ticket.LushTicket;
-import com.px3j.lush.web.common.Constants;
+import com.px3j.lush.web.common.CallKey;
 import com.px3j.lush.web.common.ControllerDecorator;
+import com.px3j.lush.web.common.InvocationPlan;
+import com.px3j.lush.web.common.LushInvocation;
 import com.px3j.lush.web.common.LushWrappedInvocation;
+import com.px3j.lush.web.common.SharedResult;
 import io.micrometer.tracing.BaggageInScope;
-import io.micrometer.tracing.Span;
 import io.micrometer.tracing.Tracer;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.Around;
-import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.MDC;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 
-@Aspect
+/**
+ * Provides the Lush functionality for Spring MVC controller methods: the LushContext, the lush-user-name MDC/baggage
+ * and the x-lush-advice response header (added by WebAdviceHeaderWriter once the method has returned).  It is applied
+ * by WebControllerAspect or by a generated subclass of the controller, see ControllerDecorator.
+ * <br/><br/>
+ * An asynchronous call holds its concurrency limit/admission permit until its result has been produced: a
+ * CompletionStage until it completes, a StreamingResponseBody until it has been written and a ResponseBodyEmitter
+ * (or SseEmitter) until it completes, fails or times out.
+ * <br/><br/>
+ * The response headers of a streamed body or emitter are sent before it is produced, so its x-lush-advice header is
+ * the advice as it was when the method returned.  Unlike lush-core-webflux there is no final advice (trailer or
+ * "lush-advice" event), an emitter is completed by the application and Lush has no chance to send anything after
+ * the application's last event.
+ *
+ * @author Paul Parrone
+ */
 @Component
 @Slf4j(topic = "lush.core.debug")
 public class WebControllerDecorator extends ControllerDecorator {
-    private final ObjectMapper objectMapper;
+    private final WebAdviceHeaderWriter adviceHeaderWriter;
+    private final WebArgumentResolver argumentResolver;
+    private final LushTaskDecorator taskDecorator;
+    private final Map<CallKey, CompletableFuture<SharedResult>> coalescing = new ConcurrentHashMap<>();
 
-    public WebControllerDecorator(Tracer tracer, ObjectMapper objectMapper) {
-        super(tracer);
-        this.objectMapper = objectMapper;
+    public WebControllerDecorator(Tracer tracer, ConcurrencyLimiters limiters, AdmissionController admissionController, ResponseCaches responseCaches, WebAdviceHeaderWriter adviceHeaderWriter, WebArgumentResolver argumentResolver, LushTaskDecorator taskDecorator) {
+        super(tracer, limiters, admissionController, responseCaches);
+        this.adviceHeaderWriter = adviceHeaderWriter;
+        this.argumentResolver = argumentResolver;
+        this.taskDecorator = taskDecorator;
     }
 
-    @Around("lushControllerMethods() && execution(public org.springframework.http.ResponseEntity *..*(..))")
-    public ResponseEntity<?> invocationAdvice(ProceedingJoinPoint joinPoint) throws Throwable {
+    /**
+     * Decorate a call to a controller method.
+     *
+     * @param plan The plan for the method being called.
+     * @param invocation The call to the method.
+     * @return The value returned by the method, as-is.
+     */
+    public Object decorate(InvocationPlan plan, LushInvocation invocation) {
         if (log.isDebugEnabled()) {
             log.debug("****");
             log.debug("intercepted request - web invocation");
@@ -53,18 +86,21 @@ public class WebControllerDecorator extends ControllerDecorator {
 
         try {
             HttpServletRequest request = getRequest();
-            LushContext lushContext = setLushContext(request);
+            LushContext lushContext = argumentResolver.contextFor(request);
 
-            LushTicket ticket = getLushTicket();
+            Authentication authentication = getAuthentication();
+            LushTicket ticket = (LushTicket) authentication.getPrincipal();
             if (log.isDebugEnabled()) log.debug("ticket user: " + ticket.getUsername());
 
             scope = this.tracer.createBaggageInScope("lush-user-name", ticket.getUsername());
             MDC.put("lush-user-name", ticket.getUsername());
 
-            LushWrappedInvocation<ResponseEntity<?>> lushMethod = LushWrappedInvocation.wrap(joinPoint, lushContext, ticket);
-            ResponseEntity<?> ogResponse = lushMethod.invoke();
+            ResponseCache cache = responseCaches.cacheFor(plan);
+            Object result = cache != null
+                    ? cached(cache, plan, invocation, lushContext, authentication)
+                    : callOrCoalesce(plan, invocation, lushContext, authentication);
 
-            return  getMutatedResponse(ogResponse != null ? ogResponse : ResponseEntity.ok().build(), lushContext);
+            return adviseResult(result, request, lushContext);
         }
         finally {
             MDC.remove("lush-user-name");
@@ -72,48 +108,185 @@ public class WebControllerDecorator extends ControllerDecorator {
         }
     }
 
+    private Object callOrCoalesce(InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        return plan.isCoalesced()
+                ? coalesce(plan, invocation, lushContext, authentication)
+                : call(plan, invocation, lushContext, authentication);
+    }
+
+    /**
+     * Return the cached result of the call, or make the call and cache its result.  A CompletionStage is cached as
+     * the value it completes with, a streamed body isn't cached.
+     */
+    private Object cached(ResponseCache cache, InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        CallKey key = cache.keyOf(plan, invocation.getArgs(), (LushTicket) authentication.getPrincipal());
+        boolean async = CompletionStage.class.isAssignableFrom(plan.getMethod().getReturnType());
+
+        SharedResult hit = cache.get(key);
+        if( hit != null ) {
+            if (log.isDebugEnabled()) log.debug("Lush :: cached result of " + plan);
+            Object value = hit.replayTo(lushContext);
+            return async ? CompletableFuture.completedFuture(value) : value;
+        }
+
+        Object result = callOrCoalesce(plan, invocation, lushContext, authentication);
+        if( result instanceof CompletionStage<?> stage ) {
+            return stage.whenComplete((value, throwable) -> {
+                if( throwable == null ) {
+                    cache.put(key, value, lushContext.getAdvice());
+                }
+            });
+        }
+
+        Object body = result instanceof ResponseEntity<?> entity ? entity.getBody() : result;
+        if( !async && !(body instanceof StreamingResponseBody) && !(body instanceof ResponseBodyEmitter) ) {
+            cache.put(key, result, lushContext.getAdvice());
+        }
+        return result;
+    }
+
     /**
-     * Sets the LushContext for the given HttpServletRequest. This method generates
-     * a trace ID, creates a LushAdvice object with a default status, assigns these
-     * objects to a new LushContext, and sets this context as an attribute in the
-     * request.
+     * Admit and make the call, an asynchronous call (see class docs) releases its permit once its result has been
+     * produced.
      *
-     * @param request the HttpServletRequest for which the LushContext needs to be set
-     * @return the created LushContext object containing the trace ID and advice
+     * @return The value returned by the method, null if the call wasn't admitted.
      */
-    private LushContext setLushContext(HttpServletRequest request) {
-        String requestKey = generateTraceId(tracer);
-        LushAdvice advice = new LushAdvice(requestKey, 200);
-        LushContext lushContext = new LushContext();
-
-        lushContext.setTraceId(requestKey);
-        lushContext.setAdvice(advice);
-        request.setAttribute("lushContext", lushContext);
-        return lushContext;
+    private Object call(InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        ConcurrencyLimiter.Permit permit = admit(plan, lushContext, (LushTicket) authentication.getPrincipal());
+        if( permit == null ) {
+            return null;
+        }
+
+        try {
+            LushWrappedInvocation<Object> lushMethod = LushWrappedInvocation.wrap(invocation, plan, lushContext, authentication);
+            Object result = lushMethod.invoke();
+
+            ConcurrencyLimiter.Permit asyncPermit = permit;
+            if( result instanceof CompletionStage<?> stage ) {
+                permit = null;
+                return stage.whenComplete((value, throwable) -> asyncPermit.release());
+            }
+
+            Object body = result instanceof ResponseEntity<?> entity ? entity.getBody() : result;
+            if( body instanceof ResponseBodyEmitter emitter ) {
+                permit = null;
+                emitter.onCompletion(asyncPermit::release);
+                emitter.onError(throwable -> asyncPermit.release());
+                emitter.onTimeout(asyncPermit::release);
+            }
+            else if( body instanceof StreamingResponseBody streaming ) {
+                permit = null;
+                return withBody(result, out -> {
+                    try {
+                        streaming.writeTo(out);
+                    }
+                    finally {
+                        asyncPermit.release();
+                    }
+                });
+            }
+            return result;
+        }
+        finally {
+            if (permit != null) permit.release();
+        }
     }
 
     /**
-     * Retrieves the current LushTicket from the security context.
+     * Make the call, or share the result of an identical call that is in flight.  A caller sharing a value waits for
+     * it, one sharing a CompletionStage gets its own stage that completes with the shared value.
+     */
+    private Object coalesce(InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        CallKey key = CallKey.of(plan, invocation.getArgs(), plan.getCoalesceScope(), (LushTicket) authentication.getPrincipal());
+        CompletableFuture<SharedResult> shared = new CompletableFuture<>();
+
+        CompletableFuture<SharedResult> inFlight = coalescing.putIfAbsent(key, shared);
+        if( inFlight != null ) {
+            if (log.isDebugEnabled()) log.debug("Lush :: coalesced call to " + plan);
+            return CompletionStage.class.isAssignableFrom(plan.getMethod().getReturnType())
+                    ? inFlight.thenApply(result -> result.replayTo(lushContext))
+                    : inFlight.join().replayTo(lushContext);
+        }
+
+        try {
+            Object result = call(plan, invocation, lushContext, authentication);
+            if( result instanceof CompletionStage<?> stage ) {
+                return stage.whenComplete((value, throwable) -> share(key, shared, value, lushContext));
+            }
+
+            share(key, shared, result, lushContext);
+            return result;
+        }
+        catch (RuntimeException e) {
+            coalescing.remove(key, shared);
+            shared.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void share(CallKey key, CompletableFuture<SharedResult> shared, Object value, LushContext lushContext) {
+        coalescing.remove(key, shared);
+        shared.complete(new SharedResult(value, lushContext.getAdvice()));
+    }
+
+    /**
+     * Arrange for the x-lush-advice header to be added to the response.  The header is normally added once the result
+     * has been handled by Spring MVC (for a CompletableFuture that is when it completes), but the headers of a
+     * streamed response are sent before the body is produced so the header is added now.  A StreamingResponseBody is
+     * written on another thread, it is wrapped to run with this request's ticket, MDC and span.
+     */
+    private Object adviseResult(Object result, HttpServletRequest request, LushContext lushContext) {
+        Object body = result instanceof ResponseEntity<?> entity ? entity.getBody() : result;
+        if( !(body instanceof StreamingResponseBody) && !(body instanceof ResponseBodyEmitter) ) {
+            adviceHeaderWriter.markPending(request, lushContext);
+            return result;
+        }
+
+        adviceHeaderWriter.write(request, getResponse(), lushContext);
+        if( !(body instanceof StreamingResponseBody streaming) ) {
+            return result;
+        }
+
+        LushTaskDecorator.Captured captured = taskDecorator.capture();
+        StreamingResponseBody propagating = out -> {
+            try (LushTaskDecorator.Scope ignored = captured.restore()) {
+                streaming.writeTo(out);
+            }
+        };
+
+        return withBody(result, propagating);
+    }
+
+    /**
+     * @return The result with its StreamingResponseBody replaced, keeping the headers/status of a ResponseEntity.
+     */
+    private static Object withBody(Object result, StreamingResponseBody body) {
+        return result instanceof ResponseEntity<?> entity
+                ? new ResponseEntity<>(body, entity.getHeaders(), entity.getStatusCode())
+                : body;
+    }
+
+    /**
+     * Retrieves the current Authentication from the security context.
      * <p>
      * This method extracts the authentication details from the security context
      * and ensures that the method is executed in a secured context with a valid
      * LushTicket. It throws an exception if the method is invoked in an unsecured
      * context or if the LushTicket is not available.
      *
-     * @return the current LushTicket associated with the authenticated user
+     * @return the current Authentication, its principal is the LushTicket of the authenticated user
      * @throws LushException if the method is invoked in a non-secured context or if the LushTicket is not available
      */
-    private static LushTicket getLushTicket() {
+    private static Authentication getAuthentication() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null) {
             throw new LushException("@LushControllerMethod should not be applied to a non-secured method");
         }
 
-        LushTicket ticket = (LushTicket) authentication.getPrincipal();
-        if (ticket == null) {
+        if (!(authentication.getPrincipal() instanceof LushTicket)) {
             throw new LushException("@LushControllerMethod should not be mapped to a non HTTP request");
         }
-        return ticket;
+        return authentication;
     }
 
     /**
@@ -132,30 +305,11 @@ public class WebControllerDecorator extends ControllerDecorator {
         return sra.getRequest();
     }
 
-    private ResponseEntity<Object> getMutatedResponse(ResponseEntity ogResponse, LushContext lushContext) throws JsonProcessingException {
-        HttpHeaders newHeaders = new HttpHeaders();
-        ogResponse.getHeaders()
-                .forEach((key, value) -> newHeaders.add(key, value.get(0)));
-
-        newHeaders.add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, Constants.ADVICE_HEADER_NAME);
-        newHeaders.add(Constants.ADVICE_HEADER_NAME, objectMapper.writeValueAsString(lushContext.getAdvice()));
-
-        ResponseEntity<Object> mutatedResponse = new ResponseEntity<>(
-                ogResponse.getBody(),
-                newHeaders,
-                ogResponse.getStatusCode()
-        );
-        return mutatedResponse;
-    }
-
-    private String generateTraceId(Tracer tracer) {
-        String contextKey = "?/?";
-
-        Span currentSpan = tracer.currentSpan();
-        if (currentSpan != null) {
-            contextKey = currentSpan.context().traceId() + "," + currentSpan.context().spanId();
+    private static HttpServletResponse getResponse() {
+        ServletRequestAttributes sra = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (sra == null || sra.getResponse() == null) {
+            throw new LushException("@LushControllerMethod should not be mapped to a non HTTP request");
         }
-
-        return contextKey;
+        return sra.getResponse();
     }
 }
@@ -0,0 +1,41 @@
+package com.px3j.lush.web.client;
+
+import com.px3j.lush.core.ticket.TicketForwarder;
+import com.px3j.lush.web.common.Constants;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Feign RequestInterceptor that adds the Lush ticket of the current request to outbound calls, see TicketForwarder.
+ * A ticket header that has been set explicitly is left alone.
+ * <p>
+ * The ticket is a user credential, so this is not applied to every Feign client.  Add it to the clients of other Lush
+ * services:
+ * <pre>
+ *     &#64;FeignClient(name = "catService", configuration = LushTicketRequestInterceptor.class)
+ * </pre>
+ *
+ * @author Paul Parrone
+ */
+public class LushTicketRequestInterceptor implements RequestInterceptor {
+    private final TicketForwarder ticketForwarder;
+
+    @Autowired
+    public LushTicketRequestInterceptor(TicketForwarder ticketForwarder) {
+        this.ticketForwarder = ticketForwarder;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if( template.headers().containsKey(Constants.TICKET_HEADER_NAME) ) {
+            return;
+        }
+
+        String ticket = ticketForwarder.headerFor(SecurityContextHolder.getContext().getAuthentication());
+        if( ticket != null ) {
+            template.header(Constants.TICKET_HEADER_NAME, ticket);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.px3j.lush.web.client;
+
+import com.px3j.lush.core.ticket.TicketForwarder;
+import com.px3j.lush.web.common.Constants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * RestTemplate version of LushTicketRequestInterceptor.  The ticket is a user credential, so this is not added to
+ * every RestTemplate, add it to the RestTemplates used to call other Lush services:
+ * <pre>
+ *     restTemplateBuilder.additionalInterceptors(lushTicketRestTemplateInterceptor).build()
+ * </pre>
+ *
+ * @author Paul Parrone
+ */
+@Component
+public class LushTicketRestTemplateInterceptor implements ClientHttpRequestInterceptor {
+    private final TicketForwarder ticketForwarder;
+
+    @Autowired
+    public LushTicketRestTemplateInterceptor(TicketForwarder ticketForwarder) {
+        this.ticketForwarder = ticketForwarder;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if( !request.getHeaders().containsKey(Constants.TICKET_HEADER_NAME) ) {
+            String ticket = ticketForwarder.headerFor(SecurityContextHolder.getContext().getAuthentication());
+            if( ticket != null ) {
+                request.getHeaders().set(Constants.TICKET_HEADER_NAME, ticket);
+            }
+        }
+
+        return execution.execute(request, body);
+    }
+}
@@ -1,8 +1,9 @@
 package com.px3j.lush.web.security;
 
 import com.google.gson.JsonSyntaxException;
+import com.px3j.lush.core.revocation.TicketRevocationChecker;
 import com.px3j.lush.core.ticket.LushTicket;
-import com.px3j.lush.core.ticket.TicketUtil;
+import com.px3j.lush.core.ticket.TicketCache;
 import com.px3j.lush.web.common.Constants;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,11 +20,13 @@ import org.springframework.util.StringUtils;
 @Component
 @Slf4j(topic = "lush.core.debug")
 public class LushSecurityContextRepository implements SecurityContextRepository {
-    private final TicketUtil ticketUtil;
+    private final TicketCache ticketCache;
+    private final TicketRevocationChecker revocationChecker;
 
     @Autowired
-    public LushSecurityContextRepository(TicketUtil ticketUtil) {
-        this.ticketUtil = ticketUtil;
+    public LushSecurityContextRepository(TicketCache ticketCache, TicketRevocationChecker revocationChecker) {
+        this.ticketCache = ticketCache;
+        this.revocationChecker = revocationChecker;
     }
 
     @Override
@@ -34,9 +37,15 @@ public class LushSecurityContextRepository implements SecurityContextRepository
         String ticketFromHeader = request.getHeader(Constants.TICKET_HEADER_NAME);
         if( StringUtils.hasText(ticketFromHeader) ) {
             try {
-                LushTicket ticket = ticketUtil.decrypt(ticketFromHeader);
+                LushTicket ticket = ticketCache.decrypt(ticketFromHeader);
+                if( revocationChecker.isRejected(ticket) ) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("DENY: Lush Ticket has expired or been revoked, userName: " + ticket.getUsername());
+                    }
+                    return context;
+                }
 
-                TicketAuthenticationToken authToken = new TicketAuthenticationToken(ticket);
+                TicketAuthenticationToken authToken = new TicketAuthenticationToken(ticket, ticketFromHeader);
                 authToken.setAuthenticated(true);
                 context.setAuthentication(authToken);
 
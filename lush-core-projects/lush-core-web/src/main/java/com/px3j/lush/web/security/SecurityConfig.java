@@ -1,5 +1,6 @@
 package com.px3j.lush.web.security;
 
+import com.px3j.lush.core.authority.TicketAuthorizationManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -65,7 +66,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests( exchanges -> {
                     exchanges.requestMatchers(HttpMethod.OPTIONS).permitAll();
 
-                    exchanges.requestMatchers("/actuator/**", "/health/**" ).hasAuthority("lush-monitor");
+                    exchanges.requestMatchers("/actuator/**", "/health/**" ).access(TicketAuthorizationManager.hasAuthority("lush-monitor"));
 
                     exchanges.requestMatchers(publicPaths.toArray(new String[0])).anonymous();
                     exchanges.requestMatchers(protectedPaths.toArray(new String[0])).authenticated();
@@ -0,0 +1,92 @@
+package com.px3j.service;
+
+import com.px3j.lush.core.json.LushJson;
+import com.px3j.lush.core.limit.AdmissionController;
+import com.px3j.lush.core.limit.ConcurrencyLimiter;
+import com.px3j.lush.core.limit.Priority;
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static com.px3j.lush.web.common.Constants.TICKET_HEADER_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the example service with lush.admission.enabled=true: batch calls are shed once one call is in flight and
+ * interactive calls once four are.
+ */
+@Slf4j(topic="lush.core.debug")
+@ActiveProfiles( profiles = {"clear-ticket"})
+@SpringBootTest(classes={LushServiceApp.class}, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"lush.admission.enabled=true", "lush.admission.max-in-flight=4",
+                "lush.admission.batch-share=0.25", "lush.admission.interactive-share=1", "lush.admission.cpu-threshold=0"})
+public class LushAdmissionTests {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TicketUtil ticketUtil;
+
+    @Autowired
+    private LushJson lushJson;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testPriorityShedding() {
+        LushTicket monitor = new LushTicket("monitor", "", List.of(new SimpleGrantedAuthority("lush-monitor")));
+        LushTicket batch = new LushTicket("batch", "", List.of(new SimpleGrantedAuthority("user"), new SimpleGrantedAuthority("batch")));
+        LushTicket tagged = new LushTicket("tagged", "", List.of(new SimpleGrantedAuthority("user")));
+        tagged.putExtra(AdmissionController.PRIORITY.getKey(), "batch");
+        LushTicket interactive = new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")));
+
+        assertEquals( Priority.CRITICAL, admissionController.classify(monitor) );
+        assertEquals( Priority.BATCH, admissionController.classify(batch) );
+        assertEquals( Priority.BATCH, admissionController.classify(tagged) );
+        assertEquals( Priority.INTERACTIVE, admissionController.classify(interactive) );
+
+        // a call in flight fills the batch share, batch calls are shed and interactive calls go through
+        ConcurrencyLimiter.Permit held = admissionController.admit(monitor, new LushAdvice());
+        try {
+            LushAdvice advice = ping(batch);
+            assertEquals( AdmissionController.SHED_STATUS_CODE, advice.getStatusCode() );
+            assertEquals( "batch", advice.getExtras().get("lush.priority") );
+            assertEquals( AdmissionController.SHED_STATUS_CODE, ping(tagged).getStatusCode() );
+            assertEquals( 200, ping(interactive).getStatusCode() );
+        }
+        finally {
+            held.release();
+        }
+
+        assertEquals( 200, ping(batch).getStatusCode() );
+        assertEquals( 0, admissionController.getInFlight() );
+        assertEquals( 2.0, meterRegistry.get("lush.admission.shed").tag("priority", "batch").counter().count() );
+        assertEquals( 0.0, meterRegistry.get("lush.admission.shed").tag("priority", "interactive").counter().count() );
+    }
+
+    private LushAdvice ping(LushTicket ticket) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(ticket));
+        ResponseEntity<String> response = restTemplate.exchange("/lush/example/pingModel", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals( HttpStatus.OK, response.getStatusCode() );
+
+        LushAdvice advice = lushJson.fromJson(response.getHeaders().getFirst("x-lush-advice"), LushAdvice.class);
+        log.debug( "Lush :: {} advice: {}", ticket.getUsername(), advice );
+        return advice;
+    }
+}
@@ -0,0 +1,106 @@
+package com.px3j.service;
+
+import com.px3j.lush.core.json.LushJson;
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.px3j.lush.web.common.Constants.TICKET_HEADER_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Checks that concurrent calls to a coalesced endpoint share a single call.  Tracing is enabled (it is a no-op in
+ * tests by default) so that each caller's trace id can be checked.
+ */
+@Slf4j(topic="lush.core.debug")
+@ActiveProfiles( profiles = {"clear-ticket"})
+@AutoConfigureObservability
+@SpringBootTest(classes={LushServiceApp.class}, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class LushCoalescingTests {
+    private static final int CALLERS = 4;
+
+    // the callers must all be in flight at once, whatever the size of the common pool
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TicketUtil ticketUtil;
+
+    @Autowired
+    private LushJson lushJson;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCoalescing() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")))));
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        List<ResponseEntity<Map>> responses = IntStream.range(0, CALLERS)
+                .mapToObj( i -> CompletableFuture.supplyAsync(() ->
+                        restTemplate.exchange("/lush/example/pingCoalesced", HttpMethod.GET, entity, Map.class), callers) )
+                .toList()
+                .stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        // every caller has the result and advice of the one call, with its own trace id
+        Set<Object> calls = responses.stream().map(r -> r.getBody().get("call")).collect(Collectors.toSet());
+        assertEquals( 1, calls.size() );
+
+        List<LushAdvice> advice = responses.stream()
+                .map(r -> lushJson.fromJson(r.getHeaders().getFirst("x-lush-advice"), LushAdvice.class))
+                .toList();
+        advice.forEach( a -> assertEquals( ((Number) calls.iterator().next()).intValue(), ((Number) a.getExtras().get("call")).intValue() ) );
+        assertEquals( CALLERS, advice.stream().map(LushAdvice::getTraceId).distinct().count() );
+
+        // once the call is complete the next call is made
+        ResponseEntity<Map> next = restTemplate.exchange("/lush/example/pingCoalesced", HttpMethod.GET, entity, Map.class);
+        assertNotEquals( calls.iterator().next(), next.getBody().get("call") );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCoalescingIsPerUser() {
+        List<String> users = List.of("paul", "ringo", "paul", "ringo");
+
+        List<CompletableFuture<ResponseEntity<Map>>> calls = users.stream()
+                .map( user -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket(user, "", List.of(new SimpleGrantedAuthority("user")))));
+                    return CompletableFuture.supplyAsync(() ->
+                            restTemplate.exchange("/lush/example/pingCoalescedUser", HttpMethod.GET, new HttpEntity<>(headers), Map.class), callers);
+                })
+                .toList();
+
+        // users calling at the same moment each get their own result, a user's concurrent calls share one
+        List<Map> bodies = calls.stream().map(CompletableFuture::join).map(ResponseEntity::getBody).toList();
+        for( int i = 0; i < users.size(); i++ ) {
+            assertEquals( users.get(i), bodies.get(i).get("user") );
+        }
+        assertEquals( bodies.get(0).get("call"), bodies.get(2).get("call") );
+        assertEquals( bodies.get(1).get("call"), bodies.get(3).get("call") );
+        assertNotEquals( bodies.get(0).get("call"), bodies.get(1).get("call") );
+    }
+}
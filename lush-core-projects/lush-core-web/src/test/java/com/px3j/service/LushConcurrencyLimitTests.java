@@ -0,0 +1,72 @@
+package com.px3j.service;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.limit.AdaptiveLimit;
+import com.px3j.lush.core.limit.LimitAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Feeds the adaptive limits steady then rising latency: the limit must grow to maxLimit while latency is steady,
+ * shrink once it rises and never leave its bounds.
+ */
+public class LushConcurrencyLimitTests {
+    private static final int MIN = 5;
+    private static final int MAX = 100;
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void testGradientLimitAdapts() {
+        assertAdapts( LimitAlgorithm.GRADIENT.create(20, MIN, MAX), 20_000, 1_000 );
+    }
+
+    @Test
+    public void testVegasLimitAdapts() {
+        assertAdapts( LimitAlgorithm.VEGAS.create(20, MIN, MAX), 2_000, 100 );
+    }
+
+    @Test
+    public void testLimitBounds() {
+        assertNull( LimitAlgorithm.NONE.create(20, 10, 1) );
+        for( LimitAlgorithm algorithm : new LimitAlgorithm[] { LimitAlgorithm.GRADIENT, LimitAlgorithm.VEGAS } ) {
+            assertThrows( LushException.class, () -> algorithm.create(20, 10, 5) );
+            assertThrows( LushException.class, () -> algorithm.create(20, 0, 5) );
+
+            // the initial limit is clamped to the bounds
+            assertEquals( 5, algorithm.create(20, 1, 5).getLimit() );
+            assertEquals( 10, algorithm.create(1, 10, 50).getLimit() );
+        }
+    }
+
+    private static void assertAdapts(AdaptiveLimit limit, int steadySamples, int slowSamples) {
+        int initial = limit.getLimit();
+
+        // steady latency with the limit in use, the limit grows up to maxLimit
+        for( int i = 0; i < steadySamples; i++ ) {
+            limit.onSample(FAST, limit.getLimit());
+            assertInBounds(limit);
+        }
+        assertTrue( limit.getLimit() > initial, "limit grew: " + limit.getLimit() );
+        assertEquals( MAX, limit.getLimit() );
+
+        // latency rises tenfold, the limit shrinks towards minLimit
+        int lowest = limit.getLimit();
+        for( int i = 0; i < slowSamples; i++ ) {
+            limit.onSample(SLOW, limit.getLimit());
+            assertInBounds(limit);
+            lowest = Math.min(lowest, limit.getLimit());
+        }
+        assertTrue( lowest < MAX / 2, "limit shrank: " + lowest );
+    }
+
+    private static void assertInBounds(AdaptiveLimit limit) {
+        assertTrue( limit.getLimit() >= MIN && limit.getLimit() <= MAX, "limit in bounds: " + limit.getLimit() );
+    }
+}
@@ -0,0 +1,60 @@
+package com.px3j.service;
+
+import com.google.gson.Gson;
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketUtil;
+import com.px3j.lush.web.WebControllerAspect;
+import com.px3j.service.cat.CatController;
+import com.px3j.service.cat.CatController_Lush;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+import static com.px3j.lush.web.common.Constants.TICKET_HEADER_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the example service with lush.aop.mode=generated, the controllers are decorated by the subclasses generated by
+ * lush-core-processor instead of the Lush aspect.
+ */
+@Slf4j(topic="lush.core.debug")
+@ActiveProfiles( profiles = {"clear-ticket"})
+@SpringBootTest(classes={LushServiceApp.class}, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "lush.aop.mode=generated")
+public class LushGeneratedModeTests {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TicketUtil ticketUtil;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    public void testGeneratedDecorators() {
+        assertTrue( applicationContext.getBeansOfType(WebControllerAspect.class).isEmpty() );
+        assertEquals( CatController_Lush.class, ClassUtils.getUserClass(applicationContext.getBean(CatController.class)) );
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")))));
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+
+        ResponseEntity<String> response = restTemplate.exchange("/lush/cat/fluxOfCatsWithAdvice", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals( HttpStatus.OK, response.getStatusCode() );
+
+        LushAdvice advice = new Gson().fromJson(response.getHeaders().getFirst("x-lush-advice"), LushAdvice.class);
+        assertEquals( "hello: paul", advice.getExtras().get("helloMessage") );
+        log.info( "generated mode advice: {}", advice );
+    }
+}
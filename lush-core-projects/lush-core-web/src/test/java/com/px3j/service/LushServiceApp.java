@@ -1,6 +1,7 @@
 package com.px3j.service;
 
 import com.px3j.lush.web.EnableLushWeb;
+import com.px3j.lush.web.client.LushTicketRestTemplateInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -25,8 +26,10 @@ public class LushServiceApp {
     }
 
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    public RestTemplate restTemplate(RestTemplateBuilder builder, LushTicketRestTemplateInterceptor lushTicketInterceptor) {
+        // this RestTemplate calls other Lush services, so the ticket of the current request is forwarded
         return builder
+                .additionalInterceptors(lushTicketInterceptor)
 //                .additionalInterceptors(loggingInterceptor)
                 .build();
     }
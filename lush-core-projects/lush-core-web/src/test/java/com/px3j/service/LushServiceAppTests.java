@@ -4,9 +4,37 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.px3j.service.model.Cat;
+import com.px3j.lush.core.authority.AuthorityRegistry;
+import com.px3j.lush.core.authority.TicketAuthorizationManager;
+import com.px3j.lush.core.cache.ResponseCaches;
+import com.px3j.lush.core.limit.ConcurrencyLimiter;
+import com.px3j.lush.core.limit.ConcurrencyLimiters;
 import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.model.LushContext;
+import com.px3j.lush.core.revocation.RevocationFilterWriter;
+import com.px3j.lush.core.revocation.TicketRevocationChecker;
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.json.LushAdviceEncoder;
+import com.px3j.lush.core.json.LushGson;
+import com.px3j.lush.core.json.LushJson;
 import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.SignedTicketUtil;
+import com.px3j.lush.core.ticket.TicketBatch;
+import com.px3j.lush.core.ticket.TicketCache;
+import com.px3j.lush.core.ticket.TicketCompressor;
+import com.px3j.lush.core.ticket.TicketExtra;
+import com.px3j.lush.core.ticket.TicketForwarder;
+import com.px3j.lush.core.ticket.TicketResult;
+import com.px3j.lush.core.ticket.TicketSerializer;
 import com.px3j.lush.core.ticket.TicketUtil;
+import com.px3j.lush.core.util.HmacHelper;
+import com.px3j.lush.web.WebControllerAspect;
+import com.px3j.lush.web.client.LushTicketRestTemplateInterceptor;
+import com.px3j.lush.web.common.InvocationPlan;
+import com.px3j.lush.web.security.TicketAuthenticationToken;
+import com.px3j.service.cat.CatController;
+import com.px3j.service.show.ShowController;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
@@ -14,21 +42,42 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static com.px3j.lush.web.common.Constants.TICKET_HEADER_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 @Slf4j(topic="lush.core.debug")
 @ActiveProfiles( profiles = {"clear-ticket"})
@@ -41,11 +90,341 @@ public class LushServiceAppTests {
     @Autowired
     private TicketUtil ticketUtil;
 
+    @Autowired
+    private TicketCache ticketCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LushJson lushJson;
+
+    @Autowired
+    private TicketBatch ticketBatch;
+
+    @Autowired
+    private TicketForwarder ticketForwarder;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired
+    private LushTicketRestTemplateInterceptor lushTicketInterceptor;
+
+    @Autowired
+    private WebControllerAspect controllerAspect;
+
+    @Autowired
+    private ConcurrencyLimiters concurrencyLimiters;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ResponseCaches responseCaches;
+
+    @Autowired
+    private ShowController showController;
+
     @Test
     void contextLoads() {
         // empty test that would fail if our Spring configuration does not load correctly
     }
 
+    @Test
+    public void testTicketCache() {
+        LushTicket ticket = new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")));
+        final String encodedTicket = ticketUtil.encrypt(ticket);
+
+        LushTicket cached = ticketCache.decrypt(encodedTicket);
+        assertSame( cached, ticketCache.decrypt(encodedTicket) );
+        assertThrows( LushException.class, () -> cached.putExtra("leak", true) );
+        assertThrows( UnsupportedOperationException.class, () -> cached.getAuthorities().clear() );
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testTicketCacheTypedExtraIsolation() {
+        LushTicket ticket = new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")));
+        ticket.putExtra("preferences", Map.of("theme", "dark"));
+        ticket.putExtra("tier", "gold");
+        final String encodedTicket = ticketUtil.encrypt(ticket);
+        TicketExtra<Map> preferences = TicketExtra.of("preferences", Map.class);
+        TicketExtra<String> tier = TicketExtra.of("tier", String.class);
+
+        // a request changing its typed extra must not change it for the next request sharing the cached ticket
+        Map first = ticketCache.decrypt(encodedTicket).getExtra(preferences);
+        first.put("theme", "light");
+
+        LushTicket second = ticketCache.decrypt(encodedTicket);
+        assertEquals( "dark", second.getExtra(preferences).get("theme") );
+        assertEquals( "dark", ((Map) second.getExtra("preferences")).get("theme") );
+
+        // each request's working ticket memoizes its typed extras, without sharing them with other requests
+        LushTicket working = ticketCache.decrypt(encodedTicket).toMutable();
+        Map workingPreferences = working.getExtra(preferences);
+        assertSame( workingPreferences, working.getExtra(preferences) );
+        workingPreferences.put("theme", "light");
+        assertEquals( "dark", ticketCache.decrypt(encodedTicket).toMutable().getExtra(preferences).get("theme") );
+        assertEquals( "dark", ((Map) working.getExtra("preferences")).get("theme") );
+
+        // values of immutable types are memoized in the shared ticket too
+        LushTicket shared = ticketCache.decrypt(encodedTicket);
+        assertSame( shared.getExtra(tier), shared.getExtra(tier) );
+    }
+
+    @Test
+    public void testTicketFormats() {
+        LushTicket ticket = new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user"), new SimpleGrantedAuthority("cat-owner")));
+        ticket.putExtra("cats", List.of("Luna", "Milo"));
+        ticket.putExtra("lives", 9L);
+
+        TicketSerializer json = new TicketSerializer(TicketSerializer.Format.JSON, List.of("user", "lush-monitor"), lushJson);
+        TicketSerializer binary = new TicketSerializer(TicketSerializer.Format.BINARY, List.of("user", "lush-monitor"), lushJson);
+
+        // either serializer must read both formats
+        LushTicket fromBinary = json.deserialize(binary.serialize(ticket));
+        LushTicket fromJson = binary.deserialize(json.serialize(ticket));
+
+        assertEquals( ticket.getUsername(), fromBinary.getUsername() );
+        assertEquals( List.copyOf(ticket.getAuthorities()), List.copyOf(fromBinary.getAuthorities()) );
+        assertEquals( ticket.getExtras(), fromBinary.getExtras() );
+        assertEquals( ticket.getUsername(), fromJson.getUsername() );
+        assertEquals( List.copyOf(ticket.getAuthorities()), List.copyOf(fromJson.getAuthorities()) );
+
+        // extras are decoded on first read, typed access converts straight to the requested type
+        TicketExtra<Long> lives = TicketExtra.of("lives", Long.class);
+        assertEquals( 9L, fromJson.getExtra(lives) );
+        assertEquals( 9L, fromBinary.getExtra(lives) );
+        assertEquals( 9L, fromBinary.toImmutable().getExtra(lives) );
+        assertEquals( List.of("Luna", "Milo"), fromJson.getExtra("cats") );
+    }
+
+    @Test
+    public void testTicketCompression() {
+        LushTicket ticket = new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")));
+        ticket.putExtra("tenant", "px3j");
+        ticket.putExtra("features", IntStream.range(0, 50).mapToObj(i -> "feature-flag-" + i).toList());
+
+        TicketCompressor compressor = new TicketCompressor(true, 256, 6, true, null);
+        for( TicketSerializer.Format format : TicketSerializer.Format.values() ) {
+            TicketSerializer plain = new TicketSerializer(format, List.of("user"), lushJson);
+            TicketSerializer compressing = new TicketSerializer(format, List.of("user"), lushJson, compressor);
+
+            byte[] uncompressed = plain.serialize(ticket);
+            byte[] compressed = compressing.serialize(ticket);
+            assertTrue( TicketCompressor.isCompressed(compressed) );
+            assertTrue( compressed.length < uncompressed.length / 2 );
+
+            // either serializer reads both
+            assertEquals( ticket.getExtras(), plain.deserialize(compressed).getExtras() );
+            assertEquals( ticket.getExtras(), compressing.deserialize(uncompressed).getExtras() );
+        }
+
+        // small tickets are left alone
+        assertFalse( TicketCompressor.isCompressed(compressor.compress(new byte[] { '{', '}' })) );
+    }
+
+    @Test
+    public void testTicketRevocation() throws Exception {
+        Path file = Files.createTempFile("lush-revoked", ".lrbf");
+        new RevocationFilterWriter(10, RevocationFilterWriter.DEFAULT_FALSE_POSITIVE_RATE).add("revoked-1").writeTo(file);
+
+        TicketRevocationChecker checker = new TicketRevocationChecker(true, file.toString(), Duration.ofHours(1), Duration.ZERO, null);
+        try {
+            LushTicket ticket = new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")));
+            ticket.setId("revoked-2");
+            ticket.setIssuedAt(System.currentTimeMillis());
+            ticket.setExpiresAt(ticket.getIssuedAt() + 60_000);
+            assertFalse( checker.isRejected(ticket) );
+
+            // expiry survives both formats
+            for( TicketSerializer.Format format : TicketSerializer.Format.values() ) {
+                TicketSerializer serializer = new TicketSerializer(format, List.of("user"), lushJson);
+                assertEquals( ticket.getExpiresAt(), serializer.deserialize(serializer.serialize(ticket)).getExpiresAt() );
+            }
+
+            new RevocationFilterWriter(10, RevocationFilterWriter.DEFAULT_FALSE_POSITIVE_RATE).add("revoked-1").add("revoked-2").writeTo(file);
+            assertTrue( checker.reload() );
+            assertTrue( checker.isRevoked(ticket) );
+
+            ticket.setId("valid");
+            ticket.setExpiresAt(ticket.getIssuedAt() - 1);
+            assertTrue( checker.isExpired(ticket) );
+        }
+        finally {
+            checker.shutdown();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testJsonAdapters() throws Exception {
+        LushAdvice advice = new LushAdvice("trace-1", 200);
+        advice.addWarning(new LushAdvice.LushWarning(7, Map.of("reason", "slow")));
+        advice.putExtra("page", "2");
+
+        // Gson and Jackson must produce JSON that the other can read
+        LushAdvice viaJackson = LushGson.get().fromJson(objectMapper.writeValueAsString(advice), LushAdvice.class);
+        LushAdvice viaGson = objectMapper.readValue(LushGson.get().toJson(advice), LushAdvice.class);
+
+        assertEquals( advice.toString(), viaJackson.toString() );
+        assertEquals( advice.toString(), viaGson.toString() );
+
+        // tickets written by a plain ObjectMapper use "authority" rather than "role"
+        LushTicket ticket = LushGson.get().fromJson(
+                "{\"username\":\"paul\",\"authorities\":[{\"authority\":\"user\"}],\"extras\":{}}", LushTicket.class );
+        assertEquals( "user", ticket.getAuthorities().iterator().next().getAuthority() );
+    }
+
+    @Test
+    public void testAdviceEncoder() {
+        LushAdviceEncoder encoder = new LushAdviceEncoder(lushJson);
+
+        // untouched advice comes from the template, it must match what LushJson produces
+        LushAdvice advice = new LushAdvice("6719d2a5c0e1f7b3,a94e02d4c5b6a7f8", 200);
+        assertEquals( lushJson.toJson(advice), encoder.encode(advice) );
+
+        // a trace id that needs escaping, a status code and detail are all serialized
+        advice = new LushAdvice("?/\"quoted\"", 200);
+        assertEquals( lushJson.toJson(advice), encoder.encode(advice) );
+
+        advice.setStatusCode(555);
+        advice.addWarning(new LushAdvice.LushWarning(1, Map.of("count", 100)));
+        advice.putExtra("page", "2");
+        assertEquals( lushJson.toJson(advice), encoder.encode(advice) );
+        assertEquals( lushJson.toJson(advice), encoder.encode(advice) );
+    }
+
+    @Test
+    public void testSignedTicket() {
+        TicketSerializer serializer = new TicketSerializer(TicketSerializer.Format.BINARY, List.of("user"), lushJson);
+        SignedTicketUtil signedTicketUtil = new SignedTicketUtil(new HmacHelper(HmacHelper.generateKey()), serializer);
+
+        String signed = signedTicketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user"))));
+        assertTrue( signedTicketUtil.verify(signed) );
+        assertEquals( "paul", signedTicketUtil.decrypt(signed).getUsername() );
+
+        // any change to the payload must be rejected before it is parsed
+        String tampered = signed.substring(0, 4) + (signed.charAt(4) == 'A' ? 'B' : 'A') + signed.substring(5);
+        assertFalse( signedTicketUtil.verify(tampered) );
+        assertThrows( LushException.class, () -> signedTicketUtil.decrypt(tampered) );
+
+        // the payload is readable so a password must never be put in it
+        assertThrows( LushException.class, () -> signedTicketUtil.encrypt(new LushTicket("paul", "secret", List.of(new SimpleGrantedAuthority("user")))) );
+    }
+
+    @Test
+    public void testAuthorities() {
+        LushTicket ticket = new LushTicket("paul", "", List.of(AuthorityRegistry.intern("user"), new SimpleGrantedAuthority("lush-monitor"))).toImmutable();
+        assertSame( AuthorityRegistry.intern("user"), ticket.getAuthorities().iterator().next() );
+        assertSame( ticket.getAuthoritySet(), ticket.getAuthoritySet() );
+
+        TicketAuthenticationToken token = new TicketAuthenticationToken(ticket);
+        token.setAuthenticated(true);
+        assertTrue( token.hasAuthority("lush-monitor") );
+        assertFalse( token.hasAuthority("admin") );
+        assertEquals( 2, token.getAuthorities().size() );
+
+        assertTrue( TicketAuthorizationManager.hasAuthority("user").isGranted(token) );
+        assertFalse( TicketAuthorizationManager.hasAuthority("admin").isGranted(token) );
+    }
+
+    @Test
+    public void testTicketForwarding() {
+        String header = ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user"))));
+        TicketAuthenticationToken token = new TicketAuthenticationToken(ticketCache.decrypt(header), header);
+
+        // unmodified, the inbound header is forwarded as-is
+        assertSame( header, ticketForwarder.headerFor(token) );
+        token.getWorkingTicket().getExtras();
+        assertSame( header, ticketForwarder.headerFor(token) );
+
+        token.getWorkingTicket().putExtra("tenant", "px3j");
+        assertTrue( token.isTicketModified() );
+        assertEquals( "px3j", ticketUtil.decrypt(ticketForwarder.headerFor(token)).getExtra("tenant") );
+    }
+
+    @Test
+    public void testTicketForwardingIsOptIn() {
+        String header = ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user"))));
+        SecurityContextHolder.getContext().setAuthentication(new TicketAuthenticationToken(ticketCache.decrypt(header), header));
+
+        try {
+            // a RestTemplate that isn't used to call Lush services never sends the ticket
+            RestTemplate otherClient = restTemplateBuilder.build();
+            MockRestServiceServer otherServer = MockRestServiceServer.bindTo(otherClient).build();
+            otherServer.expect(requestTo("https://api.example.com/rates"))
+                    .andExpect(headerDoesNotExist(TICKET_HEADER_NAME))
+                    .andRespond(withSuccess());
+            otherClient.getForEntity("https://api.example.com/rates", String.class);
+            otherServer.verify();
+
+            // the ticket is forwarded by a RestTemplate the interceptor has been added to
+            RestTemplate lushClient = restTemplateBuilder.additionalInterceptors(lushTicketInterceptor).build();
+            MockRestServiceServer lushServer = MockRestServiceServer.bindTo(lushClient).build();
+            lushServer.expect(requestTo("http://cats/lush/cat/cats"))
+                    .andExpect(header(TICKET_HEADER_NAME, header))
+                    .andRespond(withSuccess());
+            lushClient.getForEntity("http://cats/lush/cat/cats", String.class);
+            lushServer.verify();
+        }
+        finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    public void testInvocationPlans() throws Exception {
+        // plans for every @LushControllerMethod are created at startup
+        int warmed = controllerAspect.getInvocationPlans().size();
+        assertTrue( warmed >= 8 );
+
+        InvocationPlan plan = controllerAspect.getInvocationPlans().get(
+                CatController.class,
+                CatController.class.getMethod("fluxOfCatsWithAdvice", LushTicket.class, LushContext.class)
+        );
+        assertEquals( 0, plan.getTicketIndex() );
+        assertEquals( 1, plan.getContextIndex() );
+        assertEquals( warmed, controllerAspect.getInvocationPlans().size() );
+    }
+
+    @Test
+    public void testArgumentResolvers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")))));
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        // the ticket is the request's ticket, request parameters are not bound to it
+        ResponseEntity<String> response = restTemplate.exchange("/lush/example/pingUser?username=mallory", HttpMethod.GET, entity, String.class);
+        assertTrue( Objects.requireNonNull(response.getBody()).contains("hi: paul") );
+
+        // the context is the one the advice is returned from
+        response = restTemplate.exchange("/lush/cat/fluxOfCatsWithAdvice", HttpMethod.GET, entity, String.class);
+        LushAdvice advice = new Gson().fromJson(response.getHeaders().getFirst("x-lush-advice"), LushAdvice.class);
+        assertEquals( "hello: paul", advice.getExtras().get("helloMessage") );
+    }
+
+    @Test
+    public void testTicketBatch() {
+        List<LushTicket> tickets = IntStream.range(0, 200)
+                .mapToObj( i -> new LushTicket("user-" + i, "", List.of(new SimpleGrantedAuthority("user"))) )
+                .toList();
+
+        List<String> encrypted = ticketBatch.encryptAll(tickets).stream().map(TicketResult::getValue).toList();
+
+        // a bad ticket must only fail its own item
+        List<String> toDecrypt = new ArrayList<>(encrypted);
+        toDecrypt.set(100, "not-a-ticket");
+
+        List<TicketResult<LushTicket>> decrypted = ticketBatch.decryptAll(toDecrypt);
+        assertEquals( 200, decrypted.size() );
+        assertFalse( decrypted.get(100).isSuccess() );
+        assertEquals( "user-199", decrypted.get(199).getValue().getUsername() );
+        assertEquals( 199, decrypted.stream().filter(TicketResult::isSuccess).count() );
+    }
+
     @Test
     public void testPing()  {
         log.info( "START: testPing" );
@@ -69,6 +448,147 @@ public class LushServiceAppTests {
     }
 
 
+    @Test
+    public void testAdviceHeader() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")))));
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        // a method returning the body rather than a ResponseEntity
+        ResponseEntity<String> response = restTemplate.exchange("/lush/example/pingModel", HttpMethod.GET, entity, String.class);
+        assertEquals( HttpStatus.OK, response.getStatusCode() );
+        assertTrue( Objects.requireNonNull(response.getBody()).contains("hi: paul") );
+        LushAdvice advice = lushJson.fromJson(response.getHeaders().getFirst("x-lush-advice"), LushAdvice.class);
+        assertEquals( true, advice.getExtras().get("model") );
+
+        // every value of the endpoint's headers is kept
+        response = restTemplate.exchange("/lush/example/pingHeaders", HttpMethod.GET, entity, String.class);
+        assertEquals( List.of("one", "two"), response.getHeaders().get("x-lush-example") );
+        assertEquals( 1, response.getHeaders().get("x-lush-advice").size() );
+
+        // no body is written when the endpoint fails unexpectedly, the header is still added
+        response = restTemplate.exchange("/lush/example/uae", HttpMethod.GET, entity, String.class);
+        advice = lushJson.fromJson(response.getHeaders().getFirst("x-lush-advice"), LushAdvice.class);
+        assertEquals( -99, advice.getStatusCode() );
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")))));
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        InvocationPlan plan = controllerAspect.getInvocationPlans().get(
+                ShowController.class,
+                ShowController.class.getMethod("pingLimited", LushTicket.class)
+        );
+        ConcurrencyLimiter limiter = concurrencyLimiters.limiterFor(plan);
+        assertEquals( 1, limiter.getLimit() );
+
+        // the only permit is held, the call is rejected without calling the method
+        ConcurrencyLimiter.Permit held = limiter.tryAcquire();
+        ResponseEntity<String> response = restTemplate.exchange("/lush/example/pingLimited", HttpMethod.GET, entity, String.class);
+        LushAdvice advice = lushJson.fromJson(response.getHeaders().getFirst("x-lush-advice"), LushAdvice.class);
+        assertEquals( ConcurrencyLimiter.REJECTED_STATUS_CODE, advice.getStatusCode() );
+        assertNull( response.getBody() );
+        assertEquals( 1.0, meterRegistry.get("lush.limit.rejected").tag("method", plan.toString()).counter().count() );
+
+        held.release();
+        response = restTemplate.exchange("/lush/example/pingLimited", HttpMethod.GET, entity, String.class);
+        assertTrue( Objects.requireNonNull(response.getBody()).contains("hi: paul") );
+        assertEquals( 0.0, meterRegistry.get("lush.limit.in-flight").tag("method", plan.toString()).gauge().value() );
+    }
+
+    @Test
+    public void testStreamingHoldsPermit() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")))));
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        for( String export : List.of("exportLimited", "eventsLimited") ) {
+            InvocationPlan plan = controllerAspect.getInvocationPlans().get(ShowController.class, ShowController.class.getMethod(export));
+            ConcurrencyLimiter limiter = concurrencyLimiters.limiterFor(plan);
+
+            // the permit is held while the body is produced, a second call is rejected
+            CountDownLatch gate = showController.holdExports();
+            CompletableFuture<ResponseEntity<String>> exporting = CompletableFuture.supplyAsync(
+                    () -> restTemplate.exchange("/lush/example/" + export, HttpMethod.GET, entity, String.class)
+            );
+            awaitInFlight(limiter, 1);
+
+            ResponseEntity<String> rejected = restTemplate.exchange("/lush/example/" + export, HttpMethod.GET, entity, String.class);
+            LushAdvice advice = lushJson.fromJson(rejected.getHeaders().getFirst("x-lush-advice"), LushAdvice.class);
+            assertEquals( ConcurrencyLimiter.REJECTED_STATUS_CODE, advice.getStatusCode() );
+
+            gate.countDown();
+            assertTrue( Objects.requireNonNull(exporting.get(10, TimeUnit.SECONDS).getBody()).contains("exported") );
+            awaitInFlight(limiter, 0);
+        }
+    }
+
+    private static void awaitInFlight(ConcurrencyLimiter limiter, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while( limiter.getInFlight() != expected && System.nanoTime() < deadline ) {
+            Thread.sleep(10);
+        }
+        assertEquals( expected, limiter.getInFlight() );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResponseCache() throws Exception {
+        InvocationPlan plan = controllerAspect.getInvocationPlans().get(
+                ShowController.class,
+                ShowController.class.getMethod("pingCached", LushTicket.class, LushContext.class)
+        );
+        responseCaches.invalidateAll();
+
+        // the second call by paul gets the cached result and advice, another user gets their own result
+        ResponseEntity<Map> first = pingCached("paul");
+        ResponseEntity<Map> second = pingCached("paul");
+        ResponseEntity<Map> other = pingCached("ringo");
+
+        assertEquals( first.getBody(), second.getBody() );
+        assertEquals( "ringo", Objects.requireNonNull(other.getBody()).get("user") );
+        assertNotEquals( first.getBody().get("call"), other.getBody().get("call") );
+
+        LushAdvice advice = lushJson.fromJson(second.getHeaders().getFirst("x-lush-advice"), LushAdvice.class);
+        assertEquals( ((Number) first.getBody().get("call")).intValue(), ((Number) advice.getExtras().get("call")).intValue() );
+        assertEquals( 2, responseCaches.cacheFor(plan).size() );
+        assertEquals( 1.0, meterRegistry.get("cache.gets").tags("cache", ResponseCaches.CACHE_NAME, "method", plan.toString(), "result", "hit").functionCounter().count() );
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ResponseEntity<Map> pingCached(String username) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket(username, "", List.of(new SimpleGrantedAuthority("user")))));
+        return restTemplate.exchange("/lush/example/pingCached", HttpMethod.GET, new HttpEntity<>(headers), Map.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAsyncResults() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")))));
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        // the advice header is added once the future has completed, the work sees the request's ticket and MDC
+        ResponseEntity<Map> future = restTemplate.exchange("/lush/example/pingFuture", HttpMethod.GET, entity, Map.class);
+        assertEquals( HttpStatus.OK, future.getStatusCode() );
+        assertEquals( Map.of("ticketUser", "paul", "mdcUser", "paul"), future.getBody() );
+        LushAdvice advice = lushJson.fromJson(future.getHeaders().getFirst("x-lush-advice"), LushAdvice.class);
+        assertEquals( "pingFuture", advice.getExtras().get("completedBy") );
+
+        // streamed responses have the header and write their body with the request's MDC
+        ResponseEntity<String> stream = restTemplate.exchange("/lush/example/pingStream", HttpMethod.GET, entity, String.class);
+        assertEquals( "0:paul\n1:paul\n2:paul\n", stream.getBody() );
+        assertEquals( 1, stream.getHeaders().get("x-lush-advice").size() );
+
+        ResponseEntity<String> events = restTemplate.exchange("/lush/example/pingEvents", HttpMethod.GET, entity, String.class);
+        assertTrue( Objects.requireNonNull(events.getBody()).contains("data:2:paul") );
+        assertEquals( 1, events.getHeaders().get("x-lush-advice").size() );
+    }
+
     @Test
     public void testPingUser() {
         log.info("START: testPingUser");
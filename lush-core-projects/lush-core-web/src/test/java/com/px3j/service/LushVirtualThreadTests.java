@@ -0,0 +1,90 @@
+package com.px3j.service;
+
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketUtil;
+import com.px3j.lush.web.VirtualThreadPinningMonitor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.px3j.lush.web.common.Constants.TICKET_HEADER_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the example service with spring.threads.virtual.enabled=true, requests run on virtual threads.  Tracing
+ * is enabled (it is a no-op in tests by default) so that the lush-user-name baggage can be checked.
+ */
+@Slf4j(topic="lush.core.debug")
+@ActiveProfiles( profiles = {"clear-ticket"})
+@AutoConfigureObservability
+@SpringBootTest(classes={LushServiceApp.class}, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.threads.virtual.enabled=true", "lush.web.virtual-threads.pinned-threshold=10ms"})
+public class LushVirtualThreadTests {
+    private static final Object MONITOR = new Object();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TicketUtil ticketUtil;
+
+    @Autowired
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testVirtualThreads() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TICKET_HEADER_NAME, ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user")))));
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+
+        // the endpoint runs on a virtual thread and sees the request's thread bound state
+        ResponseEntity<Map> response = restTemplate.exchange("/lush/example/pingThread", HttpMethod.GET, new HttpEntity<>(headers), Map.class);
+        assertEquals( HttpStatus.OK, response.getStatusCode() );
+        Map<String, Object> thread = response.getBody();
+        log.info( "thread details: {}", thread );
+        assertEquals( true, thread.get("virtual") );
+        assertEquals( "paul", thread.get("ticketUser") );
+        assertEquals( "paul", thread.get("securityUser") );
+        assertEquals( "paul", thread.get("mdcUser") );
+        assertEquals( "paul", thread.get("baggageUser") );
+
+        // work handed to the applicationTaskExecutor (see LushTaskDecorator) runs on virtual threads too
+        assertTrue( taskExecutor.submit(() -> Thread.currentThread().isVirtual()).get(10, TimeUnit.SECONDS) );
+
+        // blocking inside a synchronized block pins the virtual thread
+        Thread.ofVirtual().start(() -> {
+            synchronized (MONITOR) {
+                try {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while( pinningMonitor.getPinnedCount() == 0 && System.currentTimeMillis() < deadline ) {
+            Thread.sleep(100);
+        }
+        assertTrue( pinningMonitor.getPinnedCount() > 0 );
+    }
+}
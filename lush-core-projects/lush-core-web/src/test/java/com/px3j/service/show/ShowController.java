@@ -1,26 +1,37 @@
 package com.px3j.service.show;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.px3j.service.show.impl.FeignRemoteServiceImpl;
 import com.px3j.service.show.impl.RestRemoteServiceImpl;
 import com.px3j.lush.core.exception.LushException;
 import com.px3j.lush.core.exception.StackTraceToLoggerWriter;
+import com.px3j.lush.core.limit.LimitAlgorithm;
 import com.px3j.lush.core.model.AnyModel;
 import com.px3j.lush.core.model.LushAdvice;
 import com.px3j.lush.core.model.LushContext;
 import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketScope;
+import com.px3j.lush.web.common.LushCacheable;
 import com.px3j.lush.web.common.LushControllerMethod;
 import io.micrometer.tracing.Tracer;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Example controller that shows how you can take advantage of Lush in your applications endpoints.
@@ -34,11 +45,17 @@ public class ShowController {
     private final FeignRemoteServiceImpl feignRemoteService;
     private final RestRemoteServiceImpl restRemoteService;
     private final Tracer tracer;
+    private final AsyncTaskExecutor taskExecutor;
+    private final AtomicInteger coalescedCalls = new AtomicInteger();
+    private final AtomicInteger cachedCalls = new AtomicInteger();
+    private volatile CountDownLatch exportGate = new CountDownLatch(0);
 
-    public ShowController(FeignRemoteServiceImpl feignRemoteService, RestRemoteServiceImpl restRemoteService, Tracer tracer) {
+    public ShowController(FeignRemoteServiceImpl feignRemoteService, RestRemoteServiceImpl restRemoteService, Tracer tracer,
+                          @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor) {
         this.feignRemoteService = feignRemoteService;
         this.restRemoteService = restRemoteService;
         this.tracer = tracer;
+        this.taskExecutor = taskExecutor;
     }
 
     /**
@@ -75,20 +92,258 @@ public class ShowController {
         return ResponseEntity.ok( AnyModel.from("message", String.format("Powered By Lush - hi: %s", ticket.getUsername())) );
     }
 
+    /**
+     * Lush controller methods don't have to return a ResponseEntity, the advice header is added to the response of
+     * a method returning the body.
+     *
+     * @param ticket The ticket representing the user triggering this request.
+     * @return The body of the response.
+     */
     @LushControllerMethod
-    @GetMapping("pingRemote")
+    @GetMapping("pingModel")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<AnyModel> pingRemote( LushTicket ticket) {
-        log.info( ticket.toString() );
-        String ticketJson;
+    public AnyModel pingModel( LushTicket ticket, LushContext lushContext ) {
+        lushContext.getAdvice().putExtra("model", true);
+        return AnyModel.from("message", String.format("Powered By Lush - hi: %s", ticket.getUsername()));
+    }
+
+    /**
+     * An endpoint whose concurrent calls are limited, a call over the limit isn't made and has the advice status code
+     * ConcurrencyLimiter.REJECTED_STATUS_CODE.
+     *
+     * @param ticket The ticket representing the user triggering this request.
+     * @return The body of the response.
+     */
+    @LushControllerMethod(concurrencyLimit = LimitAlgorithm.VEGAS, initialLimit = 1, maxLimit = 1)
+    @GetMapping("pingLimited")
+    @PreAuthorize("isAuthenticated()")
+    public AnyModel pingLimited( LushTicket ticket ) {
+        return AnyModel.from("message", String.format("Powered By Lush - hi: %s", ticket.getUsername()));
+    }
+
+    /**
+     * A slow endpoint whose concurrent calls are coalesced, callers arriving while a call is in flight share its
+     * result and advice.
+     *
+     * @param lushContext The context of the call.
+     * @return The number of the call that produced the result.
+     */
+    @LushControllerMethod(coalesce = true)
+    @GetMapping("pingCoalesced")
+    @PreAuthorize("isAuthenticated()")
+    public AnyModel pingCoalesced( LushContext lushContext ) throws InterruptedException {
+        int call = coalescedCalls.incrementAndGet();
+        Thread.sleep(500);
+
+        lushContext.getAdvice().putExtra("call", call);
+        return AnyModel.from("call", call);
+    }
+
+    /**
+     * A slow coalesced endpoint whose result depends on the caller, it takes the ticket so calls are only coalesced
+     * with calls by the same user.
+     *
+     * @param ticket The ticket representing the user triggering this request.
+     * @param lushContext The context of the call.
+     * @return The user and the number of the call that produced the result.
+     */
+    @LushControllerMethod(coalesce = true)
+    @GetMapping("pingCoalescedUser")
+    @PreAuthorize("isAuthenticated()")
+    public AnyModel pingCoalescedUser( LushTicket ticket, LushContext lushContext ) throws InterruptedException {
+        int call = coalescedCalls.incrementAndGet();
+        Thread.sleep(500);
+
+        lushContext.getAdvice().putExtra("call", call);
+        return AnyModel.from("user", ticket.getUsername(), "call", call);
+    }
+
+    /**
+     * An endpoint whose results are cached per user, a user calling it again gets the cached result and advice.
+     *
+     * @param ticket The ticket representing the user triggering this request.
+     * @param lushContext The context of the call.
+     * @return The number of the call that produced the result.
+     */
+    @LushControllerMethod
+    @LushCacheable(scope = TicketScope.USERNAME, expireAfterWrite = "1m", maximumSize = 100)
+    @GetMapping("pingCached")
+    @PreAuthorize("isAuthenticated()")
+    public AnyModel pingCached( LushTicket ticket, LushContext lushContext ) {
+        int call = cachedCalls.incrementAndGet();
+
+        lushContext.getAdvice().putExtra("call", call);
+        return AnyModel.from("user", ticket.getUsername(), "call", call);
+    }
+
+    /**
+     * Reports the thread the endpoint runs on and the Lush thread bound state seen by it.
+     *
+     * @param ticket The ticket representing the user triggering this request.
+     * @return The thread details.
+     */
+    @LushControllerMethod
+    @GetMapping("pingThread")
+    @PreAuthorize("isAuthenticated()")
+    public AnyModel pingThread( LushTicket ticket ) {
+        return AnyModel.from(
+                "virtual", Thread.currentThread().isVirtual(),
+                "ticketUser", ticket.getUsername(),
+                "securityUser", ((LushTicket) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUsername(),
+                "mdcUser", MDC.get("lush-user-name"),
+                "baggageUser", tracer.getAllBaggage().get("lush-user-name")
+        );
+    }
+
+    /**
+     * An endpoint whose work is done on another thread.  The applicationTaskExecutor carries the request's ticket and
+     * MDC to that thread and the advice header is added once the future completes.
+     *
+     * @param lushContext The context of this request.
+     * @return The result of the work.
+     */
+    @LushControllerMethod
+    @GetMapping("pingFuture")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<AnyModel>> pingFuture( LushContext lushContext ) {
+        return CompletableFuture.supplyAsync(() -> {
+            lushContext.getAdvice().putExtra("completedBy", "pingFuture");
+            return ResponseEntity.ok(AnyModel.from(
+                    "ticketUser", ((LushTicket) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUsername(),
+                    "mdcUser", MDC.get("lush-user-name")
+            ));
+        }, taskExecutor);
+    }
 
+    /**
+     * An endpoint that streams its response, the advice header is sent before the body.
+     *
+     * @return Writes one line per item.
+     */
+    @LushControllerMethod
+    @GetMapping("pingStream")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> pingStream() {
+        return ResponseEntity.ok(out -> {
+            for( int i = 0; i < 3; i++ ) {
+                out.write(String.format("%d:%s%n", i, MDC.get("lush-user-name")).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    /**
+     * An endpoint that sends server sent events from another thread.
+     *
+     * @return The emitter the events are sent to.
+     */
+    @LushControllerMethod
+    @GetMapping("pingEvents")
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter pingEvents() {
+        SseEmitter emitter = new SseEmitter();
+        taskExecutor.execute(() -> {
+            try {
+                for( int i = 0; i < 3; i++ ) {
+                    emitter.send(SseEmitter.event().name("ping").data(i + ":" + MDC.get("lush-user-name")));
+                }
+                emitter.complete();
+            }
+            catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * A limited endpoint that streams an export, the call holds its permit until the export has been written.
+     *
+     * @return Writes the export once the gate from holdExports() is opened.
+     */
+    @LushControllerMethod(concurrencyLimit = LimitAlgorithm.VEGAS, initialLimit = 1, maxLimit = 1)
+    @GetMapping("exportLimited")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> exportLimited() {
+        CountDownLatch gate = exportGate;
+        return ResponseEntity.ok(out -> {
+            awaitGate(gate);
+            out.write("exported".getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    /**
+     * A limited endpoint that sends an export as server sent events, the call holds its permit until the emitter has
+     * completed.
+     *
+     * @return The emitter, the export is sent once the gate from holdExports() is opened.
+     */
+    @LushControllerMethod(concurrencyLimit = LimitAlgorithm.VEGAS, initialLimit = 1, maxLimit = 1)
+    @GetMapping("eventsLimited")
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter eventsLimited() {
+        CountDownLatch gate = exportGate;
+        SseEmitter emitter = new SseEmitter();
+        taskExecutor.execute(() -> {
+            try {
+                awaitGate(gate);
+                emitter.send(SseEmitter.event().name("export").data("exported"));
+                emitter.complete();
+            }
+            catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Hold the exports started from now on until the returned gate is opened.
+     *
+     * @return The gate to count down.
+     */
+    public CountDownLatch holdExports() {
+        exportGate = new CountDownLatch(1);
+        return exportGate;
+    }
+
+    private static void awaitGate(CountDownLatch gate) {
         try {
-            ticketJson = new ObjectMapper().writeValueAsString( ticket );
-        } catch (JsonProcessingException e) {
-            ticketJson = "";
+            gate.await();
         }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LushException("Interrupted waiting for the export gate", e);
+        }
+    }
+
+    /**
+     * Headers set by the endpoint are returned as they are, along with the advice header.
+     *
+     * @return A response with a multi-valued header.
+     */
+    @LushControllerMethod
+    @GetMapping("pingHeaders")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<AnyModel> pingHeaders() {
+        return ResponseEntity.ok()
+                .header("x-lush-example", "one", "two")
+                .body(AnyModel.from("message", "Powered By Lush"));
+    }
 
-        return ResponseEntity.ok( feignRemoteService.ping( ticketJson ) );
+    /**
+     * This endpoint illustrates calling another Lush service.  The ticket header is added to the outbound call by
+     * LushTicketRequestInterceptor, which is configured on the Feign client (the inbound header is forwarded as-is
+     * unless the ticket is modified).
+     *
+     * @param ticket The ticket representing the user triggering this request.
+     * @return The response from the remote service.
+     */
+    @LushControllerMethod
+    @GetMapping("pingRemote")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<AnyModel> pingRemote( LushTicket ticket) {
+        log.info( ticket.toString() );
+        return ResponseEntity.ok( feignRemoteService.ping() );
     }
 
     @LushControllerMethod
@@ -96,16 +351,8 @@ public class ShowController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<AnyModel> pingRemoteRt( LushTicket ticket) {
         log.info( ticket.toString() );
-        String ticketJson;
-
-        try {
-            log.info( "Scope:" + this.tracer.getAllBaggage() );
-            ticketJson = new ObjectMapper().writeValueAsString( ticket );
-            return ResponseEntity.ok( restRemoteService.ping( ticketJson ) );
-        }
-        catch (JsonProcessingException e) {
-            return ResponseEntity.ok( AnyModel.from("message", "couldn't ping remote") );
-        }
+        log.info( "Scope:" + this.tracer.getAllBaggage() );
+        return ResponseEntity.ok( restRemoteService.ping() );
     }
 
     /**
@@ -2,7 +2,6 @@ package com.px3j.service.show.impl;
 
 import com.px3j.service.show.RemoteService;
 import com.px3j.lush.core.model.AnyModel;
-import com.px3j.lush.web.common.Constants;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -22,10 +21,9 @@ public class RestRemoteServiceImpl implements RemoteService {
         this.baseUrl = baseUrl;
     }
 
-    public AnyModel ping(String ticket) {
+    public AnyModel ping() {
         HttpHeaders headers = new HttpHeaders();
         headers.set("Accept", "application/json");
-        headers.set(Constants.TICKET_HEADER_NAME, ticket);
 
         HttpEntity<String> entity = new HttpEntity<>(headers);
         String url = baseUrl + "/lush/example/ping";
@@ -0,0 +1,26 @@
+package com.px3j.lush.webflux;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+/**
+ * Registers the Lush WebFlux extensions.
+ *
+ * @author Paul Parrone
+ */
+@Configuration
+public class LushWebFluxConfigurer implements WebFluxConfigurer {
+    private final ReactiveArgumentResolver argumentResolver;
+
+    @Autowired
+    public LushWebFluxConfigurer(ReactiveArgumentResolver argumentResolver) {
+        this.argumentResolver = argumentResolver;
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        configurer.addCustomResolver(argumentResolver);
+    }
+}
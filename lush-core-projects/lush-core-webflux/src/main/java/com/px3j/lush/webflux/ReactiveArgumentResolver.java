@@ -0,0 +1,49 @@
+package com.px3j.lush.webflux;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.model.LushContext;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.web.security.TicketAuthenticationToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves LushTicket and LushContext controller arguments to the instances for the current request: the working
+ * ticket of the request's TicketAuthenticationToken and the LushContext that ReactiveEndpointFilter adds to the
+ * publisher context (the same LushContext is used to return the LushAdvice).  Registered by LushWebFluxConfigurer.
+ *
+ * @author Paul Parrone
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class ReactiveArgumentResolver implements HandlerMethodArgumentResolver {
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return type == LushTicket.class || type == LushContext.class;
+    }
+
+    @Override
+    public Mono<Object> resolveArgument(MethodParameter parameter, BindingContext bindingContext, ServerWebExchange exchange) {
+        if( parameter.getParameterType() == LushContext.class ) {
+            return Mono.deferContextual(ctx -> Mono.justOrEmpty(ctx.getOrEmpty(LushContext.class.getName())))
+                    .switchIfEmpty(Mono.error(() -> new LushException("LushContext is not available, is the ReactiveEndpointFilter registered?")));
+        }
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .mapNotNull(TicketAuthenticationToken::workingTicketOf)
+                .<Object>map(ticket -> {
+                    if (log.isDebugEnabled()) log.debug("Lush - Resolved LushTicket for: " + ticket.getUsername());
+                    return ticket;
+                })
+                .switchIfEmpty(Mono.error(() -> new LushException("LushTicket can only be resolved for a request authenticated with a LushTicket")));
+    }
+}
@@ -0,0 +1,40 @@
+package com.px3j.lush.webflux;
+
+import com.px3j.lush.web.common.ControllerAspect;
+import com.px3j.lush.web.common.LushInvocation;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Aspect, applied via Spring AOP, that intercepts calls to Lush controller methods returning a Mono or a Flux and
+ * passes them to the ReactiveControllerDecorator.  Only registered when lush.aop.mode is proxy (the default).
+ *
+ * @author Paul Parrone
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = ControllerAspect.MODE_PROPERTY, havingValue = "proxy", matchIfMissing = true)
+public class ReactiveControllerAspect extends ControllerAspect {
+    private final ReactiveControllerDecorator decorator;
+
+    @Autowired
+    public ReactiveControllerAspect(ReactiveControllerDecorator decorator) {
+        this.decorator = decorator;
+    }
+
+    @Around("lushControllerMethods() && execution(public reactor.core.publisher.Mono *..*(..))")
+    public Mono<?> monoInvocationAdvice(ProceedingJoinPoint pjp) {
+        return decorator.decorateMono(invocationPlans.get(pjp), LushInvocation.of(pjp));
+    }
+
+    @Around("lushControllerMethods() && execution(public reactor.core.publisher.Flux *..*(..))")
+    public Flux<?> fluxInvocationAdvice(ProceedingJoinPoint pjp) {
+        return decorator.decorateFlux(invocationPlans.get(pjp), LushInvocation.of(pjp));
+    }
+}
@@ -1,42 +1,92 @@
 package com.px3j.lush.webflux;
 
 import brave.baggage.BaggageField;
+import com.px3j.lush.core.json.LushAdviceEncoder;
+import com.px3j.lush.core.cache.ResponseCache;
+import com.px3j.lush.core.cache.ResponseCaches;
+import com.px3j.lush.core.limit.AdmissionController;
+import com.px3j.lush.core.limit.ConcurrencyLimiter;
+import com.px3j.lush.core.limit.ConcurrencyLimiters;
 import com.px3j.lush.core.model.LushContext;
 import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.web.common.Constants;
+import com.px3j.lush.web.common.CallKey;
 import com.px3j.lush.web.common.ControllerDecorator;
+import com.px3j.lush.web.common.InvocationPlan;
+import com.px3j.lush.web.common.LushInvocation;
 import com.px3j.lush.web.common.LushWrappedInvocation;
+import com.px3j.lush.web.common.SharedResult;
 import io.micrometer.tracing.Tracer;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.Around;
-import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.stereotype.Component;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Decorator, applied via AOP, that intercepts calls to any Lush based controllers.  It silently intercepts and provides
- * the Lush functionality.
+ * Provides the Lush functionality for WebFlux controller methods that return a Mono or a Flux.  It is applied by
+ * ReactiveControllerAspect or by a generated subclass of the controller, see ControllerDecorator.
+ * <br/><br/>
+ * An error raised by a Flux while it is streaming is reported in the advice (as for an error thrown by the method)
+ * and ends the stream.  A Flux sent as text/event-stream ends with a "lush-advice" event holding the final advice, as
+ * the x-lush-advice header was sent before the first element (lush.webflux.final-advice.event, see
+ * ReactiveEndpointFilter).  Other streamed media types (ie: application/x-ndjson) can only carry the final advice as
+ * a trailer, their elements are encoded as the method's declared element type.
+ * <br/><br/>
+ * Identical calls to a coalesced method (see LushControllerMethod::coalesce) returning a Mono share the Mono of the
+ * first call while it is in flight, a Flux is not coalesced.  The results of a method annotated with LushCacheable
+ * are cached once the Mono or Flux completes, a cached Flux is replayed from the elements it emitted.
  *
  * @author Paul Parrone
  */
-@Aspect
 @Component
 @Slf4j(topic = "lush.core.debug")
 public class ReactiveControllerDecorator extends ControllerDecorator {
     BaggageField lushUserNameField;
+    private final LushAdviceEncoder adviceEncoder;
+    private final boolean eventEnabled;
+    private final Map<CallKey, Mono<SharedResult>> coalescing = new ConcurrentHashMap<>();
 
     @Autowired
-    public ReactiveControllerDecorator(BaggageField lushUserNameField, Tracer tracer) {
-        super(tracer);
+    public ReactiveControllerDecorator(
+            BaggageField lushUserNameField,
+            Tracer tracer,
+            ConcurrencyLimiters limiters,
+            AdmissionController admissionController,
+            ResponseCaches responseCaches,
+            LushAdviceEncoder adviceEncoder,
+            @Value("${lush.webflux.final-advice.event:true}") boolean eventEnabled
+    ) {
+        super(tracer, limiters, admissionController, responseCaches);
         this.lushUserNameField = lushUserNameField;
+        this.adviceEncoder = adviceEncoder;
+        this.eventEnabled = eventEnabled;
     }
 
-    @Around("lushControllerMethods() && execution(public reactor.core.publisher.Mono *..*(..))")
-    public Mono<?> monoInvocationAdvice(ProceedingJoinPoint pjp) {
+    /**
+     * Decorate a call to a controller method that returns a Mono.
+     *
+     * @param plan The plan for the method being called.
+     * @param invocation The call to the method.
+     */
+    public Mono<?> decorateMono(InvocationPlan plan, LushInvocation invocation) {
         return Mono.deferContextual(ctx -> {
             LushContext lushContext = ctx.get(LushContext.class.getName());
             if (log.isDebugEnabled()) log.debug("LushContext: " + lushContext);
@@ -45,39 +95,187 @@ public class ReactiveControllerDecorator extends ControllerDecorator {
                     .doFinally(signal -> {
                         teardownLoggingContext();
                     })
-                    .map(sc -> (LushTicket) sc.getAuthentication().getPrincipal())
+                    .map(SecurityContext::getAuthentication)
                     .doOnNext(this::setupLoggingContext)
-                    .flatMap((ticket) -> {
+                    .flatMap((authentication) -> {
 //                        monoDecoratorImpl(pjp, lushContext, ticket)
-                        LushWrappedInvocation<Mono<?>> lushMethod = LushWrappedInvocation.wrap(pjp, lushContext, ticket);
-                        Mono<?> result = lushMethod.invoke();
-                        return result != null ? result.onErrorResume(throwable -> Mono.empty()) : Mono.empty(); // Return empty Flux if null
+                        ResponseCache cache = responseCaches.cacheFor(plan);
+                        return cache != null
+                                ? cachedMono(cache, plan, invocation, lushContext, authentication)
+                                : callOrCoalesce(plan, invocation, lushContext, authentication);
                     });
         });
     }
 
+    private Mono<?> callOrCoalesce(InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        return plan.isCoalesced()
+                ? coalesce(plan, invocation, lushContext, authentication)
+                : callMono(plan, invocation, lushContext, authentication);
+    }
+
+    /**
+     * Return the cached value of the call, or make the call and cache the value of its Mono once it completes.
+     */
+    private Mono<?> cachedMono(ResponseCache cache, InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        CallKey key = cache.keyOf(plan, invocation.getArgs(), (LushTicket) authentication.getPrincipal());
+
+        SharedResult hit = cache.get(key);
+        if( hit != null ) {
+            if (log.isDebugEnabled()) log.debug("Lush :: cached result of " + plan);
+            return Mono.justOrEmpty(hit.replayTo(lushContext));
+        }
+
+        return callOrCoalesce(plan, invocation, lushContext, authentication)
+                .doOnSuccess(value -> cache.put(key, value, lushContext.getAdvice()));
+    }
+
+    /**
+     * Admit and make a call to a method returning a Mono, the call completes (and releases its permit) with the Mono.
+     */
+    private Mono<?> callMono(InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        ConcurrencyLimiter.Permit permit = admit(plan, lushContext, (LushTicket) authentication.getPrincipal());
+        if( permit == null ) {
+            return Mono.empty();
+        }
 
-    @Around("lushControllerMethods() && execution(public reactor.core.publisher.Flux *..*(..))")
-    public Flux<?> fluxInvocationAdvice(ProceedingJoinPoint pjp) {
+        LushWrappedInvocation<Mono<?>> lushMethod = LushWrappedInvocation.wrap(invocation, plan, lushContext, authentication);
+        Mono<?> result = lushMethod.invoke();
+        if( result == null ) {
+            permit.release();
+            return Mono.empty(); // Return empty Mono if null
+        }
+        return result
+                .onErrorResume(throwable -> {
+                    LushWrappedInvocation.handleError(lushContext, throwable);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> permit.release());
+    }
+
+    /**
+     * Make the call, or share the Mono of an identical call that is in flight.  The Mono of the first caller is cached
+     * until it terminates, every caller subscribing to it gets its value and its advice replayed.
+     */
+    private Mono<?> coalesce(InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        CallKey key = CallKey.of(plan, invocation.getArgs(), plan.getCoalesceScope(), (LushTicket) authentication.getPrincipal());
+
+        Mono<SharedResult> shared = coalescing.computeIfAbsent(key, k -> Mono.defer(() -> callMono(plan, invocation, lushContext, authentication))
+                .<SharedResult>map(value -> new SharedResult(value, lushContext.getAdvice()))
+                .switchIfEmpty(Mono.fromSupplier(() -> new SharedResult(null, lushContext.getAdvice())))
+                .doFinally(signal -> coalescing.remove(k))
+                .cache());
+
+        return shared.flatMap(result -> Mono.justOrEmpty(result.replayTo(lushContext)));
+    }
+
+
+    /**
+     * Decorate a call to a controller method that returns a Flux.
+     *
+     * @param plan The plan for the method being called.
+     * @param invocation The call to the method.
+     */
+    public Flux<?> decorateFlux(InvocationPlan plan, LushInvocation invocation) {
         return Flux.deferContextual(ctx -> {
             LushContext lushContext = ctx.get(LushContext.class.getName());
             if (log.isDebugEnabled()) log.debug("LushContext: " + lushContext);
 
             return ReactiveSecurityContextHolder.getContext()
                     .doFinally(signal -> teardownLoggingContext())
-                    .map(sc -> (LushTicket) sc.getAuthentication().getPrincipal())
+                    .map(SecurityContext::getAuthentication)
                     .doOnNext(this::setupLoggingContext)
 //                            fluxDecoratorImpl(pjp, lushContext, ticket)
-                    .flatMapMany((ticket) -> {
-                                LushWrappedInvocation<Flux<?>> lushMethod = LushWrappedInvocation.wrap(pjp, lushContext, ticket);
-                                Flux<?> result = lushMethod.invoke();
-                                return result != null ? result.onErrorResume(throwable -> Flux.empty()) : Flux.empty(); // Return empty Flux if null
-
+                    .flatMapMany((authentication) -> {
+                                ResponseCache cache = responseCaches.cacheFor(plan);
+                                Flux<?> advised = cache != null
+                                        ? cachedFlux(cache, plan, invocation, lushContext, authentication)
+                                        : callFlux(plan, invocation, lushContext, authentication);
+                                return eventEnabled && isEventStream(ctx) ? withAdviceEvent(advised, lushContext) : advised;
                     });
         });
     }
 
-    private void setupLoggingContext(LushTicket ticket) {
+    /**
+     * Admit and make a call to a method returning a Flux, the call completes (and releases its permit) with the Flux.
+     */
+    private Flux<?> callFlux(InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        ConcurrencyLimiter.Permit permit = admit(plan, lushContext, (LushTicket) authentication.getPrincipal());
+        if( permit == null ) {
+            return Flux.empty();
+        }
+
+        LushWrappedInvocation<Flux<?>> lushMethod = LushWrappedInvocation.wrap(invocation, plan, lushContext, authentication);
+        Flux<?> result = lushMethod.invoke();
+        if( result == null ) {
+            permit.release();
+            return Flux.empty(); // Return empty Flux if null
+        }
+
+        return result
+                .onErrorResume(throwable -> {
+                    LushWrappedInvocation.handleError(lushContext, throwable);
+                    return Flux.empty();
+                })
+                .doFinally(signal -> permit.release());
+    }
+
+    /**
+     * Replay the cached elements of the call, or make the call and cache its elements once the Flux completes (a
+     * cancelled Flux isn't cached).
+     */
+    private Flux<?> cachedFlux(ResponseCache cache, InvocationPlan plan, LushInvocation invocation, LushContext lushContext, Authentication authentication) {
+        CallKey key = cache.keyOf(plan, invocation.getArgs(), (LushTicket) authentication.getPrincipal());
+
+        SharedResult hit = cache.get(key);
+        if( hit != null ) {
+            if (log.isDebugEnabled()) log.debug("Lush :: cached result of " + plan);
+            return Flux.fromIterable((List<?>) hit.replayTo(lushContext));
+        }
+
+        List<Object> elements = new ArrayList<>();
+        return callFlux(plan, invocation, lushContext, authentication)
+                .doOnNext(elements::add)
+                .doOnComplete(() -> cache.put(key, List.copyOf(elements), lushContext.getAdvice()));
+    }
+
+    /**
+     * Append the final advice to a stream of server sent events, the advice is encoded once the stream completes.
+     */
+    private Flux<?> withAdviceEvent(Flux<?> events, LushContext lushContext) {
+        Mono<ServerSentEvent<String>> adviceEvent = Mono.fromSupplier(() -> ServerSentEvent.<String>builder()
+                .event(Constants.FINAL_ADVICE_EVENT_NAME)
+                .data(adviceEncoder.encode(lushContext.getAdvice()))
+                .build());
+
+        return Flux.<Object>concat(events, adviceEvent);
+    }
+
+    /**
+     * The response is an event stream if the method can produce one and it is either the only type the method
+     * produces or the client asked for it.
+     */
+    private static boolean isEventStream(ContextView ctx) {
+        ServerWebExchange exchange = ServerWebExchangeContextFilter.getExchange(ctx).orElse(null);
+        if( exchange == null ) {
+            return false;
+        }
+
+        Set<MediaType> producible = exchange.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        if( producible != null ) {
+            if( producible.stream().noneMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype) ) {
+                return false;
+            }
+            if( producible.size() == 1 ) {
+                return true;
+            }
+        }
+
+        return exchange.getRequest().getHeaders().getAccept().stream()
+                .anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype);
+    }
+
+    private void setupLoggingContext(Authentication authentication) {
+        LushTicket ticket = (LushTicket) authentication.getPrincipal();
         if (log.isDebugEnabled()) log.debug("ticket user: " + ticket.getUsername());
         lushUserNameField.updateValue(ticket.getUsername());
         MDC.put("lush-user-name", ticket.getUsername());
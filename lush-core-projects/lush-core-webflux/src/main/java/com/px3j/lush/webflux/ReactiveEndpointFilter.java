@@ -1,6 +1,6 @@
 package com.px3j.lush.webflux;
 
-import com.google.gson.Gson;
+import com.px3j.lush.core.json.LushAdviceEncoder;
 import com.px3j.lush.core.model.LushAdvice;
 import com.px3j.lush.core.model.LushContext;
 import com.px3j.lush.web.common.Constants;
@@ -14,15 +14,31 @@ import io.micrometer.tracing.Span;
 import io.micrometer.tracing.Tracer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
 import org.springframework.stereotype.Component;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.util.List;
 
 /**
  * WebFilter that applies Lush behaviors to a request/response.
+ * <br/><br/>
+ * The x-lush-advice header is added when the response is committed, for a Flux that is before its first element is
+ * written so advice set later in the stream can't be sent in the header.  The final advice of a streamed response is
+ * also delivered as:
+ * <pre>
+ *  a trailer - the x-lush-advice-final trailer is sent when the request has a "TE: trailers" header and the response
+ *              is chunked (Reactor Netty only), enabled by lush.webflux.final-advice.trailer, defaults to true
+ *  an event  - a "lush-advice" event ends a text/event-stream response (see ReactiveControllerDecorator), enabled by
+ *              lush.webflux.final-advice.event, defaults to true
+ * </pre>
  *
  * @author Paul Parrone
  */
@@ -30,11 +46,19 @@ import reactor.core.publisher.Mono;
 @Component
 public class ReactiveEndpointFilter implements WebFilter {
     private final Tracer tracer;
+    private final LushAdviceEncoder adviceEncoder;
+    private final boolean trailerEnabled;
     private final ContextSnapshotFactory contextSnapshotFactory = ContextSnapshotFactory.builder().build();
 
     @Autowired
-    public ReactiveEndpointFilter(Tracer tracer) {
+    public ReactiveEndpointFilter(
+            Tracer tracer,
+            LushAdviceEncoder adviceEncoder,
+            @Value("${lush.webflux.final-advice.trailer:true}") boolean trailerEnabled
+    ) {
         this.tracer = tracer;
+        this.adviceEncoder = adviceEncoder;
+        this.trailerEnabled = trailerEnabled;
     }
 
     @Override
@@ -57,15 +81,45 @@ public class ReactiveEndpointFilter implements WebFilter {
                         exchange.getResponse().beforeCommit(() -> Mono.deferContextual(Mono::just).doOnNext(ctx2 -> {
                             HttpHeaders headers = exchange.getResponse().getHeaders();
                             headers.add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, Constants.ADVICE_HEADER_NAME);
-                            headers.add(Constants.ADVICE_HEADER_NAME, new Gson().toJson(lushContext.getAdvice()));
+                            headers.add(Constants.ADVICE_HEADER_NAME, adviceEncoder.encode(lushContext.getAdvice()));
+
+                            if( trailerEnabled && acceptsTrailers(exchange) && headers.getContentLength() < 0 ) {
+                                addAdviceTrailer(exchange, lushContext);
+                            }
                         }).then());
 
-                        // return the updated context
-                        return ctx.put(LushContext.class.getName(), lushContext);
+                        // return the updated context, the exchange is added so the decorator can see the response
+                        return ctx.put(LushContext.class.getName(), lushContext)
+                                .put(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE, exchange);
                     }
                 });
     }
 
+    /**
+     * Have the final advice sent as a trailer once the body has been written.  Trailers are only sent on a chunked
+     * response, so not when the body (ie: a Mono) was written with a Content-Length, the header is accurate then.
+     */
+    private void addAdviceTrailer(ServerWebExchange exchange, LushContext lushContext) {
+        Object nativeResponse;
+        try {
+            nativeResponse = ServerHttpResponseDecorator.getNativeResponse(exchange.getResponse());
+        }
+        catch( IllegalArgumentException e ) {
+            return;
+        }
+
+        if( nativeResponse instanceof HttpServerResponse serverResponse ) {
+            exchange.getResponse().getHeaders().add(HttpHeaders.TRAILER, Constants.FINAL_ADVICE_TRAILER_NAME);
+            serverResponse.trailerHeaders(trailers ->
+                    trailers.set(Constants.FINAL_ADVICE_TRAILER_NAME, adviceEncoder.encode(lushContext.getAdvice())));
+        }
+    }
+
+    private static boolean acceptsTrailers(ServerWebExchange exchange) {
+        List<String> te = exchange.getRequest().getHeaders().get(HttpHeaders.TE);
+        return te != null && te.stream().anyMatch(value -> value.toLowerCase().contains("trailers"));
+    }
+
     /**
      * Generate a request key that matches the current span of the Tracer
      *
@@ -0,0 +1,47 @@
+package com.px3j.lush.webflux.client;
+
+import com.px3j.lush.core.ticket.TicketForwarder;
+import com.px3j.lush.web.common.Constants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebClient filter that adds the Lush ticket of the current request (taken from the Reactor context) to outbound
+ * calls, see TicketForwarder.  A ticket header that has been set explicitly is left alone.
+ * <p>
+ * The ticket is a user credential, so this is not added to every WebClient, add it to the WebClients used to call
+ * other Lush services:
+ * <pre>
+ *     webClientBuilder.filter(lushTicketExchangeFilter).build()
+ * </pre>
+ *
+ * @author Paul Parrone
+ */
+@Component
+public class LushTicketExchangeFilter implements ExchangeFilterFunction {
+    private final TicketForwarder ticketForwarder;
+
+    @Autowired
+    public LushTicketExchangeFilter(TicketForwarder ticketForwarder) {
+        this.ticketForwarder = ticketForwarder;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if( request.headers().containsKey(Constants.TICKET_HEADER_NAME) ) {
+            return next.exchange(request);
+        }
+
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(sc -> ticketForwarder.headerFor(sc.getAuthentication()))
+                .map(ticket -> ClientRequest.from(request).header(Constants.TICKET_HEADER_NAME, ticket).build())
+                .defaultIfEmpty(request)
+                .flatMap(next::exchange);
+    }
+}
@@ -1,8 +1,9 @@
 package com.px3j.lush.webflux.security;
 
 import com.google.gson.JsonSyntaxException;
+import com.px3j.lush.core.revocation.TicketRevocationChecker;
 import com.px3j.lush.core.ticket.LushTicket;
-import com.px3j.lush.core.ticket.TicketUtil;
+import com.px3j.lush.core.ticket.TicketCache;
 import com.px3j.lush.web.common.Constants;
 import com.px3j.lush.web.security.TicketAuthenticationToken;
 import lombok.extern.slf4j.Slf4j;
@@ -23,11 +24,13 @@ import java.util.List;
 @Component
 @Slf4j( topic = "lush.core.debug")
 public class LushSecurityContextRepository implements ServerSecurityContextRepository {
-    private final TicketUtil ticketUtil;
+    private final TicketCache ticketCache;
+    private final TicketRevocationChecker revocationChecker;
 
     @Autowired
-    public LushSecurityContextRepository(TicketUtil ticketUtil) {
-        this.ticketUtil = ticketUtil;
+    public LushSecurityContextRepository(TicketCache ticketCache, TicketRevocationChecker revocationChecker) {
+        this.ticketCache = ticketCache;
+        this.revocationChecker = revocationChecker;
     }
 
     @Override
@@ -41,9 +44,15 @@ public class LushSecurityContextRepository implements ServerSecurityContextRepos
         String ticketFromHeader = getTicketFromHeader(exchange);
         if( StringUtils.hasText(ticketFromHeader) ) {
             try {
-                LushTicket ticket = ticketUtil.decrypt(ticketFromHeader);
+                LushTicket ticket = ticketCache.decrypt(ticketFromHeader);
+                if( revocationChecker.isRejected(ticket) ) {
+                    if( log.isDebugEnabled() ) {
+                        log.debug( "DENY: Lush Ticket has expired or been revoked, userName: " + ticket.getUsername() );
+                    }
+                    return Mono.empty();
+                }
 
-                TicketAuthenticationToken authToken = new TicketAuthenticationToken(ticket);
+                TicketAuthenticationToken authToken = new TicketAuthenticationToken(ticket, ticketFromHeader);
                 authToken.setAuthenticated(true);
                 if( log.isDebugEnabled() ) {
                     log.debug( "ALLOW: userName: " + ticket.getUsername() );
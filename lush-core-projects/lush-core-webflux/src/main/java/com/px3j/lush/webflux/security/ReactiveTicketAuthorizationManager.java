@@ -0,0 +1,48 @@
+package com.px3j.lush.webflux.security;
+
+import com.px3j.lush.core.authority.TicketAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive version of TicketAuthorizationManager, a drop in replacement for hasAuthority() that is a bit test
+ * against the LushTicket's AuthoritySet.
+ * <pre>
+ *     exchanges.pathMatchers("/actuator/**").access(ReactiveTicketAuthorizationManager.hasAuthority("lush-monitor"));
+ * </pre>
+ *
+ * @param <T> The type of object being authorized.
+ */
+public final class ReactiveTicketAuthorizationManager<T> implements ReactiveAuthorizationManager<T> {
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final TicketAuthorizationManager<T> delegate;
+
+    private ReactiveTicketAuthorizationManager(String authority) {
+        this.delegate = TicketAuthorizationManager.hasAuthority(authority);
+    }
+
+    public static <T> ReactiveTicketAuthorizationManager<T> hasAuthority(String authority) {
+        return new ReactiveTicketAuthorizationManager<>(authority);
+    }
+
+    @Override
+    public Mono<AuthorizationResult> authorize(Mono<Authentication> authentication, T object) {
+        return authentication
+                .<AuthorizationResult>map(a -> delegate.isGranted(a) ? GRANTED : DENIED)
+                .defaultIfEmpty(DENIED);
+    }
+
+    /**
+     * @deprecated Required by ReactiveAuthorizationManager, use {@link #authorize(Mono, Object)}.
+     */
+    @Override
+    @Deprecated
+    public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, T object) {
+        return authorize(authentication, object).cast(AuthorizationDecision.class);
+    }
+}
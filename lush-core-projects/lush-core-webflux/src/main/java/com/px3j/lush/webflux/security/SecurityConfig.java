@@ -63,7 +63,7 @@ public class SecurityConfig {
                 .authorizeExchange( exchanges -> {
                     exchanges.pathMatchers(HttpMethod.OPTIONS).permitAll();
 
-                    exchanges.pathMatchers("/actuator/**", "/health/**" ).hasAuthority("lush-monitor");
+                    exchanges.pathMatchers("/actuator/**", "/health/**" ).access(ReactiveTicketAuthorizationManager.hasAuthority("lush-monitor"));
 
                     exchanges.pathMatchers(publicPaths.toArray(new String[0])).permitAll();
                     exchanges.pathMatchers(protectedPaths.toArray(new String[0])).authenticated();
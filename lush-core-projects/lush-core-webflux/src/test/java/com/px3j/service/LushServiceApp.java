@@ -1,6 +1,7 @@
 package com.px3j.service;
 
 import com.px3j.lush.webflux.EnableLushWebflux;
+import com.px3j.lush.webflux.client.LushTicketExchangeFilter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -27,8 +28,10 @@ public class LushServiceApp {
     }
 
     @Bean
-    WebClient webClient(WebClient.Builder builder) {
+    WebClient webClient(WebClient.Builder builder, LushTicketExchangeFilter lushTicketFilter) {
+        // this WebClient calls other Lush services, so the ticket of the current request is forwarded
         return builder
+                .filter(lushTicketFilter)
                 .filter(this::logRequestAndResponse) // Apply the custom logging filter
                 .build();
     }
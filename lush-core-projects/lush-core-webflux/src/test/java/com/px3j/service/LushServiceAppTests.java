@@ -4,8 +4,11 @@ import com.google.gson.Gson;
 import com.px3j.lush.core.model.LushAdvice;
 import com.px3j.lush.core.ticket.LushTicket;
 import com.px3j.lush.core.ticket.TicketUtil;
+import com.px3j.lush.web.security.TicketAuthenticationToken;
+import com.px3j.lush.webflux.client.LushTicketExchangeFilter;
 import com.px3j.service.cat.Cat;
 import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
@@ -13,13 +16,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -39,6 +49,12 @@ public class LushServiceAppTests {
     @Autowired
     private TicketUtil ticketUtil;
 
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+
+    @Autowired
+    private LushTicketExchangeFilter lushTicketFilter;
+
     @Autowired
     public void setUp(ApplicationContext context) {
         webTestClient = WebTestClient
@@ -52,6 +68,33 @@ public class LushServiceAppTests {
         // empty test that would fail if our Spring configuration does not load correctly
     }
 
+    @Test
+    public void testTicketForwardingIsOptIn() {
+        String header = ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user"))));
+        TicketAuthenticationToken token = new TicketAuthenticationToken(ticketUtil.decrypt(header), header);
+
+        List<ClientRequest> sent = new ArrayList<>();
+        WebClient.Builder builder = webClientBuilder.clone().exchangeFunction(request -> {
+            sent.add(request);
+            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        });
+
+        // a WebClient that isn't used to call Lush services never sends the ticket, one with the filter does
+        WebClient otherClient = builder.clone().build();
+        WebClient lushClient = builder.clone().filter(lushTicketFilter).build();
+
+        otherClient.get().uri("https://api.example.com/rates").retrieve().toBodilessEntity()
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(token))
+                .block();
+        lushClient.get().uri("http://cats/lush/cat/cats").retrieve().toBodilessEntity()
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(token))
+                .block();
+
+        Assertions.assertEquals( 2, sent.size() );
+        Assertions.assertFalse( sent.get(0).headers().containsKey(TICKET_HEADER_NAME) );
+        Assertions.assertEquals( header, sent.get(1).headers().getFirst(TICKET_HEADER_NAME) );
+    }
+
     @Test
     public void testPing() {
         log.info( "START: testPing" );
@@ -123,6 +166,63 @@ public class LushServiceAppTests {
         log.info( "END: testFluxOfCat" );
     }
 
+    @Test
+    public void testCachedFlux() {
+        // the second caller is replayed the Cats and advice of the first call
+        FluxExchangeResult<Cat> first = getCachedCats("paul");
+        List<Cat> firstCats = first.getResponseBody().collectList().block();
+        FluxExchangeResult<Cat> second = getCachedCats("ringo");
+        List<Cat> secondCats = second.getResponseBody().collectList().block();
+
+        Assertions.assertEquals( 2, firstCats.size() );
+        Assertions.assertEquals( firstCats, secondCats );
+
+        LushAdvice firstAdvice = new Gson().fromJson( first.getResponseHeaders().getFirst("x-lush-advice"), LushAdvice.class );
+        LushAdvice secondAdvice = new Gson().fromJson( second.getResponseHeaders().getFirst("x-lush-advice"), LushAdvice.class );
+        Assertions.assertEquals( firstAdvice.getExtras().get("call"), secondAdvice.getExtras().get("call") );
+    }
+
+    @Test
+    public void testFailedMonoIsNotCached() {
+        // the failed call is reported in the advice and not cached, the next call is made
+        FluxExchangeResult<Cat> failed = getCat("/lush/cat/flakyCachedCat");
+        Assertions.assertNull( failed.getResponseBody().blockFirst() );
+        LushAdvice advice = new Gson().fromJson( failed.getResponseHeaders().getFirst("x-lush-advice"), LushAdvice.class );
+        Assertions.assertEquals( -99, advice.getStatusCode() );
+
+        FluxExchangeResult<Cat> next = getCat("/lush/cat/flakyCachedCat");
+        Assertions.assertEquals( new Cat("Hobbes", "Domestic"), next.getResponseBody().blockFirst() );
+        advice = new Gson().fromJson( next.getResponseHeaders().getFirst("x-lush-advice"), LushAdvice.class );
+        Assertions.assertNotEquals( -99, advice.getStatusCode() );
+    }
+
+    private FluxExchangeResult<Cat> getCat(String uri) {
+        final String encodedTicket = ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user"))));
+
+        return webTestClient
+                .get()
+                .uri(uri)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(TICKET_HEADER_NAME, encodedTicket)
+                .exchange()
+                .returnResult(Cat.class);
+    }
+
+    private FluxExchangeResult<Cat> getCachedCats(String username) {
+        final String encodedTicket = ticketUtil.encrypt(new LushTicket(username, "", List.of(new SimpleGrantedAuthority("user"))));
+
+        return webTestClient
+                .get()
+                .uri("/lush/cat/cachedCats" )
+                .accept(MediaType.APPLICATION_JSON)
+                .headers( httpHeaders -> httpHeaders.put(
+                        TICKET_HEADER_NAME,
+                        List.of(encodedTicket)
+                ))
+                .exchange()
+                .returnResult(Cat.class);
+    }
+
     @Test
     public void testFluxOfCatsWithAdvice() {
         testFluxOfCatsWithAdviceImpl("tester");
@@ -0,0 +1,111 @@
+package com.px3j.service;
+
+import com.google.gson.Gson;
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketUtil;
+import io.netty.handler.codec.http.HttpHeaders;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+import static com.px3j.lush.web.common.Constants.ADVICE_HEADER_NAME;
+import static com.px3j.lush.web.common.Constants.FINAL_ADVICE_EVENT_NAME;
+import static com.px3j.lush.web.common.Constants.FINAL_ADVICE_TRAILER_NAME;
+import static com.px3j.lush.web.common.Constants.TICKET_HEADER_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against a server (trailers are written by Reactor Netty) to check the final advice of a streamed Flux.
+ */
+@Slf4j
+@ActiveProfiles( profiles = {"developer", "clear-ticket"})
+@SpringBootTest( classes={LushServiceApp.class}, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class LushStreamingAdviceTests {
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TicketUtil ticketUtil;
+
+    @Test
+    public void testFinalAdvice() {
+        log.info( "START: testFinalAdvice" );
+
+        final String encodedTicket = ticketUtil.encrypt(new LushTicket("paul", "", List.of(new SimpleGrantedAuthority("user"))));
+        WebTestClient webTestClient = WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+
+        // The final advice ends an event stream, the header only holds the advice known before the first Cat
+        List<ServerSentEvent<String>> events = webTestClient
+                .get()
+                .uri("/lush/cat/streamOfCats")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header(TICKET_HEADER_NAME, encodedTicket)
+                .exchange()
+                .expectHeader().value(ADVICE_HEADER_NAME, header ->
+                        assertTrue(new Gson().fromJson(header, LushAdvice.class).getWarnings().isEmpty()))
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(events);
+        assertEquals(4, events.size());
+        ServerSentEvent<String> last = events.get(3);
+        assertEquals(FINAL_ADVICE_EVENT_NAME, last.event());
+
+        LushAdvice advice = new Gson().fromJson(last.data(), LushAdvice.class);
+        assertEquals(200, advice.getStatusCode());
+        assertEquals("Hobbes", advice.getExtras().get("lastCat"));
+        assertEquals(601, advice.getWarnings().iterator().next().getCode());
+
+        // An error while streaming is reported in the final advice
+        events = webTestClient
+                .get()
+                .uri("/lush/cat/streamOfCats?fail=true")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header(TICKET_HEADER_NAME, encodedTicket)
+                .exchange()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(events);
+        assertEquals(2, events.size());
+        assertEquals(-99, new Gson().fromJson(events.get(1).data(), LushAdvice.class).getStatusCode());
+
+        // Other streams, requested with "TE: trailers", get the final advice as a trailer
+        HttpHeaders trailers = HttpClient.create()
+                .baseUrl("http://localhost:" + port)
+                .headers(headers -> headers
+                        .set("TE", "trailers")
+                        .set("Accept", MediaType.APPLICATION_JSON_VALUE)
+                        .set(TICKET_HEADER_NAME, encodedTicket))
+                .get()
+                .uri("/lush/cat/streamOfCats")
+                .response((response, body) -> body.aggregate().asString().then(response.trailerHeaders()))
+                .blockLast();
+
+        assertNotNull(trailers);
+        String trailer = trailers.get(FINAL_ADVICE_TRAILER_NAME);
+        log.info( "Final advice trailer: {}", trailer );
+        assertNotNull(trailer);
+        assertEquals(601, new Gson().fromJson(trailer, LushAdvice.class).getWarnings().iterator().next().getCode());
+
+        log.info( "END: testFinalAdvice" );
+    }
+}
@@ -3,21 +3,29 @@ package com.px3j.service.cat;
 import com.px3j.lush.core.model.LushAdvice;
 import com.px3j.lush.core.model.LushContext;
 import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketScope;
+import com.px3j.lush.web.common.LushCacheable;
 import com.px3j.lush.web.common.LushControllerMethod;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @RestController
 @RequestMapping("/lush/cat")
 public class CatController {
+    private final AtomicInteger cachedCalls = new AtomicInteger();
+    private final AtomicInteger flakyCalls = new AtomicInteger();
 
     /**
      * This endpoint illustrates how you can use a Flux to return a collection of data back to the caller.
@@ -77,4 +85,69 @@ public class CatController {
                 ));
     }
 
+    /**
+     * This endpoint illustrates advice that is only known once a stream has been produced.  The x-lush-advice header
+     * is sent with the first Cat, the final advice follows the last Cat as a "lush-advice" event (or as the
+     * x-lush-advice-final trailer).
+     *
+     * @param fail If true the stream fails after the first Cat.
+     * @return A Flux that streams Cats.
+     */
+    @LushControllerMethod
+    @GetMapping(value = "streamOfCats", produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("isAuthenticated()")
+    public Flux<Cat> streamOfCats(LushContext lushContext, @RequestParam(name = "fail", defaultValue = "false") boolean fail) {
+        LushAdvice advice = lushContext.getAdvice();
+
+        Flux<Cat> cats = Flux.fromIterable(
+                List.of(
+                        new Cat("Gumball", "Tonkinese"),
+                        new Cat("Sneeb", "Tonkinese"),
+                        new Cat("Hobbes", "Domestic")
+                ));
+
+        if( fail ) {
+            return cats.take(1).concatWith(Flux.error(new IllegalStateException("No more cats")));
+        }
+
+        return cats
+                .doOnNext(cat -> advice.putExtra("lastCat", cat.getName()))
+                .doOnComplete(() -> advice.addWarning(new LushAdvice.LushWarning(601, Map.of("catCount", 3))));
+    }
+
+    /**
+     * This endpoint illustrates a Flux whose Cats are cached and shared by every caller, the "call" extra of the advice
+     * is that of the call that produced them.
+     *
+     * @return A Flux that publishes a list of Cats.
+     */
+    @LushControllerMethod
+    @LushCacheable(scope = TicketScope.NONE)
+    @GetMapping("cachedCats")
+    @PreAuthorize("isAuthenticated()")
+    public Flux<Cat> cachedCats(LushContext lushContext) {
+        lushContext.getAdvice().putExtra("call", cachedCalls.incrementAndGet());
+
+        return Flux.fromIterable(
+                List.of(
+                        new Cat("Gumball", "Tonkinese"),
+                        new Cat("Sneeb", "Tonkinese")
+                ));
+    }
+
+    /**
+     * This endpoint illustrates that a failed call isn't cached, the first call fails and the next one is made.
+     *
+     * @return A Mono with a Cat, an error on the first call.
+     */
+    @LushControllerMethod
+    @LushCacheable(scope = TicketScope.NONE)
+    @GetMapping("flakyCachedCat")
+    @PreAuthorize("isAuthenticated()")
+    public Mono<Cat> flakyCachedCat() {
+        if( flakyCalls.incrementAndGet() == 1 ) {
+            return Mono.error(new IllegalStateException("No cat yet"));
+        }
+        return Mono.just(new Cat("Hobbes", "Domestic"));
+    }
 }
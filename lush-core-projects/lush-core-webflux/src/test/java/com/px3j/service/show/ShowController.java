@@ -8,6 +8,7 @@ import com.px3j.lush.core.model.AnyModel;
 import com.px3j.lush.core.model.LushAdvice;
 import com.px3j.lush.core.model.LushContext;
 import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketForwarder;
 import com.px3j.lush.web.common.LushControllerMethod;
 import com.px3j.service.cat.Cat;
 import com.px3j.service.show.impl.FeignRemoteServiceImpl;
@@ -15,6 +16,7 @@ import com.px3j.service.show.impl.RestRemoteServiceImpl;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -29,10 +31,12 @@ import java.util.Map;
 public class ShowController {
     private final FeignRemoteServiceImpl feignRemoteService;
     private final RestRemoteServiceImpl restRemoteService;
+    private final TicketForwarder ticketForwarder;
 
-    public ShowController(FeignRemoteServiceImpl feignRemoteService, RestRemoteServiceImpl restRemoteService) {
+    public ShowController(FeignRemoteServiceImpl feignRemoteService, RestRemoteServiceImpl restRemoteService, TicketForwarder ticketForwarder) {
         this.feignRemoteService = feignRemoteService;
         this.restRemoteService = restRemoteService;
+        this.ticketForwarder = ticketForwarder;
     }
 
 
@@ -77,31 +81,20 @@ public class ShowController {
     @PreAuthorize("isAuthenticated()")
     public Mono<AnyModel> pingRemote(LushTicket ticket) {
         log.info( ticket.toString() );
-        String ticketJson;
 
-        try {
-            ticketJson = new ObjectMapper().writeValueAsString( ticket );
-        } catch (JsonProcessingException e) {
-            ticketJson = "";
-        }
-
-        return feignRemoteService.ping( ticketJson );
+        // Reactive Feign doesn't use WebClient filters, ask Lush for the header to forward
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(sc -> ticketForwarder.headerFor(sc.getAuthentication()))
+                .flatMap(feignRemoteService::ping);
     }
 
     @LushControllerMethod
     @GetMapping("pingRemoteRt")
     @PreAuthorize("isAuthenticated()")
     public Mono<AnyModel> pingRemoteRt(LushTicket ticket) {
+        // the ticket header is added to the outbound call by LushTicketExchangeFilter
         log.info( ticket.toString() );
-        String ticketJson;
-
-        try {
-            ticketJson = new ObjectMapper().writeValueAsString( ticket );
-            return restRemoteService.ping(ticketJson);
-        }
-        catch (JsonProcessingException e) {
-            return Mono.just(AnyModel.from("message", "couldn't ping remote"));
-        }
+        return restRemoteService.ping(null);
     }
 
 
@@ -18,11 +18,18 @@ public class RestRemoteServiceImpl implements RemoteService {
         this.webClient = webClient;
     }
 
+    /**
+     * @param ticket The ticket header to send, when null LushTicketExchangeFilter adds the ticket of the current request.
+     */
     public Mono<AnyModel> ping(String ticket) {
         return webClient.get()
                 .uri(baseUrl + "/lush/example/ping")
                 .header("Accept", "application/json")
-                .header(Constants.TICKET_HEADER_NAME, ticket)
+                .headers(headers -> {
+                    if( ticket != null ) {
+                        headers.set(Constants.TICKET_HEADER_NAME, ticket);
+                    }
+                })
                 .retrieve()
                 .bodyToMono(AnyModel.class);
     }
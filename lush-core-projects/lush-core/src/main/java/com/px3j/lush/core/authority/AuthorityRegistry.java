@@ -0,0 +1,79 @@
+package com.px3j.lush.core.authority;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process wide table of interned authorities.  Each authority seen by Lush is given a small index (its bit in an
+ * AuthoritySet) and a single shared SimpleGrantedAuthority instance, so decoding a ticket doesn't create new
+ * authority objects and authority checks become bit tests rather than string comparisons.
+ * <br/><br/>
+ * The table is bounded by MAX_AUTHORITIES, authorities beyond that are still usable but are not interned (they are
+ * compared by name).
+ */
+public final class AuthorityRegistry {
+    public static final int MAX_AUTHORITIES = 4096;
+
+    private static final ConcurrentHashMap<String, Interned> authorities = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextIndex = new AtomicInteger();
+
+    private AuthorityRegistry() {
+    }
+
+    /**
+     * @param authority The name of the authority.
+     * @return The shared SimpleGrantedAuthority for the passed in name.
+     */
+    public static SimpleGrantedAuthority intern(String authority) {
+        Interned interned = lookup(authority);
+        return interned != null ? interned.authority : new SimpleGrantedAuthority(authority);
+    }
+
+    /**
+     * Get the index of an authority, interning it if it hasn't been seen before.
+     *
+     * @param authority The name of the authority.
+     * @return The index of the authority or -1 if the registry is full.
+     */
+    public static int indexOf(String authority) {
+        Interned interned = lookup(authority);
+        return interned != null ? interned.index : -1;
+    }
+
+    /**
+     * Get the index of an authority without interning it.
+     *
+     * @param authority The name of the authority.
+     * @return The index of the authority or -1 if it isn't interned.
+     */
+    public static int find(String authority) {
+        Interned interned = authorities.get(authority);
+        return interned != null ? interned.index : -1;
+    }
+
+    /**
+     * @return The number of interned authorities.
+     */
+    public static int size() {
+        return authorities.size();
+    }
+
+    private static Interned lookup(String authority) {
+        Interned interned = authorities.get(authority);
+        if( interned != null ) {
+            return interned;
+        }
+
+        return authorities.computeIfAbsent(authority, name -> {
+            if( nextIndex.get() >= MAX_AUTHORITIES ) {
+                return null;
+            }
+            return new Interned(nextIndex.getAndIncrement(), new SimpleGrantedAuthority(name));
+        });
+    }
+
+    private record Interned(int index, SimpleGrantedAuthority authority) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.px3j.lush.core.authority;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable set of authorities backed by a bitset of AuthorityRegistry indexes.  Membership is a bit test, there
+ * is no iteration or string comparison (authorities that could not be interned are held by name).
+ */
+public final class AuthoritySet {
+    public static final AuthoritySet EMPTY = new AuthoritySet(new long[0], Set.of());
+
+    private final long[] bits;
+    private final Set<String> uninterned;
+
+    private AuthoritySet(long[] bits, Set<String> uninterned) {
+        this.bits = bits;
+        this.uninterned = uninterned;
+    }
+
+    public static AuthoritySet of(Collection<? extends GrantedAuthority> authorities) {
+        if( authorities == null || authorities.isEmpty() ) {
+            return EMPTY;
+        }
+
+        long[] bits = new long[0];
+        Set<String> uninterned = null;
+
+        for( GrantedAuthority authority : authorities ) {
+            String name = authority.getAuthority();
+            if( name == null ) {
+                continue;
+            }
+
+            int index = AuthorityRegistry.indexOf(name);
+            if( index < 0 ) {
+                if( uninterned == null ) {
+                    uninterned = new HashSet<>();
+                }
+                uninterned.add(name);
+                continue;
+            }
+
+            int word = index >>> 6;
+            if( word >= bits.length ) {
+                bits = Arrays.copyOf(bits, word + 1);
+            }
+            bits[word] |= 1L << index;
+        }
+
+        return new AuthoritySet(bits, uninterned == null ? Set.of() : Set.copyOf(uninterned));
+    }
+
+    /**
+     * @param index An AuthorityRegistry index.
+     * @return true if the authority with this index is in the set.
+     */
+    public boolean contains(int index) {
+        int word = index >>> 6;
+        return index >= 0 && word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param authority The name of an authority.
+     * @return true if the authority is in the set.
+     */
+    public boolean contains(String authority) {
+        int index = AuthorityRegistry.find(authority);
+        return index >= 0 ? contains(index) : uninterned.contains(authority);
+    }
+
+    /**
+     * @return The number of authorities in the set.
+     */
+    public int size() {
+        int size = uninterned.size();
+        for( long word : bits ) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+}
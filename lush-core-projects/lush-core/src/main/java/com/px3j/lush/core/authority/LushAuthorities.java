@@ -0,0 +1,33 @@
+package com.px3j.lush.core.authority;
+
+import com.px3j.lush.core.ticket.LushTicket;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bean for authority checks in method security expressions.  SecurityExpressionRoot::hasAuthority builds a Set of
+ * every authority name on each invocation, this is a bit test against the ticket's AuthoritySet instead:
+ * <pre>
+ *     &#64;PreAuthorize("@lushAuthorities.has(authentication, 'lush-monitor')")
+ * </pre>
+ */
+@Component("lushAuthorities")
+public class LushAuthorities {
+    public boolean has(Authentication authentication, String authority) {
+        if( authentication == null ) {
+            return false;
+        }
+
+        if( authentication.getPrincipal() instanceof LushTicket ticket ) {
+            return ticket.getAuthoritySet().contains(authority);
+        }
+
+        for( GrantedAuthority granted : authentication.getAuthorities() ) {
+            if( authority.equals(granted.getAuthority()) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
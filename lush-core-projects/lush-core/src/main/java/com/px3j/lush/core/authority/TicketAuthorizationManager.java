@@ -0,0 +1,68 @@
+package com.px3j.lush.core.authority;
+
+import com.px3j.lush.core.ticket.LushTicket;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.function.Supplier;
+
+/**
+ * Drop in replacement for hasAuthority() in servlet security configuration (see ReactiveTicketAuthorizationManager
+ * in lush-core-webflux for reactive).  When the principal is a LushTicket the check is a bit test against the
+ * ticket's AuthoritySet, otherwise the authorities of the Authentication are compared by name.
+ * <pre>
+ *     exchanges.requestMatchers("/actuator/**").access(TicketAuthorizationManager.hasAuthority("lush-monitor"));
+ * </pre>
+ *
+ * @param <T> The type of object being authorized.
+ */
+public final class TicketAuthorizationManager<T> implements AuthorizationManager<T> {
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final String authority;
+    private final int index;
+
+    private TicketAuthorizationManager(String authority) {
+        this.authority = authority;
+        this.index = AuthorityRegistry.indexOf(authority);
+    }
+
+    public static <T> TicketAuthorizationManager<T> hasAuthority(String authority) {
+        return new TicketAuthorizationManager<>(authority);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public AuthorizationDecision check(Supplier<Authentication> authentication, T object) {
+        return isGranted(authentication.get()) ? GRANTED : DENIED;
+    }
+
+    /**
+     * @return true if the passed in Authentication holds this manager's authority.
+     */
+    public boolean isGranted(Authentication authentication) {
+        if( authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken ) {
+            return false;
+        }
+
+        if( authentication.getPrincipal() instanceof LushTicket ticket ) {
+            return index >= 0 ? ticket.getAuthoritySet().contains(index) : ticket.getAuthoritySet().contains(authority);
+        }
+
+        for( GrantedAuthority granted : authentication.getAuthorities() ) {
+            if( authority.equals(granted.getAuthority()) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "TicketAuthorizationManager[authority=" + authority + "]";
+    }
+}
@@ -0,0 +1,71 @@
+package com.px3j.lush.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketScope;
+import com.px3j.lush.web.common.CallKey;
+import com.px3j.lush.web.common.InvocationPlan;
+import com.px3j.lush.web.common.SharedResult;
+
+/**
+ * The cached results of a Lush controller method annotated with LushCacheable, see ResponseCaches.
+ *
+ * @author Paul Parrone
+ */
+public final class ResponseCache {
+    private final Cache<CallKey, SharedResult> cache;
+    private final TicketScope scope;
+
+    ResponseCache(Cache<CallKey, SharedResult> cache, TicketScope scope) {
+        this.cache = cache;
+        this.scope = scope;
+    }
+
+    /**
+     * @param plan The plan for the method being called.
+     * @param args The arguments the method is called with.
+     * @param ticket The ticket of the caller.
+     * @return The key of the call's result.
+     */
+    public CallKey keyOf(InvocationPlan plan, Object[] args, LushTicket ticket) {
+        return CallKey.of(plan, args, scope, ticket);
+    }
+
+    /**
+     * @param key The key of the call.
+     * @return The cached result of the call, null if it isn't cached.
+     */
+    public SharedResult get(CallKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Cache the result of a call, unless the call failed or wasn't made (a negative status code).  The advice is
+     * copied as it is now.
+     *
+     * @param key The key of the call.
+     * @param value The value returned by the method, can be null.
+     * @param advice The advice of the call.
+     */
+    public void put(CallKey key, Object value, LushAdvice advice) {
+        if( advice.getStatusCode() < 0 ) {
+            return;
+        }
+
+        LushAdvice snapshot = new LushAdvice();
+        snapshot.replay(advice);
+        cache.put(key, new SharedResult(value, snapshot));
+    }
+
+    /**
+     * Discard all cached results.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,108 @@
+package com.px3j.lush.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.px3j.lush.web.common.CallKey;
+import com.px3j.lush.web.common.InvocationPlan;
+import com.px3j.lush.web.common.LushCacheable;
+import com.px3j.lush.web.common.SharedResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ResponseCaches of the Lush controller methods annotated with LushCacheable, created when the method is first
+ * called.  Each method has its own bounded Caffeine cache: its eviction policy (W-TinyLFU) only admits a new result in
+ * place of an older one if it is called more often, so that one-off calls don't push out the results that are used.
+ * The caches are configured via the following properties, the LushCacheable settings of a method take precedence:
+ * <pre>
+ *  lush.cache.enabled - set to false to call the methods every time
+ *  lush.cache.maximum-size - maximum number of results held per method, defaults to 1000
+ *  lush.cache.expire-after-write - how long a result is held (ISO-8601 or 10m style duration), defaults to 60s
+ * </pre>
+ *
+ * Hit/miss/eviction metrics are published to Micrometer with the tags: cache=lush.response-cache and
+ * method=&lt;class&gt;::&lt;method&gt;
+ *
+ * @author Paul Parrone
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class ResponseCaches {
+    public static final String CACHE_NAME = "lush.response-cache";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long maximumSize;
+    private final Duration expireAfterWrite;
+    private final Map<Method, Optional<ResponseCache>> caches = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ResponseCaches(
+            MeterRegistry meterRegistry,
+            @Value("${lush.cache.enabled:true}") boolean enabled,
+            @Value("${lush.cache.maximum-size:1000}") long maximumSize,
+            @Value("${lush.cache.expire-after-write:60s}") Duration expireAfterWrite
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maximumSize = maximumSize;
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    /**
+     * @param plan The plan for the method being called.
+     * @return The cache of the method's results, null if they aren't cached.
+     */
+    public ResponseCache cacheFor(InvocationPlan plan) {
+        if( !enabled ) {
+            return null;
+        }
+
+        Optional<ResponseCache> cache = caches.get(plan.getMethod());
+        if( cache == null ) {
+            cache = caches.computeIfAbsent(plan.getMethod(), m -> Optional.ofNullable(create(plan)));
+        }
+        return cache.orElse(null);
+    }
+
+    /**
+     * Discard the cached results of every method.
+     */
+    public void invalidateAll() {
+        caches.values().forEach(cache -> cache.ifPresent(ResponseCache::invalidateAll));
+    }
+
+    private ResponseCache create(InvocationPlan plan) {
+        LushCacheable settings = plan.getCacheable();
+        if( settings == null ) {
+            return null;
+        }
+
+        long size = settings.maximumSize() > 0 ? settings.maximumSize() : maximumSize;
+        Duration ttl = settings.expireAfterWrite().isBlank()
+                ? expireAfterWrite
+                : DurationStyle.detectAndParse(settings.expireAfterWrite());
+
+        Cache<CallKey, SharedResult> cache = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME, "method", plan.toString());
+
+        log.debug( "Lush :: response cache for {}, scope: {} maximum-size: {} expire-after-write: {}",
+                plan, settings.scope(), size, ttl );
+        return new ResponseCache(cache, settings.scope());
+    }
+}
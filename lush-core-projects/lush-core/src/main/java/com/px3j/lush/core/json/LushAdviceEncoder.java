@@ -0,0 +1,91 @@
+package com.px3j.lush.core.json;
+
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.util.PerThread;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.StringWriter;
+
+/**
+ * Encodes the LushAdvice sent back in the x-lush-advice header.  Most calls return the advice untouched (status 200,
+ * no warnings or extras) which only differs by trace id, so that header is built from a template encoded once at
+ * startup with the trace id spliced in.  Any other advice is serialized by LushJson into a buffer that is reused by
+ * the calling thread (see PerThread).
+ *
+ * @see LushJson
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class LushAdviceEncoder {
+    static final int DEFAULT_STATUS_CODE = 200;
+
+    private static final String TRACE_ID_MARKER = "lushTraceIdMarker";
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+
+    private final LushJson lushJson;
+    private final String prefix;
+    private final String suffix;
+    private final PerThread<StringWriter> buffers = new PerThread<>(() -> new StringWriter(256));
+
+    @Autowired
+    public LushAdviceEncoder(LushJson lushJson) {
+        this.lushJson = lushJson;
+
+        String template = lushJson.toJson(new LushAdvice(TRACE_ID_MARKER, DEFAULT_STATUS_CODE));
+        int i = template.indexOf(TRACE_ID_MARKER);
+        this.prefix = template.substring(0, i);
+        this.suffix = template.substring(i + TRACE_ID_MARKER.length());
+
+        log.debug( "Lush :: default advice template: {}", template );
+    }
+
+    /**
+     * @param advice The advice to encode.
+     * @return The JSON for the advice, the same as LushJson.toJson(advice) would produce.
+     */
+    public String encode(LushAdvice advice) {
+        if( isDefault(advice) ) {
+            return prefix + advice.getTraceId() + suffix;
+        }
+
+        StringWriter buffer = buffers.acquire();
+        try {
+            buffer.getBuffer().setLength(0);
+            lushJson.toJson(advice, buffer);
+            return buffer.toString();
+        }
+        finally {
+            if( buffer.getBuffer().capacity() > MAX_RETAINED_BUFFER ) {
+                buffers.discard(buffer);
+            }
+            else {
+                buffers.release(buffer);
+            }
+        }
+    }
+
+    private boolean isDefault(LushAdvice advice) {
+        return advice.getStatusCode() == DEFAULT_STATUS_CODE && !advice.hasDetail() && isPlain(advice.getTraceId());
+    }
+
+    /**
+     * The trace id can only be spliced in if neither backend would escape it.
+     */
+    private static boolean isPlain(String traceId) {
+        if( traceId == null ) {
+            return false;
+        }
+
+        for( int i = 0; i < traceId.length(); i++ ) {
+            char c = traceId.charAt(i);
+            boolean plain = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == ',' || c == ':' || c == '/';
+            if( !plain ) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package com.px3j.lush.core.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Entry point for Gson instances that know how to (de)serialize the Lush model types without reflection.  Gson
+ * instances are thread safe, prefer {@link #get()} over creating a new one.
+ * <br/><br/>
+ * Gson instances created by Spring Boot (GsonAutoConfiguration) are customized by LushGsonBuilderCustomizer.  Lush
+ * itself serializes through LushJson.
+ */
+public final class LushGson {
+    private static final Gson GSON = builder().create();
+
+    private LushGson() {
+    }
+
+    /**
+     * @return A shared Gson instance with the Lush adapters registered.
+     */
+    public static Gson get() {
+        return GSON;
+    }
+
+    /**
+     * @return A new GsonBuilder with the Lush adapters registered, for callers that need more customization.
+     */
+    public static GsonBuilder builder() {
+        return new GsonBuilder().registerTypeAdapterFactory(new LushTypeAdapterFactory());
+    }
+}
@@ -0,0 +1,16 @@
+package com.px3j.lush.core.json;
+
+import com.google.gson.GsonBuilder;
+import org.springframework.boot.autoconfigure.gson.GsonBuilderCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the Lush adapters with the Gson instance that Spring Boot creates.
+ */
+@Component
+public class LushGsonBuilderCustomizer implements GsonBuilderCustomizer {
+    @Override
+    public void customize(GsonBuilder gsonBuilder) {
+        gsonBuilder.registerTypeAdapterFactory(new LushTypeAdapterFactory());
+    }
+}
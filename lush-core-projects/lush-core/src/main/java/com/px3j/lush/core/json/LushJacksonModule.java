@@ -0,0 +1,342 @@
+package com.px3j.lush.core.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.px3j.lush.core.authority.AuthorityRegistry;
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.model.AnyModel;
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.ticket.LazyExtra;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketExtra;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Jackson module with streaming (reflection free) serializers/deserializers for the Lush model types: LushTicket,
+ * LushAdvice, LushAdvice.LushWarning and AnyModel.  The JSON is the same as that produced by LushTypeAdapterFactory
+ * so Gson and Jackson based services can talk to each other.  Ticket extras are buffered as tokens, binding is
+ * deferred until the extra is read (see LazyExtra).
+ * <br/><br/>
+ * Spring Boot registers this module with its ObjectMapper automatically (it is a bean), it is also listed in
+ * META-INF/services for ObjectMapper::findAndRegisterModules.
+ *
+ * @see LushTypeAdapterFactory
+ */
+@Component
+public class LushJacksonModule extends SimpleModule {
+    public LushJacksonModule() {
+        super("LushJacksonModule");
+
+        addSerializer(LushTicket.class, new LushTicketSerializer());
+        addDeserializer(LushTicket.class, new LushTicketDeserializer());
+        addSerializer(LushAdvice.class, new LushAdviceSerializer());
+        addDeserializer(LushAdvice.class, new LushAdviceDeserializer());
+        addSerializer(LushAdvice.LushWarning.class, new LushWarningSerializer());
+        addDeserializer(LushAdvice.LushWarning.class, new LushWarningDeserializer());
+        addSerializer(AnyModel.class, new AnyModelSerializer());
+        addDeserializer(AnyModel.class, new AnyModelDeserializer());
+    }
+
+    private static void writeMap(JsonGenerator gen, SerializerProvider provider, Map<String,?> map) throws IOException {
+        gen.writeStartObject();
+        for( Map.Entry<String,?> entry : map.entrySet() ) {
+            gen.writeFieldName(entry.getKey());
+            provider.defaultSerializeValue(entry.getValue(), gen);
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Read the object the parser is positioned at (START_OBJECT or its first FIELD_NAME) into map.
+     */
+    private static <M extends Map<String,Object>> M readMap(JsonParser p, DeserializationContext ctxt, M map) throws IOException {
+        JsonToken token = p.currentToken() == JsonToken.START_OBJECT ? p.nextToken() : p.currentToken();
+        for( ; token == JsonToken.FIELD_NAME; token = p.nextToken() ) {
+            String name = p.currentName();
+            p.nextToken();
+            map.put(name, ctxt.readValue(p, Object.class));
+        }
+        return map;
+    }
+
+    private static String nullableText(JsonParser p) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_NULL ? null : p.getValueAsString();
+    }
+
+    private static final class LushTicketSerializer extends StdSerializer<LushTicket> {
+        LushTicketSerializer() {
+            super(LushTicket.class);
+        }
+
+        @Override
+        public void serialize(LushTicket ticket, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            if( ticket.getId() != null ) {
+                gen.writeStringField("id", ticket.getId());
+            }
+            gen.writeStringField("username", ticket.getUsername());
+            gen.writeStringField("password", ticket.getPassword());
+            if( ticket.getIssuedAt() != 0 ) {
+                gen.writeNumberField("issuedAt", ticket.getIssuedAt());
+            }
+            if( ticket.getExpiresAt() != 0 ) {
+                gen.writeNumberField("expiresAt", ticket.getExpiresAt());
+            }
+
+            if( ticket.getAuthorities() != null ) {
+                gen.writeArrayFieldStart("authorities");
+                for( SimpleGrantedAuthority authority : ticket.getAuthorities() ) {
+                    gen.writeStartObject();
+                    gen.writeStringField("role", authority.getAuthority());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+
+            gen.writeFieldName("extras");
+            writeMap(gen, provider, ticket.getExtras());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class LushTicketDeserializer extends StdDeserializer<LushTicket> {
+        LushTicketDeserializer() {
+            super(LushTicket.class);
+        }
+
+        @Override
+        public LushTicket deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            LushTicket ticket = new LushTicket();
+
+            JsonToken token = p.currentToken() == JsonToken.START_OBJECT ? p.nextToken() : p.currentToken();
+            for( ; token == JsonToken.FIELD_NAME; token = p.nextToken() ) {
+                String name = p.currentName();
+                JsonToken value = p.nextToken();
+
+                switch( name ) {
+                    case "id" -> ticket.setId(nullableText(p));
+                    case "username" -> ticket.setUsername(nullableText(p));
+                    case "password" -> ticket.setPassword(nullableText(p));
+                    case "issuedAt" -> ticket.setIssuedAt(p.getValueAsLong());
+                    case "expiresAt" -> ticket.setExpiresAt(p.getValueAsLong());
+                    case "authorities" -> ticket.setAuthorities(value == JsonToken.VALUE_NULL ? null : readAuthorities(p, ctxt));
+                    case "extras" -> {
+                        if( value != JsonToken.VALUE_NULL ) {
+                            ticket.setExtras(readLazyExtras(p, ctxt));
+                        }
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+
+            return ticket;
+        }
+
+        private static Map<String,Object> readLazyExtras(JsonParser p, DeserializationContext ctxt) throws IOException {
+            ObjectCodec codec = p.getCodec();
+            if( codec == null ) {
+                return readMap(p, ctxt, new HashMap<>());
+            }
+
+            Map<String,Object> extras = new HashMap<>();
+            for( JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken() ) {
+                String name = p.currentName();
+                p.nextToken();
+                extras.put(name, new LazyExtra(new JacksonSource(codec, ctxt.bufferAsCopyOfValue(p))));
+            }
+            return extras;
+        }
+
+        private List<SimpleGrantedAuthority> readAuthorities(JsonParser p, DeserializationContext ctxt) throws IOException {
+            List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+
+            for( JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken() ) {
+                if( token == JsonToken.VALUE_STRING ) {
+                    authorities.add(AuthorityRegistry.intern(p.getText()));
+                    continue;
+                }
+
+                String role = null;
+                for( JsonToken field = p.nextToken(); field == JsonToken.FIELD_NAME; field = p.nextToken() ) {
+                    String name = p.currentName();
+                    p.nextToken();
+                    if( "role".equals(name) || "authority".equals(name) ) {
+                        role = nullableText(p);
+                    }
+                    else {
+                        p.skipChildren();
+                    }
+                }
+
+                if( role == null ) {
+                    return ctxt.reportInputMismatch(this, "LushTicket authority is missing a role");
+                }
+                authorities.add(AuthorityRegistry.intern(role));
+            }
+
+            return authorities;
+        }
+    }
+
+    private static final class LushAdviceSerializer extends StdSerializer<LushAdvice> {
+        LushAdviceSerializer() {
+            super(LushAdvice.class);
+        }
+
+        @Override
+        public void serialize(LushAdvice advice, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("traceId", advice.getTraceId());
+            gen.writeNumberField("statusCode", advice.getStatusCode());
+
+            gen.writeArrayFieldStart("warnings");
+            for( LushAdvice.LushWarning warning : advice.getWarnings() ) {
+                provider.defaultSerializeValue(warning, gen);
+            }
+            gen.writeEndArray();
+
+            gen.writeFieldName("extras");
+            writeMap(gen, provider, advice.getExtras());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class LushAdviceDeserializer extends StdDeserializer<LushAdvice> {
+        LushAdviceDeserializer() {
+            super(LushAdvice.class);
+        }
+
+        @Override
+        public LushAdvice deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            LushAdvice advice = new LushAdvice();
+
+            JsonToken token = p.currentToken() == JsonToken.START_OBJECT ? p.nextToken() : p.currentToken();
+            for( ; token == JsonToken.FIELD_NAME; token = p.nextToken() ) {
+                String name = p.currentName();
+                if( p.nextToken() == JsonToken.VALUE_NULL ) {
+                    continue;
+                }
+
+                switch( name ) {
+                    case "traceId" -> advice.setTraceId(p.getValueAsString());
+                    case "statusCode" -> advice.setStatusCode(p.getValueAsInt());
+                    case "warnings" -> {
+                        while( p.nextToken() != JsonToken.END_ARRAY ) {
+                            advice.addWarning(ctxt.readValue(p, LushAdvice.LushWarning.class));
+                        }
+                    }
+                    case "extras" -> readMap(p, ctxt, new LinkedHashMap<>()).forEach(advice::putExtra);
+                    default -> p.skipChildren();
+                }
+            }
+
+            return advice;
+        }
+    }
+
+    private static final class LushWarningSerializer extends StdSerializer<LushAdvice.LushWarning> {
+        LushWarningSerializer() {
+            super(LushAdvice.LushWarning.class);
+        }
+
+        @Override
+        public void serialize(LushAdvice.LushWarning warning, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("code", warning.getCode());
+            gen.writeFieldName("detail");
+            if( warning.getDetail() == null ) {
+                gen.writeNull();
+            }
+            else {
+                writeMap(gen, provider, warning.getDetail());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class LushWarningDeserializer extends StdDeserializer<LushAdvice.LushWarning> {
+        LushWarningDeserializer() {
+            super(LushAdvice.LushWarning.class);
+        }
+
+        @Override
+        public LushAdvice.LushWarning deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            int code = 0;
+            Map<String,Object> detail = new HashMap<>();
+
+            JsonToken token = p.currentToken() == JsonToken.START_OBJECT ? p.nextToken() : p.currentToken();
+            for( ; token == JsonToken.FIELD_NAME; token = p.nextToken() ) {
+                String name = p.currentName();
+                if( p.nextToken() == JsonToken.VALUE_NULL ) {
+                    continue;
+                }
+
+                switch( name ) {
+                    case "code" -> code = p.getValueAsInt();
+                    case "detail" -> readMap(p, ctxt, detail);
+                    default -> p.skipChildren();
+                }
+            }
+
+            return new LushAdvice.LushWarning(code, detail);
+        }
+    }
+
+    private static final class AnyModelSerializer extends StdSerializer<AnyModel> {
+        AnyModelSerializer() {
+            super(AnyModel.class);
+        }
+
+        @Override
+        public void serialize(AnyModel model, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeMap(gen, provider, model);
+        }
+    }
+
+    private static final class AnyModelDeserializer extends StdDeserializer<AnyModel> {
+        AnyModelDeserializer() {
+            super(AnyModel.class);
+        }
+
+        @Override
+        public AnyModel deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return readMap(p, ctxt, new AnyModel());
+        }
+    }
+
+    /**
+     * A ticket extra buffered as tokens, bound when first read.
+     */
+    private record JacksonSource(ObjectCodec codec, TokenBuffer tokens) implements LazyExtra.Source {
+        @Override
+        public Object decode() {
+            return decode(Object.class);
+        }
+
+        @Override
+        public <T> T decode(TicketExtra<T> extra) {
+            return decode(extra.getType());
+        }
+
+        private <T> T decode(Class<T> type) {
+            try( JsonParser parser = tokens.asParser(codec) ) {
+                return codec.readValue(parser, type);
+            }
+            catch (IOException e) {
+                throw new LushException( "Failed to decode ticket extra", e );
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.px3j.lush.core.json;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.google.gson.Gson;
+import com.px3j.lush.core.exception.LushException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one JSON codec used by Lush (tickets, advice header, etc.) so that the web and webflux modules produce the
+ * same output and only one codec has to warm up.  Thread safe.  The backend is configured via the following
+ * properties:
+ * <pre>
+ *  lush.json.backend - gson (default) or jackson
+ *  lush.json.jackson.blackbird - when using jackson, register the Blackbird module (generated accessors rather
+ *                                than reflection for any non Lush types), defaults to true
+ * </pre>
+ *
+ * Both backends have the Lush model adapters registered (see LushTypeAdapterFactory and LushJacksonModule).  The
+ * Jackson backend uses its own ObjectMapper, it is not affected by the application's ObjectMapper configuration.
+ * <br/><br/>
+ * The following metrics are published, tagged with backend and type (the simple name of the class):
+ * <pre>
+ *  lush.json.serialize - time taken to serialize
+ *  lush.json.deserialize - time taken to deserialize
+ *  lush.json.bytes - size of the serialized output
+ * </pre>
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class LushJson {
+    public enum Backend { GSON, JACKSON }
+
+    @Getter
+    private final Backend backend;
+
+    private final Codec codec;
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, Meters> meters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LushJson(
+            @Value("${lush.json.backend:gson}") String backend,
+            @Value("${lush.json.jackson.blackbird:true}") boolean blackbird,
+            MeterRegistry meterRegistry
+    ) {
+        this( parseBackend(backend), blackbird, meterRegistry );
+    }
+
+    public LushJson(Backend backend, boolean blackbird, MeterRegistry meterRegistry) {
+        this.backend = backend;
+        this.meterRegistry = meterRegistry;
+        this.codec = backend == Backend.JACKSON ? new JacksonCodec(blackbird) : new GsonCodec(LushGson.get());
+
+        log.debug( "Lush :: LushJson using backend: {} blackbird: {}", backend, backend == Backend.JACKSON && blackbird );
+    }
+
+    public String toJson(Object value) {
+        long start = System.nanoTime();
+        String json = codec.toJson(value);
+
+        Meters m = metersFor(value);
+        m.serialize.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        m.bytes.record(json.length());
+
+        return json;
+    }
+
+    /**
+     * Serialize by appending to the passed in writer, used to serialize into a reused buffer.
+     *
+     * @param value The value to serialize.
+     * @param out The writer to append to.
+     */
+    public void toJson(Object value, StringWriter out) {
+        long start = System.nanoTime();
+        int before = out.getBuffer().length();
+        codec.toJson(value, out);
+
+        Meters m = metersFor(value);
+        m.serialize.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        m.bytes.record(out.getBuffer().length() - before);
+    }
+
+    public byte[] toJsonBytes(Object value) {
+        long start = System.nanoTime();
+        byte[] json = codec.toJsonBytes(value);
+
+        Meters m = metersFor(value);
+        m.serialize.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        m.bytes.record(json.length);
+
+        return json;
+    }
+
+    public <T> T fromJson(String json, Class<T> type) {
+        long start = System.nanoTime();
+        T value = codec.fromJson(json, type);
+        metersFor(type).deserialize.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
+
+    public <T> T fromJson(byte[] json, Class<T> type) {
+        long start = System.nanoTime();
+        T value = codec.fromJson(json, type);
+        metersFor(type).deserialize.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
+
+    /**
+     * Convert an already decoded value (Map, List, Number...) to the passed in type, as if it had been serialized and
+     * read back as that type.
+     *
+     * @param value The value to convert.
+     * @param type The type to convert to.
+     * @return The converted value.
+     */
+    public <T> T convert(Object value, Class<T> type) {
+        return codec.convert(value, type);
+    }
+
+    private Meters metersFor(Object value) {
+        return metersFor(value == null ? Void.class : value.getClass());
+    }
+
+    private Meters metersFor(Class<?> type) {
+        return meters.computeIfAbsent(type, t -> new Meters(meterRegistry, backend, t));
+    }
+
+    private static Backend parseBackend(String backend) {
+        try {
+            return Backend.valueOf(backend.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e) {
+            throw new LushException( "Invalid lush.json.backend: " + backend + " (expected gson or jackson)", e );
+        }
+    }
+
+    private static final class Meters {
+        private final Timer serialize;
+        private final Timer deserialize;
+        private final DistributionSummary bytes;
+
+        Meters(MeterRegistry registry, Backend backend, Class<?> type) {
+            String backendTag = backend.name().toLowerCase();
+            String typeTag = type.getSimpleName();
+
+            this.serialize = Timer.builder("lush.json.serialize")
+                    .description("Time taken to serialize to JSON")
+                    .tags("backend", backendTag, "type", typeTag)
+                    .register(registry);
+            this.deserialize = Timer.builder("lush.json.deserialize")
+                    .description("Time taken to deserialize from JSON")
+                    .tags("backend", backendTag, "type", typeTag)
+                    .register(registry);
+            this.bytes = DistributionSummary.builder("lush.json.bytes")
+                    .description("Size of the serialized JSON")
+                    .baseUnit("bytes")
+                    .tags("backend", backendTag, "type", typeTag)
+                    .register(registry);
+        }
+    }
+
+    private interface Codec {
+        String toJson(Object value);
+
+        void toJson(Object value, Writer out);
+
+        byte[] toJsonBytes(Object value);
+
+        <T> T fromJson(String json, Class<T> type);
+
+        <T> T fromJson(byte[] json, Class<T> type);
+
+        <T> T convert(Object value, Class<T> type);
+    }
+
+    private record GsonCodec(Gson gson) implements Codec {
+        @Override
+        public String toJson(Object value) {
+            return gson.toJson(value);
+        }
+
+        @Override
+        public void toJson(Object value, Writer out) {
+            gson.toJson(value, value == null ? Object.class : value.getClass(), out);
+        }
+
+        @Override
+        public byte[] toJsonBytes(Object value) {
+            return gson.toJson(value).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public <T> T fromJson(String json, Class<T> type) {
+            return gson.fromJson(json, type);
+        }
+
+        @Override
+        public <T> T fromJson(byte[] json, Class<T> type) {
+            return gson.fromJson(new String(json, StandardCharsets.UTF_8), type);
+        }
+
+        @Override
+        public <T> T convert(Object value, Class<T> type) {
+            return gson.fromJson(gson.toJsonTree(value), type);
+        }
+    }
+
+    private static final class JacksonCodec implements Codec {
+        private final ObjectMapper mapper;
+
+        JacksonCodec(boolean blackbird) {
+            JsonMapper.Builder builder = JsonMapper.builder()
+                    .addModule(new LushJacksonModule())
+                    .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+            if( blackbird ) {
+                builder.addModule(new BlackbirdModule());
+            }
+
+            this.mapper = builder.build();
+        }
+
+        @Override
+        public String toJson(Object value) {
+            try {
+                return mapper.writeValueAsString(value);
+            }
+            catch (Exception e) {
+                throw new LushException( "Failed to serialize to JSON", e );
+            }
+        }
+
+        @Override
+        public void toJson(Object value, Writer out) {
+            try {
+                mapper.writeValue(out, value);
+            }
+            catch (Exception e) {
+                throw new LushException( "Failed to serialize to JSON", e );
+            }
+        }
+
+        @Override
+        public byte[] toJsonBytes(Object value) {
+            try {
+                return mapper.writeValueAsBytes(value);
+            }
+            catch (Exception e) {
+                throw new LushException( "Failed to serialize to JSON", e );
+            }
+        }
+
+        @Override
+        public <T> T fromJson(String json, Class<T> type) {
+            try {
+                return mapper.readValue(json, type);
+            }
+            catch (Exception e) {
+                throw new LushException( "Failed to deserialize JSON", e );
+            }
+        }
+
+        @Override
+        public <T> T fromJson(byte[] json, Class<T> type) {
+            try {
+                return mapper.readValue(json, type);
+            }
+            catch (Exception e) {
+                throw new LushException( "Failed to deserialize JSON", e );
+            }
+        }
+
+        @Override
+        public <T> T convert(Object value, Class<T> type) {
+            try {
+                return mapper.convertValue(value, type);
+            }
+            catch (IllegalArgumentException e) {
+                throw new LushException( "Failed to convert to " + type.getSimpleName(), e );
+            }
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.px3j.lush.core.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.px3j.lush.core.authority.AuthorityRegistry;
+import com.px3j.lush.core.model.AnyModel;
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.ticket.LazyExtra;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketExtra;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Gson TypeAdapterFactory with streaming (reflection free) adapters for the Lush model types: LushTicket,
+ * LushAdvice, LushAdvice.LushWarning and AnyModel.  The JSON produced is the same as Gson's reflective output so
+ * either side of a call can be upgraded first.
+ * <br/><br/>
+ * Authorities are written as {"role": "..."}, both "role" and "authority" (Jackson's default) are accepted on read.
+ * Values held in extras/detail maps are read with Gson's Object adapter, so numbers are read as Double as before.
+ * Ticket extras are only parsed to a JsonElement, binding to Map/Double/etc. (or to the type of a TicketExtra) is
+ * deferred until the extra is read (see LazyExtra).
+ * <br/><br/>
+ * The adapters are written by hand rather than generated: the model types get their accessors from Lombok, which
+ * another annotation processor in the same compilation (ie: lush-core-processor) can't reliably see.  With four types
+ * the generated code would be no different.
+ * <br/><br/>
+ * Use LushGson to get a Gson instance with this factory registered.
+ *
+ * @see LushJacksonModule
+ */
+public class LushTypeAdapterFactory implements TypeAdapterFactory {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+
+        if( rawType == LushTicket.class ) {
+            return (TypeAdapter<T>) new LushTicketAdapter(gson).nullSafe();
+        }
+        if( rawType == LushAdvice.class ) {
+            return (TypeAdapter<T>) new LushAdviceAdapter(gson).nullSafe();
+        }
+        if( rawType == LushAdvice.LushWarning.class ) {
+            return (TypeAdapter<T>) new LushWarningAdapter(gson).nullSafe();
+        }
+        if( rawType == AnyModel.class ) {
+            return (TypeAdapter<T>) new AnyModelAdapter(gson).nullSafe();
+        }
+
+        return null;
+    }
+
+    private static void writeValue(Gson gson, JsonWriter out, Object value) throws IOException {
+        if( value == null ) {
+            out.nullValue();
+        }
+        else if( value instanceof String s ) {
+            out.value(s);
+        }
+        else if( value instanceof Boolean b ) {
+            out.value(b);
+        }
+        else if( value instanceof Number n ) {
+            out.value(n);
+        }
+        else {
+            @SuppressWarnings("unchecked")
+            TypeAdapter<Object> adapter = (TypeAdapter<Object>) gson.getAdapter(value.getClass());
+            adapter.write(out, value);
+        }
+    }
+
+    private static void writeMap(Gson gson, JsonWriter out, Map<String,?> map) throws IOException {
+        out.beginObject();
+        for( Map.Entry<String,?> entry : map.entrySet() ) {
+            out.name(entry.getKey());
+            writeValue(gson, out, entry.getValue());
+        }
+        out.endObject();
+    }
+
+    private static <M extends Map<String,Object>> M readMap(TypeAdapter<Object> values, JsonReader in, M map) throws IOException {
+        in.beginObject();
+        while( in.hasNext() ) {
+            map.put(in.nextName(), values.read(in));
+        }
+        in.endObject();
+        return map;
+    }
+
+    private static String nextNullableString(JsonReader in) throws IOException {
+        if( in.peek() == JsonToken.NULL ) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static final class LushTicketAdapter extends TypeAdapter<LushTicket> {
+        private final Gson gson;
+        private final TypeAdapter<Object> values;
+        private final TypeAdapter<JsonElement> elements;
+
+        LushTicketAdapter(Gson gson) {
+            this.gson = gson;
+            this.values = gson.getAdapter(Object.class);
+            this.elements = gson.getAdapter(JsonElement.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, LushTicket ticket) throws IOException {
+            out.beginObject();
+            out.name("id").value(ticket.getId());
+            out.name("username").value(ticket.getUsername());
+            out.name("password").value(ticket.getPassword());
+            if( ticket.getIssuedAt() != 0 ) {
+                out.name("issuedAt").value(ticket.getIssuedAt());
+            }
+            if( ticket.getExpiresAt() != 0 ) {
+                out.name("expiresAt").value(ticket.getExpiresAt());
+            }
+
+            out.name("authorities");
+            if( ticket.getAuthorities() == null ) {
+                out.nullValue();
+            }
+            else {
+                out.beginArray();
+                for( SimpleGrantedAuthority authority : ticket.getAuthorities() ) {
+                    out.beginObject().name("role").value(authority.getAuthority()).endObject();
+                }
+                out.endArray();
+            }
+
+            out.name("extras");
+            writeMap(gson, out, ticket.getExtras());
+            out.endObject();
+        }
+
+        @Override
+        public LushTicket read(JsonReader in) throws IOException {
+            LushTicket ticket = new LushTicket();
+
+            in.beginObject();
+            while( in.hasNext() ) {
+                String name = in.nextName();
+                switch( name ) {
+                    case "id" -> ticket.setId(nextNullableString(in));
+                    case "username" -> ticket.setUsername(nextNullableString(in));
+                    case "password" -> ticket.setPassword(nextNullableString(in));
+                    case "issuedAt" -> ticket.setIssuedAt(in.nextLong());
+                    case "expiresAt" -> ticket.setExpiresAt(in.nextLong());
+                    case "authorities" -> ticket.setAuthorities(readAuthorities(in));
+                    case "extras" -> {
+                        if( in.peek() == JsonToken.NULL ) {
+                            in.nextNull();
+                        }
+                        else {
+                            ticket.setExtras(readLazyExtras(in));
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return ticket;
+        }
+
+        private Map<String,Object> readLazyExtras(JsonReader in) throws IOException {
+            Map<String,Object> extras = new HashMap<>();
+            in.beginObject();
+            while( in.hasNext() ) {
+                String key = in.nextName();
+
+                // strings and booleans are fully decoded by the reader, there is nothing to defer
+                switch( in.peek() ) {
+                    case STRING -> extras.put(key, in.nextString());
+                    case BOOLEAN -> extras.put(key, in.nextBoolean());
+                    case NULL -> {
+                        in.nextNull();
+                        extras.put(key, null);
+                    }
+                    default -> extras.put(key, new LazyExtra(new GsonSource(elements.read(in))));
+                }
+            }
+            in.endObject();
+            return extras;
+        }
+
+        private final class GsonSource implements LazyExtra.Source {
+            private final JsonElement element;
+
+            GsonSource(JsonElement element) {
+                this.element = element;
+            }
+
+            @Override
+            public Object decode() {
+                return values.fromJsonTree(element);
+            }
+
+            @Override
+            public <T> T decode(TicketExtra<T> extra) {
+                return gson.fromJson(element, extra.getType());
+            }
+        }
+
+        private static List<SimpleGrantedAuthority> readAuthorities(JsonReader in) throws IOException {
+            if( in.peek() == JsonToken.NULL ) {
+                in.nextNull();
+                return null;
+            }
+
+            List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+            in.beginArray();
+            while( in.hasNext() ) {
+                if( in.peek() == JsonToken.STRING ) {
+                    authorities.add(AuthorityRegistry.intern(in.nextString()));
+                    continue;
+                }
+
+                String role = null;
+                in.beginObject();
+                while( in.hasNext() ) {
+                    String name = in.nextName();
+                    if( "role".equals(name) || "authority".equals(name) ) {
+                        role = nextNullableString(in);
+                    }
+                    else {
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+
+                if( role == null ) {
+                    throw new JsonParseException( "LushTicket authority is missing a role at " + in.getPath() );
+                }
+                authorities.add(AuthorityRegistry.intern(role));
+            }
+            in.endArray();
+
+            return authorities;
+        }
+    }
+
+    private static final class LushAdviceAdapter extends TypeAdapter<LushAdvice> {
+        private final Gson gson;
+        private final TypeAdapter<Object> values;
+        private final TypeAdapter<LushAdvice.LushWarning> warnings;
+
+        LushAdviceAdapter(Gson gson) {
+            this.gson = gson;
+            this.values = gson.getAdapter(Object.class);
+            this.warnings = gson.getAdapter(LushAdvice.LushWarning.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, LushAdvice advice) throws IOException {
+            out.beginObject();
+            out.name("traceId").value(advice.getTraceId());
+            out.name("statusCode").value(advice.getStatusCode());
+
+            out.name("warnings").beginArray();
+            for( LushAdvice.LushWarning warning : advice.getWarnings() ) {
+                warnings.write(out, warning);
+            }
+            out.endArray();
+
+            out.name("extras");
+            writeMap(gson, out, advice.getExtras());
+            out.endObject();
+        }
+
+        @Override
+        public LushAdvice read(JsonReader in) throws IOException {
+            LushAdvice advice = new LushAdvice();
+
+            in.beginObject();
+            while( in.hasNext() ) {
+                String name = in.nextName();
+                if( in.peek() == JsonToken.NULL ) {
+                    in.nextNull();
+                    continue;
+                }
+
+                switch( name ) {
+                    case "traceId" -> advice.setTraceId(in.nextString());
+                    case "statusCode" -> advice.setStatusCode(in.nextInt());
+                    case "warnings" -> {
+                        in.beginArray();
+                        while( in.hasNext() ) {
+                            advice.addWarning(warnings.read(in));
+                        }
+                        in.endArray();
+                    }
+                    case "extras" -> readMap(values, in, new LinkedHashMap<>()).forEach(advice::putExtra);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return advice;
+        }
+    }
+
+    private static final class LushWarningAdapter extends TypeAdapter<LushAdvice.LushWarning> {
+        private final Gson gson;
+        private final TypeAdapter<Object> values;
+
+        LushWarningAdapter(Gson gson) {
+            this.gson = gson;
+            this.values = gson.getAdapter(Object.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, LushAdvice.LushWarning warning) throws IOException {
+            out.beginObject();
+            out.name("code").value(warning.getCode());
+            out.name("detail");
+            if( warning.getDetail() == null ) {
+                out.nullValue();
+            }
+            else {
+                writeMap(gson, out, warning.getDetail());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public LushAdvice.LushWarning read(JsonReader in) throws IOException {
+            int code = 0;
+            Map<String,Object> detail = new HashMap<>();
+
+            in.beginObject();
+            while( in.hasNext() ) {
+                String name = in.nextName();
+                if( in.peek() == JsonToken.NULL ) {
+                    in.nextNull();
+                    continue;
+                }
+
+                switch( name ) {
+                    case "code" -> code = in.nextInt();
+                    case "detail" -> readMap(values, in, detail);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new LushAdvice.LushWarning(code, detail);
+        }
+    }
+
+    private static final class AnyModelAdapter extends TypeAdapter<AnyModel> {
+        private final Gson gson;
+        private final TypeAdapter<Object> values;
+
+        AnyModelAdapter(Gson gson) {
+            this.gson = gson;
+            this.values = gson.getAdapter(Object.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, AnyModel model) throws IOException {
+            writeMap(gson, out, model);
+        }
+
+        @Override
+        public AnyModel read(JsonReader in) throws IOException {
+            return readMap(values, in, new AnyModel());
+        }
+    }
+}
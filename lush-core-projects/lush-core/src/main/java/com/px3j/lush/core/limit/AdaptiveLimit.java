@@ -0,0 +1,22 @@
+package com.px3j.lush.core.limit;
+
+/**
+ * The number of calls that a ConcurrencyLimiter lets run at the same time, adjusted from the latency of completed
+ * calls.  Implementations must be thread safe.
+ *
+ * @author Paul Parrone
+ */
+public interface AdaptiveLimit {
+    /**
+     * @return The current limit.
+     */
+    int getLimit();
+
+    /**
+     * Adjust the limit for a completed call.
+     *
+     * @param rttNanos How long the call took.
+     * @param inFlight The number of calls in flight when the call started, including it.
+     */
+    void onSample(long rttNanos, int inFlight);
+}
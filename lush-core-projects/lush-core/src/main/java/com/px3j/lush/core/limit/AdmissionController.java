@@ -0,0 +1,216 @@
+package com.px3j.lush.core.limit;
+
+import com.px3j.lush.core.authority.AuthoritySet;
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketExtra;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sheds calls to Lush controller methods by priority when the service is saturated, so that batch traffic is
+ * dropped before interactive traffic and monitoring (lush-monitor) keeps flowing.  The priority of a call is taken
+ * from the caller's LushTicket:
+ * <pre>
+ *  the lush-priority extra - critical, interactive or batch, set by whoever issues the ticket
+ *  critical-authorities    - a ticket with any of these authorities is critical
+ *  batch-authorities       - a ticket with any of these authorities is batch
+ *  otherwise               - interactive
+ * </pre>
+ *
+ * Calls are shed, in priority order, once the calls in flight across all Lush controller methods or the process CPU
+ * load cross the thresholds below.  A shed call isn't made, its LushAdvice has the status code SHED_STATUS_CODE.
+ * Configured via the following properties:
+ * <pre>
+ *  lush.admission.enabled - set to true to shed calls, defaults to false
+ *  lush.admission.max-in-flight - calls in flight at which critical calls are shed, defaults to 200
+ *  lush.admission.interactive-share - share of max-in-flight at which interactive calls are shed, defaults to 0.9
+ *  lush.admission.batch-share - share of max-in-flight at which batch calls are shed, defaults to 0.5
+ *  lush.admission.cpu-threshold - process CPU load (0-1) at which batch calls are shed, defaults to 0.9 (0 to ignore)
+ *  lush.admission.critical-authorities - comma-separated, defaults to lush-monitor
+ *  lush.admission.batch-authorities - comma-separated, defaults to batch
+ * </pre>
+ *
+ * The calls shed are published to Micrometer as lush.admission.shed tagged by priority, along with the calls in
+ * flight as lush.admission.in-flight.
+ *
+ * @author Paul Parrone
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class AdmissionController {
+    /**
+     * LushAdvice status code of a call that was shed.
+     */
+    public static final int SHED_STATUS_CODE = -97;
+
+    public static final TicketExtra<String> PRIORITY = TicketExtra.of("lush-priority", String.class);
+
+    private static final long CPU_SAMPLE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final int interactiveInFlight;
+    private final int batchInFlight;
+    private final double cpuThreshold;
+    private final String[] criticalAuthorities;
+    private final String[] batchAuthorities;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Priority, Counter> shed = new EnumMap<>(Priority.class);
+
+    private final com.sun.management.OperatingSystemMXBean os;
+    private final AtomicLong cpuSampledAt = new AtomicLong(System.nanoTime() - CPU_SAMPLE_INTERVAL);
+    private volatile double cpuLoad;
+
+    @Autowired
+    public AdmissionController(
+            MeterRegistry meterRegistry,
+            @Value("${lush.admission.enabled:false}") boolean enabled,
+            @Value("${lush.admission.max-in-flight:200}") int maxInFlight,
+            @Value("${lush.admission.interactive-share:0.9}") double interactiveShare,
+            @Value("${lush.admission.batch-share:0.5}") double batchShare,
+            @Value("${lush.admission.cpu-threshold:0.9}") double cpuThreshold,
+            @Value("${lush.admission.critical-authorities:lush-monitor}") String[] criticalAuthorities,
+            @Value("${lush.admission.batch-authorities:batch}") String[] batchAuthorities
+    ) {
+        this.enabled = enabled;
+        this.maxInFlight = maxInFlight;
+        this.interactiveInFlight = (int) Math.ceil(maxInFlight * interactiveShare);
+        this.batchInFlight = (int) Math.ceil(maxInFlight * batchShare);
+        this.cpuThreshold = cpuThreshold;
+        this.criticalAuthorities = criticalAuthorities;
+        this.batchAuthorities = batchAuthorities;
+        this.os = ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean bean
+                ? bean : null;
+
+        for( Priority priority : Priority.values() ) {
+            shed.put(priority, Counter.builder("lush.admission.shed")
+                    .description("Calls to Lush controller methods shed by priority")
+                    .tag("priority", priority.tag())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("lush.admission.in-flight", inFlight, AtomicInteger::get)
+                .description("Calls in flight to Lush controller methods")
+                .register(meterRegistry);
+
+        log.debug( "Lush :: AdmissionController enabled: {} max-in-flight: {} interactive: {} batch: {} cpu-threshold: {}",
+                enabled, maxInFlight, interactiveInFlight, batchInFlight, cpuThreshold );
+    }
+
+    /**
+     * Admit a call, or shed it if the service is saturated for the call's priority.
+     *
+     * @param ticket The ticket of the caller.
+     * @param advice The advice returned to the caller, it is populated if the call is shed.
+     * @return The permit to release when the call completes, null if the call is shed and must not be made.
+     */
+    public ConcurrencyLimiter.Permit admit(LushTicket ticket, LushAdvice advice) {
+        if( !enabled ) {
+            return ConcurrencyLimiter.Permit.UNLIMITED;
+        }
+
+        Priority priority = classify(ticket);
+        int ceiling = ceilingFor(priority);
+
+        int current;
+        do {
+            current = inFlight.get();
+            if( current >= ceiling ) {
+                shed(priority, advice);
+                return null;
+            }
+        } while( !inFlight.compareAndSet(current, current + 1) );
+
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if( released.compareAndSet(false, true) ) {
+                inFlight.decrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * @param ticket The ticket of the caller.
+     * @return The priority of the caller's calls.
+     */
+    public Priority classify(LushTicket ticket) {
+        if( ticket == null ) {
+            return Priority.INTERACTIVE;
+        }
+
+        Priority priority = Priority.find(ticket.getExtra(PRIORITY));
+        if( priority != null ) {
+            return priority;
+        }
+        AuthoritySet authorities = ticket.getAuthoritySet();
+        if( hasAny(authorities, criticalAuthorities) ) {
+            return Priority.CRITICAL;
+        }
+        if( hasAny(authorities, batchAuthorities) ) {
+            return Priority.BATCH;
+        }
+        return Priority.INTERACTIVE;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public double getShedCount(Priority priority) {
+        return shed.get(priority).count();
+    }
+
+    private int ceilingFor(Priority priority) {
+        return switch (priority) {
+            case CRITICAL -> maxInFlight;
+            case INTERACTIVE -> interactiveInFlight;
+            case BATCH -> cpuThreshold > 0 && cpuLoad() >= cpuThreshold ? 0 : batchInFlight;
+        };
+    }
+
+    private void shed(Priority priority, LushAdvice advice) {
+        shed.get(priority).increment();
+        log.debug( "Lush :: shed {} call, in flight: {}", priority.tag(), inFlight.get() );
+
+        if( advice != null ) {
+            advice.setStatusCode(SHED_STATUS_CODE);
+            advice.putExtra("lush.isShed", true);
+            advice.putExtra("lush.priority", priority.tag());
+        }
+    }
+
+    /**
+     * The process CPU load, sampled at most once a second as reading it isn't free.
+     */
+    private double cpuLoad() {
+        long now = System.nanoTime();
+        long sampledAt = cpuSampledAt.get();
+        if( os != null && now - sampledAt >= CPU_SAMPLE_INTERVAL && cpuSampledAt.compareAndSet(sampledAt, now) ) {
+            cpuLoad = os.getProcessCpuLoad();
+        }
+        return cpuLoad;
+    }
+
+    private static boolean hasAny(AuthoritySet set, String[] authorities) {
+        for( String authority : authorities ) {
+            if( !authority.isBlank() && set.contains(authority.trim()) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
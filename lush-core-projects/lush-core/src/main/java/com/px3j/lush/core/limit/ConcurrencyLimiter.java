@@ -0,0 +1,115 @@
+package com.px3j.lush.core.limit;
+
+import com.px3j.lush.core.model.LushAdvice;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of calls in flight to an AdaptiveLimit.  A call that would go over the limit is rejected rather
+ * than queued, so that a saturated service answers quickly instead of letting latency grow for every caller.
+ * <pre>
+ *     ConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+ *     if( permit == null ) {
+ *         limiter.reject(advice);
+ *         return;
+ *     }
+ *     try {
+ *         ...
+ *     }
+ *     finally {
+ *         permit.release();
+ *     }
+ * </pre>
+ *
+ * @author Paul Parrone
+ */
+public final class ConcurrencyLimiter {
+    /**
+     * LushAdvice status code of a call rejected by a limiter.
+     */
+    public static final int REJECTED_STATUS_CODE = -98;
+
+    private final AdaptiveLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    ConcurrencyLimiter(AdaptiveLimit limit, Counter rejected) {
+        this.limit = limit;
+        this.rejected = rejected;
+    }
+
+    /**
+     * @return A permit for a call, or null if the call would go over the limit.
+     */
+    public Permit tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if( current >= limit.getLimit() ) {
+                rejected.increment();
+                return null;
+            }
+        } while( !inFlight.compareAndSet(current, current + 1) );
+
+        return new LimitedPermit(current + 1);
+    }
+
+    /**
+     * Populate the advice of a rejected call.
+     *
+     * @param advice The advice returned to the caller.
+     */
+    public void reject(LushAdvice advice) {
+        if( advice != null ) {
+            advice.setStatusCode(REJECTED_STATUS_CODE);
+            advice.putExtra("lush.isRejected", true);
+        }
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public double getRejectedCount() {
+        return rejected.count();
+    }
+
+    /**
+     * A call in flight, released when the call completes.
+     */
+    public interface Permit {
+        /**
+         * Permit of a call that isn't limited.
+         */
+        Permit UNLIMITED = () -> {};
+
+        /**
+         * Complete the call, its latency adjusts the limit.  Only the first release of a permit counts.
+         */
+        void release();
+    }
+
+    private final class LimitedPermit implements Permit {
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private LimitedPermit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        @Override
+        public void release() {
+            if( released.compareAndSet(false, true) ) {
+                inFlight.decrementAndGet();
+                limit.onSample(System.nanoTime() - startNanos, inFlightAtStart);
+            }
+        }
+    }
+}
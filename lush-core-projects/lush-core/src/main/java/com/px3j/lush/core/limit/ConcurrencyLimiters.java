@@ -0,0 +1,87 @@
+package com.px3j.lush.core.limit;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.web.common.InvocationPlan;
+import com.px3j.lush.web.common.LushControllerMethod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ConcurrencyLimiters of the Lush controller methods, created from the concurrencyLimit settings of their
+ * LushControllerMethod annotation when the method is first called.  The state of each limiter is published to
+ * Micrometer with the tag method=&lt;class&gt;::&lt;method&gt;:
+ * <pre>
+ *  lush.limit.limit - the current limit
+ *  lush.limit.in-flight - the calls in flight
+ *  lush.limit.rejected - the calls rejected
+ * </pre>
+ *
+ * @author Paul Parrone
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class ConcurrencyLimiters {
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Optional<ConcurrencyLimiter>> limiters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConcurrencyLimiters(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param plan The plan for the method being called.
+     * @return The limiter for the method, null if its calls aren't limited.
+     */
+    public ConcurrencyLimiter limiterFor(InvocationPlan plan) {
+        Optional<ConcurrencyLimiter> limiter = limiters.get(plan.getMethod());
+        if( limiter == null ) {
+            limiter = limiters.computeIfAbsent(plan.getMethod(), m -> Optional.ofNullable(create(plan)));
+        }
+        return limiter.orElse(null);
+    }
+
+    private ConcurrencyLimiter create(InvocationPlan plan) {
+        LushControllerMethod settings = plan.getAnnotation();
+        AdaptiveLimit limit;
+        try {
+            limit = settings == null ? null
+                    : settings.concurrencyLimit().create(settings.initialLimit(), settings.minLimit(), settings.maxLimit());
+        }
+        catch (LushException e) {
+            throw new LushException( "Invalid @LushControllerMethod concurrency limit on " + plan, e );
+        }
+        if( limit == null ) {
+            return null;
+        }
+
+        String name = plan.toString();
+        Counter rejected = Counter.builder("lush.limit.rejected")
+                .description("Calls rejected by the concurrency limit of a Lush controller method")
+                .tag("method", name)
+                .register(meterRegistry);
+
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(limit, rejected);
+        Gauge.builder("lush.limit.limit", limiter, ConcurrencyLimiter::getLimit)
+                .description("Concurrency limit of a Lush controller method")
+                .tag("method", name)
+                .register(meterRegistry);
+        Gauge.builder("lush.limit.in-flight", limiter, ConcurrencyLimiter::getInFlight)
+                .description("Calls in flight to a Lush controller method")
+                .tag("method", name)
+                .register(meterRegistry);
+
+        log.debug( "Lush :: {} concurrency limit for {}, initial: {} min: {} max: {}",
+                settings.concurrencyLimit(), name, settings.initialLimit(), settings.minLimit(), settings.maxLimit() );
+        return limiter;
+    }
+}
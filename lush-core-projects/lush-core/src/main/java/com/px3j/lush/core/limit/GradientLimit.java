@@ -0,0 +1,84 @@
+package com.px3j.lush.core.limit;
+
+/**
+ * Gradient based limit.  Latency is averaged over windows of calls (the short RTT) and compared to its long term
+ * average (the long RTT), the limit is multiplied by the gradient between the two:
+ * <pre>
+ *  gradient = max(0.5, min(1.0, tolerance * longRtt / shortRtt))
+ *  newLimit = limit * gradient + sqrt(limit)
+ * </pre>
+ *
+ * So the limit grows (by the square root of the limit, the calls allowed to queue) while latency stays within
+ * tolerance of its average and shrinks, by half at most per window, once it doesn't.  Changes are smoothed and a
+ * window where less than half of the limit was used leaves the limit alone as it says nothing about capacity.
+ *
+ * @author Paul Parrone
+ */
+public final class GradientLimit implements AdaptiveLimit {
+    static final int WINDOW_SIZE = 10;
+    static final int LONG_WINDOW = 600;
+    static final double TOLERANCE = 1.5;
+    static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRtt;
+
+    private int samples;
+    private long rttSum;
+    private int maxInFlight;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        LimitAlgorithm.checkBounds(minLimit, maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight) {
+        rttSum += rttNanos;
+        maxInFlight = Math.max(maxInFlight, inFlight);
+        if( ++samples < WINDOW_SIZE ) {
+            return;
+        }
+
+        double shortRtt = (double) rttSum / samples;
+        int windowInFlight = maxInFlight;
+        samples = 0;
+        rttSum = 0;
+        maxInFlight = 0;
+
+        if( longRtt == 0 ) {
+            longRtt = shortRtt;
+            return;
+        }
+
+        longRtt += (shortRtt - longRtt) * 2 / (LONG_WINDOW + 1);
+
+        // Latency has dropped well below the average (ie: after an overload), let the average catch up quickly.
+        if( longRtt / shortRtt > 2 ) {
+            longRtt *= 0.95;
+        }
+
+        if( windowInFlight < estimatedLimit / 2 ) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
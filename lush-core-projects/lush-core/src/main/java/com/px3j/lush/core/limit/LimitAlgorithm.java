@@ -0,0 +1,51 @@
+package com.px3j.lush.core.limit;
+
+import com.px3j.lush.core.exception.LushException;
+
+/**
+ * Algorithms available to limit the concurrent calls to a Lush controller method, see
+ * LushControllerMethod::concurrencyLimit.
+ *
+ * @author Paul Parrone
+ */
+public enum LimitAlgorithm {
+    /**
+     * Calls are not limited.
+     */
+    NONE,
+
+    /**
+     * Reduces the limit as latency grows beyond its long term average, see GradientLimit.
+     */
+    GRADIENT,
+
+    /**
+     * Estimates the calls queued from how far latency is above the lowest latency seen, see VegasLimit.
+     */
+    VEGAS;
+
+    /**
+     * @param initialLimit The limit to start with.
+     * @param minLimit The lowest the limit can go.
+     * @param maxLimit The highest the limit can go.
+     * @return A new limit using this algorithm, null for NONE.
+     * @throws LushException if minLimit is less than 1 or greater than maxLimit.
+     */
+    public AdaptiveLimit create(int initialLimit, int minLimit, int maxLimit) {
+        if( this != NONE ) {
+            checkBounds(minLimit, maxLimit);
+        }
+
+        return switch (this) {
+            case NONE -> null;
+            case GRADIENT -> new GradientLimit(initialLimit, minLimit, maxLimit);
+            case VEGAS -> new VegasLimit(initialLimit, minLimit, maxLimit);
+        };
+    }
+
+    static void checkBounds(int minLimit, int maxLimit) {
+        if( minLimit < 1 || minLimit > maxLimit ) {
+            throw new LushException( "Invalid concurrency limit bounds, minLimit: " + minLimit + " maxLimit: " + maxLimit + " (expected 1 <= minLimit <= maxLimit)" );
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.px3j.lush.core.limit;
+
+/**
+ * Priority class of a request, used by the AdmissionController to decide which requests to shed first.
+ *
+ * @author Paul Parrone
+ */
+public enum Priority {
+    /**
+     * Monitoring and other traffic that must keep flowing, only shed once max-in-flight is reached.
+     */
+    CRITICAL,
+
+    /**
+     * Requests a user is waiting on, the default.
+     */
+    INTERACTIVE,
+
+    /**
+     * Bulk or background requests, the first to be shed.
+     */
+    BATCH;
+
+    /**
+     * @return The name of the priority as used in tags and advice extras.
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * @param value The name of a priority, case-insensitive.
+     * @return The priority or null if the value isn't one.
+     */
+    public static Priority find(String value) {
+        for( Priority priority : values() ) {
+            if( priority.name().equalsIgnoreCase(value) ) {
+                return priority;
+            }
+        }
+        return null;
+    }
+}
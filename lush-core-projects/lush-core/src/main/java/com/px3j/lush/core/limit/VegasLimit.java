@@ -0,0 +1,83 @@
+package com.px3j.lush.core.limit;
+
+/**
+ * Limit based on TCP Vegas.  The lowest latency seen is taken as the latency without load, the number of calls that
+ * are queued is estimated from how far a call's latency is above it:
+ * <pre>
+ *  queued = ceil(limit * (1 - noLoadRtt / rtt))
+ * </pre>
+ *
+ * With log = log10(limit), the limit grows by 6 * log when almost nothing is queued (queued &lt;= log) and by log
+ * while fewer than 3 * log calls are queued.  It shrinks by log when more than 6 * log calls are queued.  The no load
+ * latency is re-measured every 30 * limit calls in case the service got faster or slower, and calls made while less
+ * than half of the limit was used leave the limit alone.
+ *
+ * @author Paul Parrone
+ */
+public final class VegasLimit implements AdaptiveLimit {
+    static final int PROBE_MULTIPLIER = 30;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private long noLoadRtt;
+    private long samplesUntilProbe;
+
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+        LimitAlgorithm.checkBounds(minLimit, maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+        this.samplesUntilProbe = nextProbe();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight) {
+        if( --samplesUntilProbe <= 0 ) {
+            samplesUntilProbe = nextProbe();
+            noLoadRtt = rttNanos;
+            return;
+        }
+
+        if( noLoadRtt == 0 || rttNanos < noLoadRtt ) {
+            noLoadRtt = rttNanos;
+            return;
+        }
+
+        if( inFlight * 2 < estimatedLimit ) {
+            return;
+        }
+
+        int queued = (int) Math.ceil(estimatedLimit * (1 - (double) noLoadRtt / rttNanos));
+        double log = Math.max(1, Math.log10(estimatedLimit));
+
+        double newLimit;
+        if( queued <= log ) {
+            newLimit = estimatedLimit + 6 * log;
+        }
+        else if( queued < 3 * log ) {
+            newLimit = estimatedLimit + log;
+        }
+        else if( queued > 6 * log ) {
+            newLimit = estimatedLimit - log;
+        }
+        else {
+            return;
+        }
+
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    private long nextProbe() {
+        return (long) (PROBE_MULTIPLIER * estimatedLimit);
+    }
+}
@@ -66,6 +66,30 @@ public class LushAdvice {
         this.warnings.add(warning);
     }
 
+    /**
+     * Take the status code, warnings and extras of another advice, ie: that of a call whose result is shared with
+     * this call.  The trace id of this advice is kept.
+     *
+     * @param other The advice to replay.
+     */
+    public void replay(LushAdvice other) {
+        if( other == this ) {
+            return;
+        }
+
+        this.statusCode = other.statusCode;
+        this.warnings = new ArrayList<>(other.warnings);
+        this.extras.clear();
+        this.extras.putAll(other.extras);
+    }
+
+    /**
+     * @return true if any warnings or extras have been added to this advice.
+     */
+    public boolean hasDetail() {
+        return !warnings.isEmpty() || !extras.isEmpty();
+    }
+
     @Data
     @AllArgsConstructor
     public static class LushWarning {
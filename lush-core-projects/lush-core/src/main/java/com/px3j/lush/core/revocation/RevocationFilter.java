@@ -0,0 +1,122 @@
+package com.px3j.lush.core.revocation;
+
+import com.px3j.lush.core.exception.LushException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read only Bloom filter of revoked ticket ids, memory-mapped from a file written by RevocationFilterWriter.  A
+ * lookup hashes the id and tests a few bits of the mapped file, it doesn't allocate and the filter can be shared by
+ * any number of threads.
+ * <br/><br/>
+ * File layout (big endian):
+ * <pre>
+ *  magic (LRBF) | version | hash count | reserved | bit count (long) | bits (longs)
+ * </pre>
+ *
+ * @see RevocationFilterWriter
+ */
+public final class RevocationFilter {
+    static final int MAGIC = 0x4C524246;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+
+    public static final RevocationFilter EMPTY = new RevocationFilter(null, 0, 0);
+
+    private final ByteBuffer bits;
+    private final long bitCount;
+    private final int hashes;
+
+    private RevocationFilter(ByteBuffer bits, long bitCount, int hashes) {
+        this.bits = bits;
+        this.bitCount = bitCount;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Memory-map a filter file.  The file can be replaced (see RevocationFilterWriter::writeTo) while it is mapped.
+     *
+     * @param file The filter file.
+     * @return The mapped filter.
+     * @throws IOException If the file can't be read.
+     */
+    public static RevocationFilter map(Path file) throws IOException {
+        try( FileChannel channel = FileChannel.open(file, StandardOpenOption.READ) ) {
+            long size = channel.size();
+            if( size < HEADER_BYTES || size > Integer.MAX_VALUE ) {
+                throw new LushException( "Invalid revocation filter size: " + size + " bytes in: " + file );
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if( buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION ) {
+                throw new LushException( "Not a revocation filter (or unsupported version): " + file );
+            }
+
+            int hashes = buffer.getInt(8);
+            long bitCount = buffer.getLong(16);
+            if( hashes < 1 || bitCount < 64 || bitCount % 64 != 0 || HEADER_BYTES + bitCount / 8 != size ) {
+                throw new LushException( "Corrupt revocation filter: " + file );
+            }
+
+            return new RevocationFilter(buffer, bitCount, hashes);
+        }
+    }
+
+    /**
+     * @param ticketId The id of a ticket.
+     * @return true if the id may have been revoked (false positives are possible), false if it definitely wasn't.
+     */
+    public boolean mightContain(CharSequence ticketId) {
+        if( bits == null ) {
+            return false;
+        }
+
+        long h1 = hash(ticketId);
+        long h2 = second(h1);
+        for( int i = 0; i < hashes; i++ ) {
+            long bit = index(h1, h2, i, bitCount);
+            if( (bits.getLong(HEADER_BYTES + (int) (bit >>> 6) * 8) & (1L << bit)) == 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    static long hash(CharSequence value) {
+        // FNV-1a over the chars followed by a murmur3 finalizer
+        long h = 0xCBF29CE484222325L;
+        for( int i = 0, n = value.length(); i < n; i++ ) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    static long second(long h1) {
+        return mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    static long index(long h1, long h2, int i, long bitCount) {
+        return ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,116 @@
+package com.px3j.lush.core.revocation;
+
+import com.px3j.lush.core.exception.LushException;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a revocation filter file (see RevocationFilter) from the ids of revoked tickets.  The filter is sized for
+ * the expected number of ids and the desired false positive rate, a false positive rejects a valid ticket so keep the
+ * rate low (the default of 1 in a million costs ~3.6 bytes per id).
+ * <br/><br/>
+ * It can be used from code, or run to build a filter from ids (one per line) on stdin:
+ * <pre>
+ *     java -cp lush-core.jar com.px3j.lush.core.revocation.RevocationFilterWriter revoked.lrbf [false-positive-rate] &lt; revoked-ids.txt
+ * </pre>
+ */
+public final class RevocationFilterWriter {
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 1e-6;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashes;
+
+    public RevocationFilterWriter(long expectedEntries, double falsePositiveRate) {
+        if( falsePositiveRate <= 0 || falsePositiveRate >= 1 ) {
+            throw new LushException( "Invalid revocation filter false positive rate: " + falsePositiveRate );
+        }
+
+        long entries = Math.max(1, expectedEntries);
+        long optimal = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long words = Math.max(1, (optimal + 63) / 64);
+        if( words * 8 > Integer.MAX_VALUE - RevocationFilter.HEADER_BYTES ) {
+            throw new LushException( "Revocation filter for: " + expectedEntries + " entries is too large" );
+        }
+
+        this.bits = new long[(int) words];
+        this.bitCount = words * 64;
+        this.hashes = (int) Math.max(1, Math.round((double) bitCount / entries * Math.log(2)));
+    }
+
+    /**
+     * @param ticketId The id of a revoked ticket.
+     * @return This writer.
+     */
+    public RevocationFilterWriter add(CharSequence ticketId) {
+        long h1 = RevocationFilter.hash(ticketId);
+        long h2 = RevocationFilter.second(h1);
+        for( int i = 0; i < hashes; i++ ) {
+            long bit = RevocationFilter.index(h1, h2, i, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        return this;
+    }
+
+    /**
+     * Write the filter.  It is written to a temporary file which then replaces the target, so a service reloading the
+     * filter never sees a partially written file.
+     *
+     * @param file The filter file.
+     * @throws IOException If the file can't be written.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try( OutputStream os = Files.newOutputStream(temp); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os)) ) {
+                out.writeInt(RevocationFilter.MAGIC);
+                out.writeInt(RevocationFilter.VERSION);
+                out.writeInt(hashes);
+                out.writeInt(0);
+                out.writeLong(bitCount);
+                for( long word : bits ) {
+                    out.writeLong(word);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if( args.length < 1 ) {
+            System.err.println("usage: RevocationFilterWriter <file> [false-positive-rate] < revoked-ids.txt");
+            System.exit(1);
+        }
+
+        List<String> ids = new ArrayList<>();
+        try( BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)) ) {
+            for( String line = in.readLine(); line != null; line = in.readLine() ) {
+                if( !line.isBlank() ) {
+                    ids.add(line.trim());
+                }
+            }
+        }
+
+        double falsePositiveRate = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_FALSE_POSITIVE_RATE;
+        RevocationFilterWriter writer = new RevocationFilterWriter(ids.size(), falsePositiveRate);
+        ids.forEach(writer::add);
+        writer.writeTo(Path.of(args[0]));
+
+        System.out.println("Wrote " + ids.size() + " revoked ticket ids to: " + args[0]);
+    }
+}
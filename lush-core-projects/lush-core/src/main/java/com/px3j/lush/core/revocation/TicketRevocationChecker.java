@@ -0,0 +1,195 @@
+package com.px3j.lush.core.revocation;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.ticket.LushTicket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rejects tickets that have expired or have been revoked, checked on every request after the ticket is decoded (or
+ * taken from the TicketCache).  Both checks are done locally, there is no call to a revocation service.
+ * <br/><br/>
+ * Revoked ticket ids are held in a Bloom filter that is memory-mapped from a file written by RevocationFilterWriter
+ * (see RevocationFilter).  The file is checked for changes every reload-interval, when it has changed the new filter
+ * is mapped and swapped in, requests never see a partially loaded filter.  If the file is missing or invalid the
+ * current filter is kept.  Tickets without an id can't be revoked.  Configured via the following properties:
+ * <pre>
+ *  lush.security.revocation.enabled - check tickets against the revocation filter, defaults to false
+ *  lush.security.revocation.file - path of the revocation filter file
+ *  lush.security.revocation.reload-interval - how often the file is checked for changes, defaults to 10s
+ *  lush.security.expiry.clock-skew - allowance for clock differences when checking expiresAt, defaults to 30s
+ * </pre>
+ *
+ * Rejected tickets are counted by the lush.ticket.rejected counter, tagged with reason: expired or revoked.
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class TicketRevocationChecker {
+    private final boolean enabled;
+    private final Path file;
+    private final long clockSkewMillis;
+
+    private final Counter expired;
+    private final Counter revoked;
+
+    private volatile RevocationFilter filter = RevocationFilter.EMPTY;
+    private volatile FileVersion loadedVersion;
+
+    private final ScheduledExecutorService reloader;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    @Autowired
+    public TicketRevocationChecker(
+            @Value("${lush.security.revocation.enabled:false}") boolean enabled,
+            @Value("${lush.security.revocation.file:}") String file,
+            @Value("${lush.security.revocation.reload-interval:10s}") Duration reloadInterval,
+            @Value("${lush.security.expiry.clock-skew:30s}") Duration clockSkew,
+            MeterRegistry meterRegistry
+    ) {
+        if( enabled && file.isBlank() ) {
+            throw new LushException( "lush.security.revocation.file must be set when revocation is enabled" );
+        }
+
+        this.enabled = enabled;
+        this.file = enabled ? Path.of(file.trim()) : null;
+        this.clockSkewMillis = clockSkew.toMillis();
+
+        this.expired = counter(meterRegistry, "expired");
+        this.revoked = counter(meterRegistry, "revoked");
+
+        if( !enabled ) {
+            log.debug( "Lush :: TicketRevocationChecker revocation is disabled, clock-skew: {}", clockSkew );
+            this.reloader = null;
+            return;
+        }
+
+        reload();
+
+        this.reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lush-revocation-reloader");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, reloadInterval.toMillis());
+        reloader.scheduleWithFixedDelay(this::reload, interval, interval, TimeUnit.MILLISECONDS);
+
+        log.debug( "Lush :: TicketRevocationChecker file: {} reload-interval: {} clock-skew: {}", file, reloadInterval, clockSkew );
+    }
+
+    /**
+     * Check a ticket, counting it if it is rejected.
+     *
+     * @param ticket The ticket to check.
+     * @return true if the ticket has expired or has been revoked.
+     */
+    public boolean isRejected(LushTicket ticket) {
+        if( isExpired(ticket) ) {
+            increment(expired);
+            return true;
+        }
+        if( isRevoked(ticket) ) {
+            increment(revoked);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param ticket The ticket to check.
+     * @return true if the ticket's expiresAt (less the clock skew) has passed.
+     */
+    public boolean isExpired(LushTicket ticket) {
+        return ticket.isExpired(System.currentTimeMillis() - clockSkewMillis);
+    }
+
+    /**
+     * @param ticket The ticket to check.
+     * @return true if the ticket's id is in the revocation filter.
+     */
+    public boolean isRevoked(LushTicket ticket) {
+        String id = ticket.getId();
+        return id != null && filter.mightContain(id);
+    }
+
+    /**
+     * Map the revocation filter file if it has changed since it was last loaded.  This is called periodically, it
+     * only needs to be called directly to pick up a change immediately.
+     *
+     * @return true if a new filter was loaded.
+     */
+    public boolean reload() {
+        if( !enabled ) {
+            return false;
+        }
+
+        // a lock rather than synchronized, the file is read while it is held (a virtual thread would be pinned)
+        reloadLock.lock();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            FileVersion version = new FileVersion(attributes.fileKey(), attributes.lastModifiedTime().toMillis(), attributes.size());
+            if( version.equals(loadedVersion) ) {
+                return false;
+            }
+
+            RevocationFilter loaded = RevocationFilter.map(file);
+            filter = loaded;
+            loadedVersion = version;
+
+            log.info( "Lush :: Loaded revocation filter: {} bits: {} hashes: {}", file, loaded.getBitCount(), loaded.getHashes() );
+            return true;
+        }
+        catch (NoSuchFileException e) {
+            log.warn( "Lush :: Revocation filter: {} does not exist, keeping the current filter", file );
+        }
+        catch (IOException | LushException e) {
+            log.warn( "Lush :: Unable to load revocation filter: {}, keeping the current filter", file, e );
+        }
+        finally {
+            reloadLock.unlock();
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if( reloader != null ) {
+            reloader.shutdownNow();
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String reason) {
+        return registry == null ? null : Counter.builder("lush.ticket.rejected")
+                .description("Tickets rejected after they were decoded")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static void increment(Counter counter) {
+        if( counter != null ) {
+            counter.increment();
+        }
+    }
+
+    private record FileVersion(Object fileKey, long lastModified, long size) {
+        FileVersion {
+            fileKey = Objects.requireNonNullElse(fileKey, "");
+        }
+    }
+}
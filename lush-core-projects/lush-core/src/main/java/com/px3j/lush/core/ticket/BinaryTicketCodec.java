@@ -0,0 +1,471 @@
+package com.px3j.lush.core.ticket;
+
+import com.px3j.lush.core.authority.AuthorityRegistry;
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.json.LushJson;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact, versioned binary ticket format.  Compared to the JSON format there are no field names, authorities that
+ * appear in the authority code table are written as a single byte and extras are written with a one byte type tag
+ * rather than going through reflection.
+ * <br/><br/>
+ * Layout (all lengths/counts are unsigned varints, strings are length prefixed UTF-8):
+ * <pre>
+ *  magic (0xB7) | version | id | username | password | issuedAt | expiresAt (zigzag varlongs, version 2+)
+ *  authority count | authority code (0 = inline string follows, n = authorityCodes[n-1]) ...
+ *  extras count | key, tagged value ...
+ * </pre>
+ * Nullable strings are written as length + 1 so that 0 can represent null.  The magic byte can never start a UTF-8
+ * encoded JSON document which is how TicketSerializer tells the two formats apart.
+ * <br/><br/>
+ * Authority codes are positional, every service must be configured with the same table and new authorities must only
+ * ever be appended to it.  An authority that isn't in the table is still written, just inline.
+ * <br/><br/>
+ * Version 1 tickets (no issuedAt/expiresAt) are still accepted.
+ * <br/><br/>
+ * Extras support null, String, Boolean, integral numbers (decoded as Long), Float/Double (decoded as Double), List
+ * and Map.  Any other value is written as JSON (by LushJson) and decoded the same way the JSON format would decode it.
+ * <br/><br/>
+ * Extras are decoded lazily, decode() only checks the structure of each extra and records where it starts (see
+ * LazyExtra).  The decoded bytes are retained by the ticket until its extras are read.
+ */
+public class BinaryTicketCodec implements TicketCodec {
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final byte VERSION = 2;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_FALSE = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_LIST = 6;
+    private static final int TAG_MAP = 7;
+    private static final int TAG_JSON = 8;
+
+    private static final int MAX_DEPTH = 32;
+
+    private final Map<String,Integer> codesByAuthority;
+    private final SimpleGrantedAuthority[] authoritiesByCode;
+    private final LushJson lushJson;
+
+    public BinaryTicketCodec(List<String> authorityCodes, LushJson lushJson) {
+        this.lushJson = lushJson;
+        this.codesByAuthority = new HashMap<>();
+        this.authoritiesByCode = new SimpleGrantedAuthority[authorityCodes.size()];
+
+        for( int i = 0; i < authorityCodes.size(); i++ ) {
+            String authority = authorityCodes.get(i);
+            if( codesByAuthority.putIfAbsent(authority, i + 1) != null ) {
+                throw new LushException( "Duplicate authority in authority codes: " + authority );
+            }
+            authoritiesByCode[i] = AuthorityRegistry.intern(authority);
+        }
+    }
+
+    /**
+     * @param bytes Decrypted ticket bytes.
+     * @return true if the bytes are in this format.
+     */
+    public static boolean isBinary(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == MAGIC;
+    }
+
+    @Override
+    public byte[] encode(LushTicket ticket) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeNullableString(ticket.getId());
+        out.writeNullableString(ticket.getUsername());
+        out.writeNullableString(ticket.getPassword());
+        out.writeSignedVarlong(ticket.getIssuedAt());
+        out.writeSignedVarlong(ticket.getExpiresAt());
+
+        Collection<SimpleGrantedAuthority> authorities = ticket.getAuthorities();
+        if( authorities == null ) {
+            out.writeVarint(0);
+        }
+        else {
+            out.writeVarint(authorities.size());
+            for( SimpleGrantedAuthority authority : authorities ) {
+                Integer code = codesByAuthority.get(authority.getAuthority());
+                if( code != null ) {
+                    out.writeVarint(code);
+                }
+                else {
+                    out.writeVarint(0);
+                    out.writeString(authority.getAuthority());
+                }
+            }
+        }
+
+        Map<String,Object> extras = ticket.getExtras();
+        out.writeVarint(extras.size());
+        for( Map.Entry<String,Object> extra : extras.entrySet() ) {
+            out.writeString(extra.getKey());
+            writeValue(out, extra.getValue(), 0);
+        }
+
+        return out.toByteArray();
+    }
+
+    @Override
+    public LushTicket decode(byte[] bytes) {
+        try {
+            Reader in = new Reader(bytes);
+            if( in.readByte() != MAGIC ) {
+                throw new LushException( "Not a binary Lush ticket" );
+            }
+
+            int version = in.readByte();
+            if( version < 1 || version > VERSION ) {
+                throw new LushException( "Unsupported binary Lush ticket version: " + version );
+            }
+
+            LushTicket ticket = new LushTicket();
+            ticket.setId(in.readNullableString());
+            ticket.setUsername(in.readNullableString());
+            ticket.setPassword(in.readNullableString());
+            if( version >= 2 ) {
+                ticket.setIssuedAt(in.readSignedVarlong());
+                ticket.setExpiresAt(in.readSignedVarlong());
+            }
+
+            int authorityCount = in.readCount();
+            List<SimpleGrantedAuthority> authorities = new ArrayList<>(authorityCount);
+            for( int i = 0; i < authorityCount; i++ ) {
+                int code = in.readVarint();
+                if( code == 0 ) {
+                    authorities.add(AuthorityRegistry.intern(in.readString()));
+                }
+                else if( code <= authoritiesByCode.length ) {
+                    authorities.add(authoritiesByCode[code - 1]);
+                }
+                else {
+                    throw new LushException( "Unknown authority code: " + code );
+                }
+            }
+            ticket.setAuthorities(authorities);
+
+            int extrasCount = in.readCount();
+            if( extrasCount > 0 ) {
+                Map<String,Object> extras = new HashMap<>();
+                for( int i = 0; i < extrasCount; i++ ) {
+                    String key = in.readString();
+                    extras.put(key, new LazyExtra(new BinarySource(bytes, in.position)));
+                    skipValue(in, 0);
+                }
+                ticket.setExtras(extras);
+            }
+
+            if( in.position != bytes.length ) {
+                throw new LushException( "Unexpected trailing bytes in binary Lush ticket" );
+            }
+
+            return ticket;
+        }
+        catch (IndexOutOfBoundsException e) {
+            throw new LushException( "Truncated binary Lush ticket", e );
+        }
+    }
+
+    private void writeValue(Writer out, Object value, int depth) {
+        if( depth > MAX_DEPTH ) {
+            throw new LushException( "Ticket extras are nested too deeply" );
+        }
+
+        if( value == null ) {
+            out.writeVarint(TAG_NULL);
+        }
+        else if( value instanceof String s ) {
+            out.writeVarint(TAG_STRING);
+            out.writeString(s);
+        }
+        else if( value instanceof Boolean b ) {
+            out.writeVarint(b ? TAG_TRUE : TAG_FALSE);
+        }
+        else if( value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte ) {
+            out.writeVarint(TAG_LONG);
+            out.writeSignedVarlong(((Number) value).longValue());
+        }
+        else if( value instanceof Double || value instanceof Float ) {
+            out.writeVarint(TAG_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        }
+        else if( value instanceof List<?> list ) {
+            out.writeVarint(TAG_LIST);
+            out.writeVarint(list.size());
+            for( Object element : list ) {
+                writeValue(out, element, depth + 1);
+            }
+        }
+        else if( value instanceof Map<?,?> map ) {
+            out.writeVarint(TAG_MAP);
+            out.writeVarint(map.size());
+            for( Map.Entry<?,?> entry : map.entrySet() ) {
+                out.writeString(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue(), depth + 1);
+            }
+        }
+        else {
+            out.writeVarint(TAG_JSON);
+            out.writeString(lushJson.toJson(value));
+        }
+    }
+
+    private Object readValue(Reader in, int depth) {
+        if( depth > MAX_DEPTH ) {
+            throw new LushException( "Ticket extras are nested too deeply" );
+        }
+
+        int tag = in.readVarint();
+        switch( tag ) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return in.readString();
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_LONG:
+                return in.readSignedVarlong();
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case TAG_LIST: {
+                int size = in.readCount();
+                List<Object> list = new ArrayList<>(size);
+                for( int i = 0; i < size; i++ ) {
+                    list.add(readValue(in, depth + 1));
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                int size = in.readCount();
+                Map<String,Object> map = new LinkedHashMap<>();
+                for( int i = 0; i < size; i++ ) {
+                    map.put(in.readString(), readValue(in, depth + 1));
+                }
+                return map;
+            }
+            case TAG_JSON:
+                return lushJson.fromJson(in.readString(), Object.class);
+            default:
+                throw new LushException( "Unknown extra type tag in binary Lush ticket: " + tag );
+        }
+    }
+
+    private void skipValue(Reader in, int depth) {
+        if( depth > MAX_DEPTH ) {
+            throw new LushException( "Ticket extras are nested too deeply" );
+        }
+
+        int tag = in.readVarint();
+        switch( tag ) {
+            case TAG_NULL, TAG_TRUE, TAG_FALSE -> {
+            }
+            case TAG_STRING, TAG_JSON -> in.skip(in.readVarint());
+            case TAG_LONG -> in.readSignedVarlong();
+            case TAG_DOUBLE -> in.skip(8);
+            case TAG_LIST -> {
+                int size = in.readCount();
+                for( int i = 0; i < size; i++ ) {
+                    skipValue(in, depth + 1);
+                }
+            }
+            case TAG_MAP -> {
+                int size = in.readCount();
+                for( int i = 0; i < size; i++ ) {
+                    in.skip(in.readVarint());
+                    skipValue(in, depth + 1);
+                }
+            }
+            default -> throw new LushException( "Unknown extra type tag in binary Lush ticket: " + tag );
+        }
+    }
+
+    /**
+     * An extra in the decoded ticket bytes, decoded when first read.
+     */
+    private final class BinarySource implements LazyExtra.Source {
+        private final byte[] bytes;
+        private final int offset;
+
+        BinarySource(byte[] bytes, int offset) {
+            this.bytes = bytes;
+            this.offset = offset;
+        }
+
+        @Override
+        public Object decode() {
+            Reader in = new Reader(bytes);
+            in.position = offset;
+            return readValue(in, 0);
+        }
+
+        @Override
+        public <T> T decode(TicketExtra<T> extra) {
+            return extra.convert(decode(), lushJson);
+        }
+    }
+
+    /**
+     * Growable output buffer.
+     */
+    private static final class Writer {
+        private byte[] buffer = new byte[128];
+        private int position;
+
+        void writeByte(int b) {
+            ensure(1);
+            buffer[position++] = (byte) b;
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while( (value & ~0x7f) != 0 ) {
+                buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeSignedVarlong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while( (zigzag & ~0x7fL) != 0 ) {
+                buffer[position++] = (byte) ((zigzag & 0x7f) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for( int shift = 56; shift >= 0; shift -= 8 ) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeNullableString(String value) {
+            if( value == null ) {
+                writeVarint(0);
+                return;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int size) {
+            if( position + size > buffer.length ) {
+                buffer = Arrays.copyOf(buffer, Math.max(position + size, buffer.length * 2));
+            }
+        }
+    }
+
+    /**
+     * Bounds checked reader over the decrypted ticket bytes.
+     */
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() {
+            return buffer[position++];
+        }
+
+        int readVarint() {
+            int value = 0;
+            for( int shift = 0; shift < 35; shift += 7 ) {
+                int b = buffer[position++];
+                value |= (b & 0x7f) << shift;
+                if( (b & 0x80) == 0 ) {
+                    return value;
+                }
+            }
+            throw new LushException( "Malformed varint in binary Lush ticket" );
+        }
+
+        /**
+         * A count of elements that follow, each element is at least one byte so a count can never exceed the number
+         * of bytes remaining.
+         */
+        int readCount() {
+            int count = readVarint();
+            if( count < 0 || count > buffer.length - position ) {
+                throw new LushException( "Invalid element count in binary Lush ticket: " + count );
+            }
+            return count;
+        }
+
+        long readSignedVarlong() {
+            long value = 0;
+            for( int shift = 0; shift < 70; shift += 7 ) {
+                long b = buffer[position++];
+                value |= (b & 0x7f) << shift;
+                if( (b & 0x80) == 0 ) {
+                    return (value >>> 1) ^ -(value & 1);
+                }
+            }
+            throw new LushException( "Malformed varint in binary Lush ticket" );
+        }
+
+        long readLong() {
+            long value = 0;
+            for( int i = 0; i < 8; i++ ) {
+                value = (value << 8) | (buffer[position++] & 0xff);
+            }
+            return value;
+        }
+
+        String readString() {
+            return readString(readVarint());
+        }
+
+        void skip(int length) {
+            if( length < 0 || length > buffer.length - position ) {
+                throw new LushException( "Invalid length in binary Lush ticket: " + length );
+            }
+            position += length;
+        }
+
+        String readNullableString() {
+            int length = readVarint();
+            return length == 0 ? null : readString(length - 1);
+        }
+
+        private String readString(int length) {
+            if( length < 0 || length > buffer.length - position ) {
+                throw new LushException( "Invalid string length in binary Lush ticket: " + length );
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
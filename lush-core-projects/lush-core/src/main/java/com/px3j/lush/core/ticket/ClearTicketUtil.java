@@ -1,7 +1,8 @@
 package com.px3j.lush.core.ticket;
 
-import com.google.gson.Gson;
+import com.px3j.lush.core.json.LushJson;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
@@ -15,17 +16,21 @@ import org.springframework.stereotype.Component;
 @Profile("clear-ticket")
 @Slf4j( topic = "lush.core.debug")
 public class ClearTicketUtil implements TicketUtil {
-    public ClearTicketUtil() {
+    private final LushJson lushJson;
+
+    @Autowired
+    public ClearTicketUtil(LushJson lushJson) {
+        this.lushJson = lushJson;
         log.debug( "Using ClearTicketUtil");
     }
 
     @Override
     public String encrypt(LushTicket ticket) {
-        return new Gson().toJson(ticket);
+        return lushJson.toJson(ticket);
     }
 
     @Override
     public LushTicket decrypt(String encryptedJson) {
-        return new Gson().fromJson( encryptedJson, LushTicket.class );
+        return lushJson.fromJson( encryptedJson, LushTicket.class );
     }
 }
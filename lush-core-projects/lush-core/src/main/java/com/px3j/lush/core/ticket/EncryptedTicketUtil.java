@@ -1,37 +1,34 @@
 package com.px3j.lush.core.ticket;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.px3j.lush.core.util.CryptoHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 /**
- * Default implementation of TicketUtil.  Encryption/decryption is done using the Crypto helper from Lush Core.
+ * Default implementation of TicketUtil.  Encryption/decryption is done using the Crypto helper from Lush Core, the
+ * ticket is serialized in the format configured by lush.ticket.format (JSON or binary, both are always accepted).
  *
  * @see CryptoHelper
+ * @see TicketSerializer
  */
 @Component
-@Profile("!clear-ticket")
+@Profile("!clear-ticket & !signed-ticket")
 public class EncryptedTicketUtil implements TicketUtil {
     private final CryptoHelper cryptoHelper;
-
-    private final Gson gson;
+    private final TicketSerializer ticketSerializer;
 
     @Autowired
-    public EncryptedTicketUtil(CryptoHelper cryptoHelper) {
+    public EncryptedTicketUtil(CryptoHelper cryptoHelper, TicketSerializer ticketSerializer) {
         this.cryptoHelper = cryptoHelper;
-        this.gson = new GsonBuilder().create();
+        this.ticketSerializer = ticketSerializer;
     }
 
     public String encrypt( LushTicket ticket) {
-        String asJson = gson.toJson(ticket, LushTicket.class);
-        return cryptoHelper.encrypt(asJson);
+        return cryptoHelper.encryptToBase64(ticketSerializer.serialize(ticket));
     }
 
     public LushTicket decrypt(final String encryptedJson ) {
-        String decryptedJson = cryptoHelper.decrypt(encryptedJson);
-        return gson.fromJson( decryptedJson, LushTicket.class);
+        return ticketSerializer.deserialize(cryptoHelper.decryptFromBase64(encryptedJson));
     }
 }
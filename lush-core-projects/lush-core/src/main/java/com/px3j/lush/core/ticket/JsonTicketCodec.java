@@ -0,0 +1,26 @@
+package com.px3j.lush.core.ticket;
+
+import com.px3j.lush.core.json.LushJson;
+
+/**
+ * The original Lush ticket format, a LushTicket marshalled to JSON (UTF-8).
+ *
+ * @see LushJson
+ */
+public class JsonTicketCodec implements TicketCodec {
+    private final LushJson lushJson;
+
+    public JsonTicketCodec(LushJson lushJson) {
+        this.lushJson = lushJson;
+    }
+
+    @Override
+    public byte[] encode(LushTicket ticket) {
+        return lushJson.toJsonBytes(ticket);
+    }
+
+    @Override
+    public LushTicket decode(byte[] bytes) {
+        return lushJson.fromJson(bytes, LushTicket.class);
+    }
+}
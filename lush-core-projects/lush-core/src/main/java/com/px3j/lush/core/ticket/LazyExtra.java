@@ -0,0 +1,131 @@
+package com.px3j.lush.core.ticket;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * An extra that is held in its encoded form until it is first read.  Ticket codecs put these into a LushTicket's
+ * extras so that decoding a ticket only pays for the identity fields (id, username, authorities), most endpoints
+ * never look at the extras.
+ * <br/><br/>
+ * The decoded value (and the last typed value, see TicketExtra) is memoized.  Decoding is idempotent so concurrent
+ * first reads of a shared (frozen) ticket are safe, at worst the value is decoded more than once.  The decoded value
+ * of a frozen extra is made unmodifiable.  A typed value can't be (it may be any type), so a frozen extra only
+ * memoizes typed values of immutable types (String, Boolean, boxed numbers, enums), any other type is decoded again
+ * on each read so changes to it can't leak into other requests sharing the ticket (see TicketCache).
+ * <br/><br/>
+ * LushTicket::toMutable gives each request's working ticket its own extra (see {@link #toMutable()}) which shares
+ * the frozen extra's decoded value and memoizes typed values for the request.
+ */
+public final class LazyExtra implements Serializable {
+    private static final Object UNSET = new Object();
+
+    /**
+     * The encoded form of an extra.
+     */
+    public interface Source {
+        /**
+         * @return The extra decoded to the generic representation (String, Boolean, Number, Map, List).
+         */
+        Object decode();
+
+        /**
+         * @return The extra decoded straight to the type of the passed in TicketExtra, by the codec that encoded it.
+         */
+        <T> T decode(TicketExtra<T> extra);
+    }
+
+    private final transient Source source;
+    private final boolean frozen;
+    private final transient LazyExtra shared;
+
+    private transient volatile Object value = UNSET;
+    private transient volatile Typed typed;
+
+    public LazyExtra(Source source) {
+        this(source, false, null);
+    }
+
+    private LazyExtra(Source source, boolean frozen, LazyExtra shared) {
+        this.source = source;
+        this.frozen = frozen;
+        this.shared = shared;
+    }
+
+    /**
+     * @return The decoded value.
+     */
+    public Object get() {
+        if( shared != null ) {
+            return shared.get();
+        }
+
+        Object v = value;
+        if( v == UNSET ) {
+            v = source.decode();
+            if( frozen ) {
+                v = LushTicket.freeze(v);
+            }
+            value = v;
+        }
+        return v;
+    }
+
+    /**
+     * @return The value as the type of the passed in TicketExtra, for a frozen extra a new copy on each call unless
+     * the type is immutable.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(TicketExtra<T> extra) {
+        if( frozen && !extra.isImmutable() ) {
+            return source.decode(extra);
+        }
+
+        Typed t = typed;
+        if( t != null && t.extra == extra ) {
+            return (T) t.value;
+        }
+
+        T result = source.decode(extra);
+        typed = new Typed(extra, result);
+        return result;
+    }
+
+    /**
+     * @return true if this extra has been decoded.
+     */
+    public boolean isDecoded() {
+        return shared != null ? shared.isDecoded() : value != UNSET;
+    }
+
+    /**
+     * @return An extra sharing the same encoded form whose decoded value is frozen (see LushTicket::toImmutable).
+     */
+    LazyExtra toImmutable() {
+        if( frozen ) {
+            return this;
+        }
+        return shared != null ? shared : new LazyExtra(source, true, null);
+    }
+
+    /**
+     * @return For a frozen extra, an extra for one request's working ticket (see LushTicket::toMutable) that shares
+     * the frozen decoded value and memoizes its own typed values, otherwise this extra.
+     */
+    LazyExtra toMutable() {
+        return frozen ? new LazyExtra(source, false, this) : this;
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return get();
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+
+    private record Typed(TicketExtra<?> extra, Object value) {
+    }
+}
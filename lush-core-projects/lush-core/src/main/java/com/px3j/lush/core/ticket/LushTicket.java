@@ -1,9 +1,9 @@
 package com.px3j.lush.core.ticket;
 
+import com.px3j.lush.core.authority.AuthoritySet;
+import com.px3j.lush.core.exception.LushException;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.ToString;
-import org.springframework.beans.BeanUtils;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.io.Serializable;
@@ -13,24 +13,45 @@ import java.util.*;
  * LushTicket allows access to a Lush protected service.  Typically, the ticket will be generated by a service that
  * will create it based on a token (ie: JWT).  Once the ticket is obtained, it can be used to access any Lush
  * protected service.
+ * <br/><br/>
+ * A ticket can be frozen via {@link #toImmutable()}, any attempt to modify a frozen ticket results in a
+ * LushException.  Lush freezes the tickets that it decodes from the request so that they can be safely shared.
+ * {@link #toMutable()} creates a modifiable copy that tracks whether it has been changed (see {@link #isModified()}),
+ * which is what controllers are given so the inbound ticket header can be forwarded as-is when it hasn't changed.
+ * <br/><br/>
+ * issuedAt/expiresAt are epoch milliseconds, 0 when not set.  A ticket without expiresAt never expires.
+ * <br/><br/>
+ * Extras may be decoded lazily, the ticket codecs hold each extra in its encoded form (see LazyExtra) until it is
+ * first read via getExtras()/getExtra().  Use TicketExtra for typed access to an extra.
  */
 @ToString
 public class LushTicket implements Serializable {
     @Getter
-    @Setter
     private String id;
     @Getter
-    @Setter
     private String username;
     @Getter
-    @Setter
     private String password;
     @Getter
-    @Setter
     private Collection<SimpleGrantedAuthority> authorities = new ArrayList<>();
+    @Getter
+    private long issuedAt;
+    @Getter
+    private long expiresAt;
 
     private final Map<String,Object> extras = new HashMap<>();
 
+    @ToString.Exclude
+    @Getter
+    private transient boolean immutable = false;
+
+    @ToString.Exclude
+    private transient volatile AuthoritySet authoritySet;
+
+    @ToString.Exclude
+    @Getter
+    private transient boolean modified = false;
+
     public LushTicket() {
         this.id = null;
         this.username = "unknown";
@@ -49,11 +70,135 @@ public class LushTicket implements Serializable {
      * @param other The source to copy values from.
      */
     public void populateFrom( LushTicket other ) {
-        BeanUtils.copyProperties( other, this );
+        checkMutable();
+        this.id = other.id;
+        this.username = other.username;
+        this.password = other.password;
+        this.authorities = other.authorities;
+        this.issuedAt = other.issuedAt;
+        this.expiresAt = other.expiresAt;
+        this.extras.putAll( other.extras );
+    }
+
+    /**
+     * Create a frozen copy of this ticket.  The copy (including any nested maps/lists held in extras) cannot be
+     * modified, which makes it safe to share across requests.
+     *
+     * @return A frozen copy of this ticket, or this ticket if it is already frozen.
+     */
+    public LushTicket toImmutable() {
+        if( immutable ) {
+            return this;
+        }
+
+        LushTicket copy = new LushTicket();
+        copy.id = id;
+        copy.username = username;
+        copy.password = password;
+        copy.authorities = authorities == null ? List.of() : List.copyOf(authorities);
+        copy.issuedAt = issuedAt;
+        copy.expiresAt = expiresAt;
+        extras.forEach( (k,v) -> copy.extras.put(k, v instanceof LazyExtra lazy ? lazy.toImmutable() : freeze(v)) );
+        copy.immutable = true;
+
+        return copy;
+    }
+
+    /**
+     * Create a modifiable copy of this ticket, the copy starts out unmodified.  Nested maps/lists held in the extras of
+     * a frozen ticket remain frozen, replace them via putExtra() to change them.  Lazily decoded extras of a frozen
+     * ticket are shared, typed reads of them are memoized in the copy (see LazyExtra::toMutable).
+     *
+     * @return A mutable copy of this ticket.
+     */
+    public LushTicket toMutable() {
+        LushTicket copy = new LushTicket();
+        copy.populateFrom(this);
+        copy.extras.replaceAll( (k,v) -> v instanceof LazyExtra lazy ? lazy.toMutable() : v );
+        copy.modified = false;
+        return copy;
+    }
+
+    /**
+     * The authorities of this ticket as a bitset (see AuthorityRegistry), authority checks are then bit tests.  This
+     * is computed once for a frozen ticket.
+     *
+     * @return The AuthoritySet for this ticket.
+     */
+    public AuthoritySet getAuthoritySet() {
+        if( !immutable ) {
+            return AuthoritySet.of(authorities);
+        }
+
+        AuthoritySet set = authoritySet;
+        if( set == null ) {
+            set = AuthoritySet.of(authorities);
+            authoritySet = set;
+        }
+        return set;
+    }
+
+    public void setId(String id) {
+        checkMutable();
+        this.id = id;
+    }
+
+    public void setUsername(String username) {
+        checkMutable();
+        this.username = username;
+    }
+
+    public void setPassword(String password) {
+        checkMutable();
+        this.password = password;
+    }
+
+    public void setAuthorities(Collection<SimpleGrantedAuthority> authorities) {
+        checkMutable();
+        this.authorities = authorities;
+    }
+
+    public void setIssuedAt(long issuedAt) {
+        checkMutable();
+        this.issuedAt = issuedAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        checkMutable();
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @param now The current time in epoch milliseconds.
+     * @return true if this ticket has an expiry that is before now.
+     */
+    public boolean isExpired(long now) {
+        return expiresAt != 0 && expiresAt <= now;
     }
 
     public Map<String, Object> getExtras() {
-        return Collections.unmodifiableMap(extras);
+        return new ExtrasView();
+    }
+
+    /**
+     * Get a single extra, only that extra is decoded.
+     *
+     * @param key The key of the extra.
+     * @return The value of the extra or null if it isn't present.
+     */
+    public Object getExtra(final String key) {
+        return unwrap( extras.get(key) );
+    }
+
+    /**
+     * Get a single extra as the type of the passed in TicketExtra.
+     *
+     * @param extra The typed key of the extra.
+     * @return The value of the extra or null if it isn't present.
+     */
+    public <T> T getExtra(final TicketExtra<T> extra) {
+        Object value = extras.get( extra.getKey() );
+        return value instanceof LazyExtra lazy ? lazy.get(extra) : extra.convert(value);
     }
 
     /**
@@ -63,6 +208,7 @@ public class LushTicket implements Serializable {
      * @param extras Map of extras to set, note that this will replace any extras that already exist.
      */
     public void setExtras( Map<String,Object> extras ) {
+        checkMutable();
         this.extras.putAll( extras );
     }
 
@@ -73,6 +219,79 @@ public class LushTicket implements Serializable {
      * @param value The value of the extra.
      */
     public void putExtra(final String key, final Object value ) {
+        checkMutable();
         this.extras.put( key, value );
     }
+
+    private void checkMutable() {
+        if( immutable ) {
+            throw new LushException( "LushTicket for user: " + username + " is immutable and cannot be modified" );
+        }
+        modified = true;
+    }
+
+    private static Object unwrap(Object value) {
+        return value instanceof LazyExtra lazy ? lazy.get() : value;
+    }
+
+    static Object freeze(Object value) {
+        if( value instanceof Map<?,?> m ) {
+            Map<Object,Object> frozen = new LinkedHashMap<>();
+            m.forEach( (k,v) -> frozen.put(k, freeze(v)) );
+            return Collections.unmodifiableMap(frozen);
+        }
+        if( value instanceof List<?> l ) {
+            List<Object> frozen = new ArrayList<>(l.size());
+            l.forEach( v -> frozen.add(freeze(v)) );
+            return Collections.unmodifiableList(frozen);
+        }
+        return value;
+    }
+
+    /**
+     * Read only view of extras that decodes each LazyExtra as it is read.
+     */
+    private final class ExtrasView extends AbstractMap<String,Object> {
+        @Override
+        public int size() {
+            return extras.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return extras.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            return unwrap( extras.get(key) );
+        }
+
+        @Override
+        public Set<Entry<String,Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return extras.size();
+                }
+
+                @Override
+                public Iterator<Entry<String,Object>> iterator() {
+                    Iterator<Entry<String,Object>> entries = extras.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String,Object> next() {
+                            Entry<String,Object> entry = entries.next();
+                            return new SimpleImmutableEntry<>( entry.getKey(), unwrap(entry.getValue()) );
+                        }
+                    };
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package com.px3j.lush.core.ticket;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.util.HmacHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Implementation of TicketUtil for tickets that don't carry anything secret.  The ticket is readable (not encrypted)
+ * but signed, so it can't be forged or modified:
+ * <pre>
+ *  base64url(serialized ticket) + "." + base64url(HMAC-SHA256 of the text before the ".")
+ * </pre>
+ * The MAC is checked (in constant time) over the raw header bytes before anything is decoded or parsed, so a forged
+ * ticket costs one HMAC.  Use {@link #verify(String)} when only the signature needs to be checked.
+ * <br/><br/>
+ * Anyone holding the header can read the ticket: its username, authorities and extras.  Don't put anything secret in
+ * the extras of a signed ticket, a ticket with a password is rejected by encrypt().
+ * <br/><br/>
+ * Only active if <b>signed-ticket</b> is one of the active Spring profiles.  The ticket is serialized in the format
+ * configured by lush.ticket.format.
+ *
+ * @see HmacHelper
+ * @see TicketSerializer
+ */
+@Component
+@Profile("signed-ticket")
+@Slf4j(topic = "lush.core.debug")
+public class SignedTicketUtil implements TicketUtil {
+    private static final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder decoder = Base64.getUrlDecoder();
+
+    private final HmacHelper hmacHelper;
+    private final TicketSerializer ticketSerializer;
+
+    @Autowired
+    public SignedTicketUtil(HmacHelper hmacHelper, TicketSerializer ticketSerializer) {
+        this.hmacHelper = hmacHelper;
+        this.ticketSerializer = ticketSerializer;
+        log.debug( "Using SignedTicketUtil" );
+    }
+
+    /**
+     * Sign the passed in ticket.
+     *
+     * @param ticket The ticket to sign.
+     * @return The value of the Lush ticket header.
+     * @throws LushException if the ticket has a password, it would be readable in the header.
+     */
+    @Override
+    public String encrypt(LushTicket ticket) {
+        if( ticket.getPassword() != null && !ticket.getPassword().isEmpty() ) {
+            throw new LushException( "A signed Lush ticket is readable, it can't carry a password" );
+        }
+
+        byte[] payload = encoder.encode(ticketSerializer.serialize(ticket));
+        byte[] mac = encoder.encode(hmacHelper.sign(payload, 0, payload.length));
+
+        byte[] signed = new byte[payload.length + 1 + mac.length];
+        System.arraycopy(payload, 0, signed, 0, payload.length);
+        signed[payload.length] = '.';
+        System.arraycopy(mac, 0, signed, payload.length + 1, mac.length);
+
+        return new String(signed, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public LushTicket decrypt(String signedTicket) {
+        byte[] raw = signedTicket.getBytes(StandardCharsets.ISO_8859_1);
+        int separator = verifiedSeparator(raw);
+        if( separator < 0 ) {
+            throw new LushException( "Invalid Lush ticket signature" );
+        }
+
+        return ticketSerializer.deserialize(decoder.decode(Arrays.copyOfRange(raw, 0, separator)));
+    }
+
+    /**
+     * Check the signature of a ticket without decoding it.
+     *
+     * @param signedTicket The value of the Lush ticket header.
+     * @return true if the ticket was signed with our key.
+     */
+    public boolean verify(String signedTicket) {
+        return verifiedSeparator(signedTicket.getBytes(StandardCharsets.ISO_8859_1)) >= 0;
+    }
+
+    /**
+     * @return The index of the "." separating payload and MAC if the MAC is valid, otherwise -1.
+     */
+    private int verifiedSeparator(byte[] raw) {
+        int separator = -1;
+        for( int i = raw.length - 1; i >= 0; i-- ) {
+            if( raw[i] == '.' ) {
+                separator = i;
+                break;
+            }
+        }
+        if( separator <= 0 ) {
+            return -1;
+        }
+
+        byte[] mac;
+        try {
+            mac = decoder.decode(Arrays.copyOfRange(raw, separator + 1, raw.length));
+        }
+        catch (IllegalArgumentException e) {
+            return -1;
+        }
+
+        return hmacHelper.verify(raw, 0, separator, mac) ? separator : -1;
+    }
+}
@@ -0,0 +1,116 @@
+package com.px3j.lush.core.ticket;
+
+import com.px3j.lush.core.exception.LushException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Batch versions of TicketUtil::encrypt/decrypt for services that mint or verify many tickets at once (ie: token
+ * exchange at a login spike, bulk verification in a gateway).
+ * <br/><br/>
+ * The batch is split into chunks and each chunk is processed on one thread, so per-thread state (see CryptoHelper)
+ * is set up once per chunk rather than once per ticket.  A failure only affects its own item, every item gets a
+ * TicketResult in the same position as its input.  Configured via the following properties:
+ * <pre>
+ *  lush.ticket.batch.executor - fork-join (default) or virtual (a virtual thread per chunk)
+ *  lush.ticket.batch.parallelism - fork-join pool size, 0 (default) means the number of available processors
+ *  lush.ticket.batch.chunk-size - number of tickets processed per task, defaults to 64
+ * </pre>
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class TicketBatch {
+    private final TicketUtil ticketUtil;
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    @Autowired
+    public TicketBatch(
+            TicketUtil ticketUtil,
+            @Value("${lush.ticket.batch.executor:fork-join}") String executor,
+            @Value("${lush.ticket.batch.parallelism:0}") int parallelism,
+            @Value("${lush.ticket.batch.chunk-size:64}") int chunkSize
+    ) {
+        if( chunkSize < 1 ) {
+            throw new LushException( "lush.ticket.batch.chunk-size must be at least 1" );
+        }
+
+        this.ticketUtil = ticketUtil;
+        this.chunkSize = chunkSize;
+        this.executor = switch( executor.trim().toLowerCase() ) {
+            case "fork-join" -> new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+            case "virtual" -> Executors.newVirtualThreadPerTaskExecutor();
+            default -> throw new LushException( "Invalid lush.ticket.batch.executor: " + executor + " (expected fork-join or virtual)" );
+        };
+
+        log.debug( "Lush :: TicketBatch executor: {} parallelism: {} chunk-size: {}", executor, parallelism, chunkSize );
+    }
+
+    /**
+     * Encrypt each of the passed in tickets.
+     *
+     * @param tickets The tickets to encrypt.
+     * @return One result per ticket, in the same order.
+     */
+    public List<TicketResult<String>> encryptAll(List<LushTicket> tickets) {
+        return runAll(tickets, ticketUtil::encrypt);
+    }
+
+    /**
+     * Decrypt each of the passed in tickets.
+     *
+     * @param encryptedTickets The encrypted tickets (ie: values of the Lush ticket header).
+     * @return One result per ticket, in the same order.
+     */
+    public List<TicketResult<LushTicket>> decryptAll(List<String> encryptedTickets) {
+        return runAll(encryptedTickets, ticketUtil::decrypt);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <I,O> List<TicketResult<O>> runAll(List<I> items, Function<I,O> operation) {
+        @SuppressWarnings("unchecked")
+        TicketResult<O>[] results = new TicketResult[items.size()];
+
+        if( items.size() <= chunkSize ) {
+            runChunk(items, 0, items.size(), operation, results);
+            return Arrays.asList(results);
+        }
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>((items.size() + chunkSize - 1) / chunkSize);
+        for( int from = 0; from < items.size(); from += chunkSize ) {
+            final int start = from;
+            final int end = Math.min(from + chunkSize, items.size());
+            chunks.add(CompletableFuture.runAsync(() -> runChunk(items, start, end, operation, results), executor));
+        }
+
+        CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+        return Arrays.asList(results);
+    }
+
+    private static <I,O> void runChunk(List<I> items, int from, int to, Function<I,O> operation, TicketResult<O>[] results) {
+        for( int i = from; i < to; i++ ) {
+            try {
+                results[i] = TicketResult.success(operation.apply(items.get(i)));
+            }
+            catch (RuntimeException e) {
+                results[i] = TicketResult.failure(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.px3j.lush.core.ticket;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.util.PerThread;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Bounded cache of decoded LushTickets that sits in front of TicketUtil::decrypt.  Callers tend to resend the same
+ * ticket many times, this avoids decoding/decrypting/parsing it on every request.
+ * <br/><br/>
+ * Entries are keyed by a SHA-256 hash of the raw ticket header (the raw ticket is never retained) and the cached
+ * tickets are frozen (see LushTicket::toImmutable) so that one request can't leak changes into another.  The cache
+ * is configured via the following properties:
+ * <pre>
+ *  lush.security.ticket-cache.enabled - set to false to decode the ticket on every request
+ *  lush.security.ticket-cache.maximum-size - maximum number of tickets to hold
+ *  lush.security.ticket-cache.expire-after-write - how long a decoded ticket is held (ISO-8601 or 10m style duration)
+ *  lush.security.ticket-cache.expire-after-access - evict tickets that haven't been used for this long
+ * </pre>
+ *
+ * Hit/miss/eviction metrics are published to Micrometer with the tag: cache=lush.ticket-cache
+ *
+ * @author Paul Parrone
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class TicketCache {
+    public static final String CACHE_NAME = "lush.ticket-cache";
+
+    private static final PerThread<MessageDigest> digests = new PerThread<>(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new LushException("SHA-256 is not available", e);
+        }
+    });
+
+    private final TicketUtil ticketUtil;
+    private final Cache<Key, LushTicket> cache;
+
+    @Autowired
+    public TicketCache(
+            TicketUtil ticketUtil,
+            MeterRegistry meterRegistry,
+            @Value("${lush.security.ticket-cache.enabled:true}") boolean enabled,
+            @Value("${lush.security.ticket-cache.maximum-size:10000}") long maximumSize,
+            @Value("${lush.security.ticket-cache.expire-after-write:10m}") Duration expireAfterWrite,
+            @Value("${lush.security.ticket-cache.expire-after-access:0s}") Duration expireAfterAccess
+    ) {
+        this.ticketUtil = ticketUtil;
+
+        if( !enabled ) {
+            log.debug( "Lush :: TicketCache is disabled" );
+            this.cache = null;
+            return;
+        }
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats();
+
+        if( !expireAfterAccess.isZero() ) {
+            builder.expireAfterAccess(expireAfterAccess);
+        }
+
+        this.cache = builder.build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        log.debug( "Lush :: TicketCache maximum-size: {} expire-after-write: {} expire-after-access: {}",
+                maximumSize, expireAfterWrite, expireAfterAccess );
+    }
+
+    /**
+     * Decode the passed in ticket header, returning a cached ticket if this header has been seen recently.  Any
+     * exceptions thrown by TicketUtil::decrypt are propagated and nothing is cached for the header.
+     *
+     * @param ticketHeader The raw value of the Lush ticket header.
+     * @return A frozen LushTicket.
+     */
+    public LushTicket decrypt(final String ticketHeader) {
+        if( cache == null ) {
+            return ticketUtil.decrypt(ticketHeader).toImmutable();
+        }
+
+        return cache.get( keyFor(ticketHeader), k -> ticketUtil.decrypt(ticketHeader).toImmutable() );
+    }
+
+    /**
+     * Discard all cached tickets.
+     */
+    public void invalidateAll() {
+        if( cache != null ) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static Key keyFor(String ticketHeader) {
+        MessageDigest digest = digests.acquire();
+        try {
+            return new Key(digest.digest(ticketHeader.getBytes(StandardCharsets.UTF_8)));
+        }
+        finally {
+            digests.release(digest);
+        }
+    }
+
+    /**
+     * Cache key wrapping the digest of a ticket header.
+     */
+    private static final class Key {
+        private final byte[] digest;
+        private final int hash;
+
+        private Key(byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
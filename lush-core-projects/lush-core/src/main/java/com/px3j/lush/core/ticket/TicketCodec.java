@@ -0,0 +1,13 @@
+package com.px3j.lush.core.ticket;
+
+/**
+ * Converts a LushTicket to/from the bytes that are carried (encrypted) in the Lush ticket header.
+ *
+ * @see TicketSerializer
+ */
+public interface TicketCodec {
+
+    byte[] encode( LushTicket ticket );
+
+    LushTicket decode( final byte[] bytes );
+}
@@ -0,0 +1,269 @@
+package com.px3j.lush.core.ticket;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.util.PerThread;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Optional compression of serialized tickets before they are encrypted/signed, for tickets that carry large extras.
+ * Tickets are compressed using deflate with a preset dictionary of the keys and values expected in typical JSON
+ * and binary tickets (hand-written, see DICTIONARY), so even small tickets compress.  Configured via the following properties:
+ * <pre>
+ *  lush.ticket.compression.enabled - compress tickets when writing them, defaults to false
+ *  lush.ticket.compression.threshold - only tickets of at least this many bytes are compressed, defaults to 256
+ *  lush.ticket.compression.level - deflate level (1-9), defaults to 6
+ *  lush.ticket.compression.metrics - publish compression metrics, defaults to true
+ * </pre>
+ *
+ * A compressed ticket starts with a flag byte (which can't start a JSON or binary ticket) so compressed and
+ * uncompressed tickets are always accepted, whether compression is enabled or not.  As with lush.ticket.format,
+ * deploy every service before enabling compression.
+ * <pre>
+ *  0xC7 | dictionary id | varint uncompressed length | raw deflate stream
+ * </pre>
+ *
+ * When enabled the following metrics are published:
+ * <pre>
+ *  lush.ticket.compression.ratio - uncompressed size / compressed size of compressed tickets
+ *  lush.ticket.compression - tickets written, tagged with result: compressed, below-threshold or no-gain
+ * </pre>
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class TicketCompressor {
+    public static final byte FLAG = (byte) 0xC7;
+    public static final byte DICTIONARY_ID = 1;
+
+    static final int MAX_LENGTH = 256 * 1024;
+
+    /**
+     * Fragments expected in typical tickets, deflate prefers matches that are closer so the most common fragments are
+     * at the end.  This dictionary is hand-written from the ticket's own JSON structure and common extra keys/values,
+     * it was not trained on a corpus of real tickets (there is none to train on).  Once real tickets are available a
+     * dictionary trained on them (ie: the most frequent substrings of a sample) should be added with a new id.  Never
+     * change this one, add a new dictionary (with a new id) instead.
+     */
+    private static final byte[] DICTIONARY = String.join("",
+            "\"true\"false\"null\"0\"1\"en-US\"en\"UTC\"America/New_York\"Europe/London\"",
+            "\"enabled\":true,\"enabled\":false,\"features\":{\"flags\":[\"permissions\":[\"groups\":[\"roles\":[",
+            "\"locale\":\"timezone\":\"email\":\"displayName\":\"firstName\":\"lastName\":\"department\":",
+            "\"organization\":\"orgId\":\"tenantId\":\"tenant\":\"region\":\"us-east-1\"us-west-2\"eu-west-1\"",
+            "\"preferences\":{\"theme\":\"dark\",\"theme\":\"light\",\"pageSize\":",
+            "{\"role\":\"admin\"},{\"role\":\"lush-monitor\"}],{\"role\":\"user\"}",
+            "{\"id\":\"\",\"username\":\"\",\"password\":\"\",\"authorities\":[{\"role\":\"user\"},\"extras\":{\""
+    ).getBytes(StandardCharsets.UTF_8);
+
+    @Getter
+    private final boolean enabled;
+    @Getter
+    private final int threshold;
+
+    private final PerThread<Deflater> deflater;
+    private final PerThread<Inflater> inflater = new PerThread<>(() -> new Inflater(true));
+
+    private final DistributionSummary ratio;
+    private final Counter compressed;
+    private final Counter belowThreshold;
+    private final Counter noGain;
+
+    @Autowired
+    public TicketCompressor(
+            @Value("${lush.ticket.compression.enabled:false}") boolean enabled,
+            @Value("${lush.ticket.compression.threshold:256}") int threshold,
+            @Value("${lush.ticket.compression.level:6}") int level,
+            @Value("${lush.ticket.compression.metrics:true}") boolean metrics,
+            MeterRegistry meterRegistry
+    ) {
+        if( level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION ) {
+            throw new LushException( "Invalid lush.ticket.compression.level: " + level + " (expected 1-9)" );
+        }
+
+        this.enabled = enabled;
+        this.threshold = Math.max(0, threshold);
+        this.deflater = new PerThread<>(() -> new Deflater(level, true));
+
+        boolean publish = enabled && metrics && meterRegistry != null;
+        this.ratio = publish ? DistributionSummary.builder("lush.ticket.compression.ratio")
+                .description("Uncompressed size / compressed size of compressed tickets")
+                .register(meterRegistry) : null;
+        this.compressed = publish ? counter(meterRegistry, "compressed") : null;
+        this.belowThreshold = publish ? counter(meterRegistry, "below-threshold") : null;
+        this.noGain = publish ? counter(meterRegistry, "no-gain") : null;
+
+        log.debug( "Lush :: TicketCompressor enabled: {} threshold: {} level: {}", enabled, this.threshold, level );
+    }
+
+    /**
+     * A TicketCompressor that never compresses (compressed tickets are still accepted).
+     */
+    public static TicketCompressor disabled() {
+        return new TicketCompressor(false, 0, 6, false, null);
+    }
+
+    /**
+     * @param bytes A decrypted ticket.
+     * @return true if the ticket is compressed.
+     */
+    public static boolean isCompressed(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == FLAG;
+    }
+
+    /**
+     * Compress a serialized ticket if compression is enabled, it is at least threshold bytes and compressing it
+     * makes it smaller, otherwise the passed in bytes are returned.
+     *
+     * @param bytes A serialized ticket.
+     * @return The possibly compressed ticket.
+     */
+    public byte[] compress(byte[] bytes) {
+        if( !enabled ) {
+            return bytes;
+        }
+
+        if( bytes.length < Math.max(threshold, 8) || bytes.length > MAX_LENGTH ) {
+            increment(belowThreshold);
+            return bytes;
+        }
+
+        Deflater d = deflater.acquire();
+        try {
+            return deflate(d, bytes);
+        }
+        finally {
+            deflater.release(d);
+        }
+    }
+
+    private byte[] deflate(Deflater d, byte[] bytes) {
+        d.reset();
+        d.setDictionary(DICTIONARY);
+        d.setInput(bytes);
+        d.finish();
+
+        // anything larger than the input is of no use
+        byte[] out = new byte[bytes.length];
+        int position = 0;
+        out[position++] = FLAG;
+        out[position++] = DICTIONARY_ID;
+        for( int length = bytes.length; ; length >>>= 7 ) {
+            if( (length & ~0x7F) == 0 ) {
+                out[position++] = (byte) length;
+                break;
+            }
+            out[position++] = (byte) ((length & 0x7F) | 0x80);
+        }
+
+        while( !d.finished() && position < out.length ) {
+            position += d.deflate(out, position, out.length - position);
+        }
+
+        if( !d.finished() ) {
+            increment(noGain);
+            return bytes;
+        }
+
+        increment(compressed);
+        if( ratio != null ) {
+            ratio.record((double) bytes.length / position);
+        }
+
+        return Arrays.copyOf(out, position);
+    }
+
+    /**
+     * @param bytes A ticket, compressed or not.
+     * @return The uncompressed ticket.
+     */
+    public byte[] decompress(byte[] bytes) {
+        if( !isCompressed(bytes) ) {
+            return bytes;
+        }
+
+        if( bytes.length < 3 || bytes[1] != DICTIONARY_ID ) {
+            throw new LushException( "Unsupported compressed Lush ticket" );
+        }
+
+        int position = 2;
+        int length = 0;
+        for( int shift = 0; ; shift += 7 ) {
+            if( position >= bytes.length || shift > 21 ) {
+                throw new LushException( "Malformed compressed Lush ticket" );
+            }
+            byte b = bytes[position++];
+            length |= (b & 0x7F) << shift;
+            if( b >= 0 ) {
+                break;
+            }
+        }
+
+        if( length > MAX_LENGTH ) {
+            throw new LushException( "Compressed Lush ticket is too large: " + length + " bytes" );
+        }
+
+        Inflater i = inflater.acquire();
+        try {
+            return inflate(i, bytes, position, length);
+        }
+        finally {
+            inflater.release(i);
+        }
+    }
+
+    private static byte[] inflate(Inflater i, byte[] bytes, int position, int length) {
+        i.reset();
+        i.setDictionary(DICTIONARY);
+        i.setInput(bytes, position, bytes.length - position);
+
+        byte[] out = new byte[length];
+        try {
+            int count = 0;
+            while( count < length && !i.finished() ) {
+                int n = i.inflate(out, count, length - count);
+                if( n == 0 && (i.needsInput() || i.needsDictionary()) ) {
+                    break;
+                }
+                count += n;
+            }
+
+            // the end of the stream may not have been read when the output is exactly full
+            if( count == length && !i.finished() ) {
+                count += i.inflate(new byte[1]);
+            }
+
+            if( count != length || !i.finished() ) {
+                throw new LushException( "Malformed compressed Lush ticket" );
+            }
+        }
+        catch (DataFormatException e) {
+            throw new LushException( "Malformed compressed Lush ticket", e );
+        }
+
+        return out;
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("lush.ticket.compression")
+                .description("Tickets written while compression is enabled")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static void increment(Counter counter) {
+        if( counter != null ) {
+            counter.increment();
+        }
+    }
+}
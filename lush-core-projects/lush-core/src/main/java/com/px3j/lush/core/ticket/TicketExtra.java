@@ -0,0 +1,103 @@
+package com.px3j.lush.core.ticket;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.json.LushJson;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Set;
+
+/**
+ * A typed key for an extra held in a LushTicket.  Declare one per extra (as a constant) and use it to read the extra
+ * rather than casting/converting the result of getExtras() at each call site:
+ * <pre>
+ *     public static final TicketExtra&lt;Long&gt; TENANT_ID = TicketExtra.of("tenantId", Long.class);
+ *     public static final TicketExtra&lt;Preferences&gt; PREFERENCES = TicketExtra.of("preferences", Preferences.class);
+ *
+ *     Long tenantId = ticket.getExtra(TENANT_ID);
+ * </pre>
+ * The extra is converted to the requested type directly from its encoded form (by the codec that decoded the ticket,
+ * see LushJson) the first time it is read through a given TicketExtra.  The result is memoized in the request's
+ * working ticket (the ticket given to controllers), so repeat reads in a request don't convert it again.  A shared
+ * ticket (see TicketCache) only memoizes values of immutable types (String, Boolean, boxed numbers, enums), any other
+ * type is converted on each read so that one request can't change the value seen by another.  An extra put into the ticket in-process is only converted between scalar
+ * types, it is expected to already be of the requested type.
+ *
+ * @param <T> The type of the extra, use wrapper types rather than primitives.
+ */
+@Getter
+public final class TicketExtra<T> {
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class, Long.class, Integer.class, Short.class, Byte.class,
+            Double.class, Float.class, BigDecimal.class, BigInteger.class
+    );
+
+    private final String key;
+    private final Class<T> type;
+    private final boolean immutable;
+
+    private TicketExtra(String key, Class<T> type) {
+        this.key = key;
+        this.type = type;
+        this.immutable = IMMUTABLE_TYPES.contains(type) || type.isEnum();
+    }
+
+    public static <T> TicketExtra<T> of(String key, Class<T> type) {
+        return new TicketExtra<>(key, type);
+    }
+
+    /**
+     * @return The value of this extra in the passed in ticket, or null if it isn't present.
+     */
+    public T from(LushTicket ticket) {
+        return ticket.getExtra(this);
+    }
+
+    /**
+     * Convert an extra value to this extra's type, only conversions between scalar types (Number, String) are made.
+     *
+     * @param value The value.
+     * @return The value as the type of this extra.
+     * @throws LushException if the value can't be converted.
+     */
+    public T convert(Object value) {
+        return convert(value, null);
+    }
+
+    /**
+     * Convert an already decoded extra value (String, Boolean, Number, Map, List...) to this extra's type.
+     *
+     * @param value The decoded value.
+     * @param lushJson Converts values (Map, List...) that aren't scalars, can be null if there is none.
+     * @return The value as the type of this extra.
+     * @throws LushException if the value can't be converted.
+     */
+    public T convert(Object value, LushJson lushJson) {
+        if( value == null || type.isInstance(value) ) {
+            return type.cast(value);
+        }
+
+        if( value instanceof Number n ) {
+            if( type == Long.class ) return type.cast(n.longValue());
+            if( type == Integer.class ) return type.cast(n.intValue());
+            if( type == Double.class ) return type.cast(n.doubleValue());
+            if( type == Float.class ) return type.cast(n.floatValue());
+            if( type == Short.class ) return type.cast(n.shortValue());
+            if( type == Byte.class ) return type.cast(n.byteValue());
+        }
+        if( type == String.class ) {
+            return type.cast(String.valueOf(value));
+        }
+
+        if( lushJson == null ) {
+            throw new LushException( "Ticket extra " + key + " is a " + value.getClass().getSimpleName() + ", not a " + type.getSimpleName() );
+        }
+        return lushJson.convert(value, type);
+    }
+
+    @Override
+    public String toString() {
+        return "TicketExtra(" + key + ", " + type.getSimpleName() + ")";
+    }
+}
@@ -0,0 +1,46 @@
+package com.px3j.lush.core.ticket;
+
+import com.px3j.lush.web.security.TicketAuthenticationToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Produces the ticket header for a call from this service to another Lush service, used by the Lush Feign/RestTemplate
+ * interceptors and WebClient filter.  The inbound ticket header is forwarded as-is, so nothing is serialized or
+ * encrypted per outbound call.  The ticket is only encrypted again if the request's working ticket (the ticket given
+ * to the controller) has been modified.
+ *
+ * @see TicketAuthenticationToken
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class TicketForwarder {
+    private final TicketUtil ticketUtil;
+
+    @Autowired
+    public TicketForwarder(TicketUtil ticketUtil) {
+        this.ticketUtil = ticketUtil;
+    }
+
+    /**
+     * @param authentication The Authentication of the current request.
+     * @return The ticket header to send, or null if the request wasn't authenticated with a Lush ticket.
+     */
+    public String headerFor(Authentication authentication) {
+        if( !(authentication instanceof TicketAuthenticationToken token) ) {
+            return null;
+        }
+
+        if( token.isTicketModified() ) {
+            if( log.isDebugEnabled() ) {
+                log.debug( "Lush :: ticket was modified, encrypting it for the outbound call" );
+            }
+            return ticketUtil.encrypt(token.getWorkingTicket());
+        }
+
+        String rawTicket = token.getRawTicket();
+        return rawTicket != null ? rawTicket : ticketUtil.encrypt((LushTicket) token.getPrincipal());
+    }
+}
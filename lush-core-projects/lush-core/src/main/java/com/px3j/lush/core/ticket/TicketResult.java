@@ -0,0 +1,33 @@
+package com.px3j.lush.core.ticket;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of one item in a TicketBatch operation, either a value or the exception that was thrown for that item.
+ *
+ * @param <T> The type of value (encrypted ticket or LushTicket).
+ */
+@Getter
+@ToString
+public class TicketResult<T> {
+    private final T value;
+    private final RuntimeException error;
+
+    private TicketResult(T value, RuntimeException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    public static <T> TicketResult<T> success(T value) {
+        return new TicketResult<>(value, null);
+    }
+
+    public static <T> TicketResult<T> failure(RuntimeException error) {
+        return new TicketResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
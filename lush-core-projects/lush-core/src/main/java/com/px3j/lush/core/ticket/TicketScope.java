@@ -0,0 +1,45 @@
+package com.px3j.lush.core.ticket;
+
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * The part of a caller's LushTicket that a result depends on, used to decide which callers can share a result.
+ *
+ * @author Paul Parrone
+ */
+public enum TicketScope {
+    /**
+     * The result doesn't depend on the caller, it is shared by every caller.
+     */
+    NONE,
+
+    /**
+     * The result depends on who the caller is, it is only shared by callers with the same username.
+     */
+    USERNAME,
+
+    /**
+     * The result depends on what the caller can do, it is only shared by callers with the same authorities.
+     */
+    AUTHORITIES;
+
+    /**
+     * @param ticket The ticket of the caller.
+     * @return The value identifying the caller for this scope (null for NONE), it has equals/hashCode.
+     */
+    public Object keyOf(LushTicket ticket) {
+        if( this == NONE || ticket == null ) {
+            return null;
+        }
+
+        if( this == USERNAME ) {
+            return ticket.getUsername();
+        }
+
+        return ticket.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .sorted()
+                .distinct()
+                .toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.px3j.lush.core.ticket;
+
+import com.px3j.lush.core.exception.LushException;
+import com.px3j.lush.core.json.LushJson;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Converts a LushTicket to/from the bytes that are encrypted into the Lush ticket header.  Tickets are written in
+ * the format given by the following properties:
+ * <pre>
+ *  lush.ticket.format - json (default) or binary, see BinaryTicketCodec
+ *  lush.ticket.authority-codes - comma-separated authority code table used by the binary format, must be the same
+ *                                in every service and only ever appended to
+ * </pre>
+ *
+ * Tickets in either format are always accepted, so services can be switched to binary one at a time: first deploy
+ * every service (they can all read binary), then change lush.ticket.format.  Serialized tickets are compressed when
+ * lush.ticket.compression.enabled is set, see TicketCompressor.
+ *
+ * @see TicketCompressor
+ */
+@Component
+@Slf4j(topic = "lush.core.debug")
+public class TicketSerializer {
+    public enum Format { JSON, BINARY }
+
+    @Getter
+    private final Format format;
+
+    private final JsonTicketCodec jsonCodec;
+    private final BinaryTicketCodec binaryCodec;
+    private final TicketCodec writer;
+    private final TicketCompressor compressor;
+
+    @Autowired
+    public TicketSerializer(
+            @Value("${lush.ticket.format:json}") String format,
+            @Value("${lush.ticket.authority-codes:user,lush-monitor}") String[] authorityCodes,
+            LushJson lushJson,
+            TicketCompressor compressor
+    ) {
+        this( parseFormat(format), Arrays.asList(authorityCodes), lushJson, compressor );
+    }
+
+    public TicketSerializer(Format format, List<String> authorityCodes, LushJson lushJson) {
+        this( format, authorityCodes, lushJson, TicketCompressor.disabled() );
+    }
+
+    public TicketSerializer(Format format, List<String> authorityCodes, LushJson lushJson, TicketCompressor compressor) {
+        this.format = format;
+        this.compressor = compressor;
+        this.jsonCodec = new JsonTicketCodec(lushJson);
+        this.binaryCodec = new BinaryTicketCodec(authorityCodes.stream().map(String::trim).filter(s -> !s.isEmpty()).toList(), lushJson);
+        this.writer = format == Format.BINARY ? binaryCodec : jsonCodec;
+
+        log.debug( "Lush :: TicketSerializer writing tickets as: {} compressed: {}", format, compressor.isEnabled() );
+    }
+
+    /**
+     * @param ticket The ticket to serialize.
+     * @return The ticket in the configured format, compressed if enabled.
+     */
+    public byte[] serialize(LushTicket ticket) {
+        return compressor.compress(writer.encode(ticket));
+    }
+
+    /**
+     * @param bytes A ticket in either the JSON or binary format, compressed or not.
+     * @return The deserialized ticket.
+     */
+    public LushTicket deserialize(byte[] bytes) {
+        bytes = compressor.decompress(bytes);
+        return BinaryTicketCodec.isBinary(bytes) ? binaryCodec.decode(bytes) : jsonCodec.decode(bytes);
+    }
+
+    private static Format parseFormat(String format) {
+        try {
+            return Format.valueOf(format.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e) {
+            throw new LushException( "Invalid lush.ticket.format: " + format + " (expected json or binary)", e );
+        }
+    }
+}
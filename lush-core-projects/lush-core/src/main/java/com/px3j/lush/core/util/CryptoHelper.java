@@ -7,52 +7,150 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.*;
 import javax.crypto.spec.IvParameterSpec;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
 
+/**
+ * Encrypt/decrypt using the keys held by CryptoKeys.
+ * <br/><br/>
+ * Creating and initializing a Cipher is expensive (provider lookup, key expansion) so each thread keeps its own
+ * initialized encrypt/decrypt Cipher along with scratch buffers that are reused across calls (virtual threads borrow
+ * them from a pool, see PerThread).  A Cipher returns to
+ * its initialized state after doFinal() so there is no need to call init() again.
+ * <br/><br/>
+ * The String API works with Base64 encoded cipher text (java.util.Base64, encoding from and decoding into the
+ * per-thread buffers), the byte[] and ByteBuffer APIs work with raw cipher text.
+ */
 @Component
-@Profile("!clear-ticket")
+@Profile("!clear-ticket & !signed-ticket")
 public class CryptoHelper {
-    private final String algorithm = "AES/CBC/PKCS5Padding";
-    private final CryptoKeys cryptoKeys;
+    private static final String algorithm = "AES/CBC/PKCS5Padding";
+
+    private final PerThread<CipherState> cipherState;
 
     @Autowired
     public CryptoHelper(CryptoKeys cryptoKeys) {
-        this.cryptoKeys = cryptoKeys;
+        this.cipherState = new PerThread<>(() -> new CipherState(cryptoKeys));
     }
 
     public String encrypt(String input) {
+        return encryptToBase64(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String decrypt(String cipherText)  {
+        CipherState state = cipherState.acquire();
         try {
-            SecretKey key = cryptoKeys.secretKey;
-            IvParameterSpec iv = cryptoKeys.accessKey;
+            int length = state.decryptBase64(cipherText);
+            return new String(state.output, 0, length, StandardCharsets.UTF_8);
+        }
+        finally {
+            cipherState.release(state);
+        }
+    }
 
-            Cipher cipher = Cipher.getInstance(algorithm);
-            cipher.init(Cipher.ENCRYPT_MODE, key, iv);
-            byte[] cipherText = cipher.doFinal(input.getBytes());
-            return Base64.getEncoder().encodeToString(cipherText);
+    /**
+     * Encrypt the passed in bytes and return the Base64 encoded cipher text.
+     *
+     * @param plainText The bytes to encrypt.
+     * @return Base64 encoded cipher text.
+     */
+    public String encryptToBase64(byte[] plainText) {
+        CipherState state = cipherState.acquire();
+        try {
+            return state.encryptBase64(plainText, 0, plainText.length);
         }
-        catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
-                 InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException e) {
-            throw new LushException( "Failed to encrypt", e );
+        finally {
+            cipherState.release(state);
         }
     }
 
-    public String decrypt(String cipherText)  {
+    /**
+     * Decrypt Base64 encoded cipher text.
+     *
+     * @param cipherText Base64 encoded cipher text.
+     * @return The decrypted bytes.
+     */
+    public byte[] decryptFromBase64(String cipherText) {
+        CipherState state = cipherState.acquire();
         try {
-            SecretKey key = cryptoKeys.secretKey;
-            IvParameterSpec iv = cryptoKeys.accessKey;
+            int length = state.decryptBase64(cipherText);
+            return Arrays.copyOf(state.output, length);
+        }
+        finally {
+            cipherState.release(state);
+        }
+    }
 
-            Cipher cipher = Cipher.getInstance(algorithm);
-            cipher.init(Cipher.DECRYPT_MODE, key, iv);
-            byte[] plainText = cipher.doFinal(Base64.getDecoder()
-                    .decode(cipherText));
-            return new String(plainText);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
-                 InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException e) {
-            throw new LushException( "Failed to decrypt", e);
+    /**
+     * Encrypt the passed in bytes.
+     *
+     * @param plainText The bytes to encrypt.
+     * @return The raw cipher text.
+     */
+    public byte[] encrypt(byte[] plainText) {
+        CipherState state = cipherState.acquire();
+        try {
+            int length = state.encrypt(plainText, 0, plainText.length);
+            return Arrays.copyOf(state.output, length);
+        }
+        finally {
+            cipherState.release(state);
+        }
+    }
+
+    /**
+     * Decrypt raw cipher text.
+     *
+     * @param cipherText The raw cipher text.
+     * @return The decrypted bytes.
+     */
+    public byte[] decrypt(byte[] cipherText) {
+        CipherState state = cipherState.acquire();
+        try {
+            int length = state.decrypt(cipherText, 0, cipherText.length);
+            return Arrays.copyOf(state.output, length);
+        }
+        finally {
+            cipherState.release(state);
+        }
+    }
+
+    /**
+     * Encrypt the remaining bytes of input into output.
+     *
+     * @param input The plain text, consumed by this call.
+     * @param output Receives the raw cipher text, must have enough space remaining.
+     * @return The number of bytes written to output.
+     */
+    public int encrypt(ByteBuffer input, ByteBuffer output) {
+        CipherState state = cipherState.acquire();
+        try {
+            return state.doFinal(Cipher.ENCRYPT_MODE, input, output);
+        }
+        finally {
+            cipherState.release(state);
+        }
+    }
+
+    /**
+     * Decrypt the remaining bytes of input into output.
+     *
+     * @param input The raw cipher text, consumed by this call.
+     * @param output Receives the plain text, must have enough space remaining.
+     * @return The number of bytes written to output.
+     */
+    public int decrypt(ByteBuffer input, ByteBuffer output) {
+        CipherState state = cipherState.acquire();
+        try {
+            return state.doFinal(Cipher.DECRYPT_MODE, input, output);
+        }
+        finally {
+            cipherState.release(state);
         }
     }
 
@@ -82,8 +180,146 @@ public class CryptoHelper {
 
         System.out.println("         lush.crypto.secret-key: " + encodedKey);
         System.out.println("         lush.crypto.access-key: " + encodedIv);
+        System.out.println("        lush.crypto.signing-key: " + HmacHelper.generateKey() + "  (signed-ticket profile only)");
 
         System.out.println();
         System.out.println( "Lush :: be sure to use these keys in any services that use Lush to encrypt/decrypt");
     }
-}
\ No newline at end of file
+
+    /**
+     * Per-thread Cipher instances and scratch buffers.  Never shared between threads.
+     * <br/><br/>
+     * java.util.Base64 only encodes/decodes whole arrays, so the cipher text and Base64 buffers are kept at the exact
+     * size of the last call.  Cipher text is a multiple of the AES block size, so tickets of similar size reuse them.
+     */
+    private static final class CipherState {
+        private static final Base64.Encoder BASE64_ENCODER = Base64.getEncoder();
+        private static final Base64.Decoder BASE64_DECODER = Base64.getDecoder();
+
+        private final CryptoKeys cryptoKeys;
+        private Cipher encryptCipher;
+        private Cipher decryptCipher;
+
+        private byte[] output = new byte[256];
+        private byte[] encoded = new byte[512];
+        private byte[] sealed = new byte[0];
+        private byte[] base64 = new byte[0];
+        private byte[] decoded = new byte[256];
+
+        private CipherState(CryptoKeys cryptoKeys) {
+            this.cryptoKeys = cryptoKeys;
+        }
+
+        int encrypt(byte[] input, int offset, int length) {
+            try {
+                Cipher cipher = cipher(Cipher.ENCRYPT_MODE);
+                output = ensure(output, cipher.getOutputSize(length));
+                return cipher.doFinal(input, offset, length, output);
+            }
+            catch (GeneralSecurityException e) {
+                reset(Cipher.ENCRYPT_MODE);
+                throw new LushException( "Failed to encrypt", e );
+            }
+        }
+
+        int decrypt(byte[] input, int offset, int length) {
+            try {
+                Cipher cipher = cipher(Cipher.DECRYPT_MODE);
+                output = ensure(output, cipher.getOutputSize(length));
+                return cipher.doFinal(input, offset, length, output);
+            }
+            catch (GeneralSecurityException e) {
+                reset(Cipher.DECRYPT_MODE);
+                throw new LushException( "Failed to decrypt", e );
+            }
+        }
+
+        int doFinal(int mode, ByteBuffer input, ByteBuffer output) {
+            try {
+                return cipher(mode).doFinal(input, output);
+            }
+            catch (GeneralSecurityException e) {
+                reset(mode);
+                throw new LushException( mode == Cipher.ENCRYPT_MODE ? "Failed to encrypt" : "Failed to decrypt", e );
+            }
+        }
+
+        String encryptBase64(byte[] input, int offset, int length) {
+            try {
+                Cipher cipher = cipher(Cipher.ENCRYPT_MODE);
+                sealed = exact(sealed, cipher.getOutputSize(length));
+                int sealedLength = cipher.doFinal(input, offset, length, sealed);
+                if( sealedLength != sealed.length ) {
+                    sealed = Arrays.copyOf(sealed, sealedLength);
+                }
+            }
+            catch (GeneralSecurityException e) {
+                reset(Cipher.ENCRYPT_MODE);
+                throw new LushException( "Failed to encrypt", e );
+            }
+
+            encoded = ensure(encoded, 4 * ((sealed.length + 2) / 3));
+            int encodedLength = BASE64_ENCODER.encode(sealed, encoded);
+            return new String(encoded, 0, encodedLength, StandardCharsets.ISO_8859_1);
+        }
+
+        int decryptBase64(String cipherText) {
+            int length = cipherText.length();
+            base64 = exact(base64, length);
+            for( int i = 0; i < length; i++ ) {
+                char c = cipherText.charAt(i);
+                if( c > 0x7f ) {
+                    throw new LushException( "Failed to decrypt, cipher text isn't Base64" );
+                }
+                base64[i] = (byte) c;
+            }
+
+            int decodedLength;
+            try {
+                decoded = ensure(decoded, 3 * (length / 4) + 3);
+                decodedLength = BASE64_DECODER.decode(base64, decoded);
+            }
+            catch (IllegalArgumentException e) {
+                throw new LushException( "Failed to decrypt", e );
+            }
+            return decrypt(decoded, 0, decodedLength);
+        }
+
+        private Cipher cipher(int mode) throws GeneralSecurityException {
+            if( mode == Cipher.ENCRYPT_MODE ) {
+                if( encryptCipher == null ) {
+                    encryptCipher = newCipher(mode);
+                }
+                return encryptCipher;
+            }
+
+            if( decryptCipher == null ) {
+                decryptCipher = newCipher(mode);
+            }
+            return decryptCipher;
+        }
+
+        private Cipher newCipher(int mode) throws GeneralSecurityException {
+            Cipher cipher = Cipher.getInstance(algorithm);
+            cipher.init(mode, cryptoKeys.secretKey, cryptoKeys.accessKey);
+            return cipher;
+        }
+
+        private void reset(int mode) {
+            if( mode == Cipher.ENCRYPT_MODE ) {
+                encryptCipher = null;
+            }
+            else {
+                decryptCipher = null;
+            }
+        }
+
+        private static byte[] ensure(byte[] buffer, int size) {
+            return buffer.length >= size ? buffer : new byte[Math.max(size, buffer.length * 2)];
+        }
+
+        private static byte[] exact(byte[] buffer, int size) {
+            return buffer.length == size ? buffer : new byte[size];
+        }
+    }
+}
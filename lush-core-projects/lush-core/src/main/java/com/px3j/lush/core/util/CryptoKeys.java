@@ -20,7 +20,7 @@ import java.util.Base64;
  *
  */
 @Component
-@Profile("!clear-ticket")
+@Profile("!clear-ticket & !signed-ticket")
 public class CryptoKeys {
     public final SecretKey secretKey;
     public final IvParameterSpec accessKey;
@@ -0,0 +1,80 @@
+package com.px3j.lush.core.util;
+
+import com.px3j.lush.core.exception.LushException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Sign/verify using HMAC-SHA256 with the key defined by the following property:
+ * <pre>
+ *  lush.crypto.signing-key - Base64 encoded key, at least 32 bytes (see CryptoHelper::main to generate one)
+ * </pre>
+ *
+ * Like CryptoHelper, each thread keeps its own initialized Mac which is reused across calls (see PerThread).
+ */
+@Component
+@Profile("signed-ticket")
+public class HmacHelper {
+    public static final String ALGORITHM = "HmacSHA256";
+    public static final int MAC_LENGTH = 32;
+
+    private final PerThread<Mac> macs;
+
+    @Autowired
+    public HmacHelper(@Value("${lush.crypto.signing-key}") final String signingKey) {
+        byte[] decodedKey = Base64.getDecoder().decode(signingKey);
+        if( decodedKey.length < MAC_LENGTH ) {
+            throw new LushException( "lush.crypto.signing-key must be at least " + MAC_LENGTH + " bytes" );
+        }
+
+        SecretKeySpec key = new SecretKeySpec(decodedKey, ALGORITHM);
+        this.macs = new PerThread<>(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            }
+            catch (GeneralSecurityException e) {
+                throw new LushException( "Failed to initialize " + ALGORITHM, e );
+            }
+        });
+    }
+
+    /**
+     * @return The MAC of the given range of bytes.
+     */
+    public byte[] sign(byte[] data, int offset, int length) {
+        Mac mac = macs.acquire();
+        try {
+            mac.update(data, offset, length);
+            return mac.doFinal();
+        }
+        finally {
+            macs.release(mac);
+        }
+    }
+
+    /**
+     * Constant time check that expectedMac is the MAC of the given range of bytes.
+     *
+     * @return true if the MAC matches.
+     */
+    public boolean verify(byte[] data, int offset, int length, byte[] expectedMac) {
+        return MessageDigest.isEqual(sign(data, offset, length), expectedMac);
+    }
+
+    public static String generateKey() {
+        byte[] key = new byte[MAC_LENGTH];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+}
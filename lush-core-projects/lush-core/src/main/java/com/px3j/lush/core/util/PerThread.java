@@ -0,0 +1,68 @@
+package com.px3j.lush.core.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Reusable state (an initialized Cipher, a Deflater, a buffer...) that is expensive to create and can only be used
+ * by one thread at a time.  A platform thread keeps its own instance in a ThreadLocal.  A virtual thread usually
+ * lives for a single request so a ThreadLocal would create a new instance per request, virtual threads borrow an
+ * instance from a shared pool instead.
+ * <pre>
+ *     T state = perThread.acquire();
+ *     try {
+ *         ...
+ *     }
+ *     finally {
+ *         perThread.release(state);
+ *     }
+ * </pre>
+ *
+ * The pool holds at most twice the number of available processors, extra instances are dropped when released.
+ *
+ * @param <T> The type of state.
+ */
+public final class PerThread<T> {
+    private final Supplier<T> factory;
+    private final ThreadLocal<T> local;
+    private final ArrayBlockingQueue<T> pool;
+
+    public PerThread(Supplier<T> factory) {
+        this.factory = factory;
+        this.local = ThreadLocal.withInitial(factory);
+        this.pool = new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return The state for the calling thread, it must be passed to release() once it is no longer used.
+     */
+    public T acquire() {
+        if( !Thread.currentThread().isVirtual() ) {
+            return local.get();
+        }
+
+        T state = pool.poll();
+        return state != null ? state : factory.get();
+    }
+
+    /**
+     * @param state The state returned by acquire().
+     */
+    public void release(T state) {
+        if( state != null && Thread.currentThread().isVirtual() ) {
+            pool.offer(state);
+        }
+    }
+
+    /**
+     * Stop using the calling thread's state, ie: because it has grown too large.  A new instance is created the next
+     * time the thread calls acquire().
+     *
+     * @param state The state returned by acquire(), it is not reused.
+     */
+    public void discard(T state) {
+        if( !Thread.currentThread().isVirtual() ) {
+            local.remove();
+        }
+    }
+}
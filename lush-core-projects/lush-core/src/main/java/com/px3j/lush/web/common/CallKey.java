@@ -0,0 +1,32 @@
+package com.px3j.lush.web.common;
+
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketScope;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Identifies a call to a Lush controller method by the method, its arguments (other than the LushTicket and
+ * LushContext) and the caller's TicketScope key, calls with equal keys can share a result.  Arguments are compared
+ * with equals so an argument without a value based equals (ie: the request) makes every call distinct.
+ *
+ * @author Paul Parrone
+ */
+public record CallKey(Method method, List<Object> args, Object scope) {
+    /**
+     * @param plan The plan for the method being called.
+     * @param args The arguments the method is called with.
+     * @param scope The part of the ticket the result depends on.
+     * @param ticket The ticket of the caller.
+     * @return The key of the call.
+     */
+    public static CallKey of(InvocationPlan plan, Object[] args, TicketScope scope, LushTicket ticket) {
+        List<Object> keyArgs = new ArrayList<>(args.length);
+        for( int i = 0; i < args.length; i++ ) {
+            keyArgs.add(i == plan.getTicketIndex() || i == plan.getContextIndex() ? null : args[i]);
+        }
+        return new CallKey(plan.getMethod(), keyArgs, scope.keyOf(ticket));
+    }
+}
@@ -7,5 +7,7 @@ package com.px3j.lush.web.common;
  */
 public class Constants {
     public static final String ADVICE_HEADER_NAME = "x-lush-advice";
+    public static final String FINAL_ADVICE_TRAILER_NAME = "x-lush-advice-final";
+    public static final String FINAL_ADVICE_EVENT_NAME = "lush-advice";
     public static final String TICKET_HEADER_NAME = "x-lush-ticket";
 }
@@ -0,0 +1,35 @@
+package com.px3j.lush.web.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Base of the Spring AOP aspects that apply a ControllerDecorator to calls to Lush controllers, used when
+ * lush.aop.mode is proxy (the default).
+ * <br/><br/>
+ * The aspect owns the InvocationPlanCache, it is warmed with every @LushControllerMethod once the application
+ * context has been refreshed.
+ *
+ * @author Paul Parrone
+ */
+@Slf4j(topic = "lush.core.debug")
+public abstract class ControllerAspect {
+    public static final String MODE_PROPERTY = "lush.aop.mode";
+
+    protected final InvocationPlanCache invocationPlans = new InvocationPlanCache();
+
+    @Pointcut("@annotation(com.px3j.lush.web.common.LushControllerMethod)")
+    public void lushControllerMethods() {
+    }
+
+    @EventListener
+    public void warmInvocationPlans(ContextRefreshedEvent event) {
+        invocationPlans.warm(event.getApplicationContext());
+    }
+
+    public InvocationPlanCache getInvocationPlans() {
+        return invocationPlans;
+    }
+}
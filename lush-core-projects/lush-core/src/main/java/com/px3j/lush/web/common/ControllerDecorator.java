@@ -1,40 +1,81 @@
 package com.px3j.lush.web.common;
 
 
-import com.px3j.lush.core.exception.StackTraceToLoggerWriter;
-import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.cache.ResponseCaches;
+import com.px3j.lush.core.limit.AdmissionController;
+import com.px3j.lush.core.limit.ConcurrencyLimiter;
+import com.px3j.lush.core.limit.ConcurrencyLimiters;
 import com.px3j.lush.core.model.LushContext;
 import com.px3j.lush.core.ticket.LushTicket;
 import io.micrometer.tracing.Tracer;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.lang.reflect.Method;
-import java.util.Optional;
-
 /**
- * Decorator, applied via AOP, that intercepts calls to any Lush based controllers.  It silently intercepts and provides
- * the Lush functionality.
+ * Decorator that provides the Lush functionality for calls to any Lush based controllers.  How the decorator is
+ * applied depends on the following property:
+ * <pre>
+ *  lush.aop.mode - proxy (the default), calls are intercepted at runtime by a Spring AOP aspect (see ControllerAspect)
+ *                  generated, calls are made through subclasses of the controllers generated at build time by the
+ *                  Lush annotation processor (lush-core-processor), see GeneratedDecorators
+ * </pre>
+ *
+ * Every call is admitted by the decorator before the method is called: it can be shed by priority when the service is
+ * saturated (see AdmissionController) or rejected by the method's concurrency limit (see
+ * LushControllerMethod::concurrencyLimit).  An admitted call completes when its result does (not when it returns a
+ * Mono, Flux or CompletableFuture).
+ * <br/><br/>
+ * The results of a method annotated with LushCacheable are looked up (see ResponseCaches) before the call is
+ * admitted, a cached result is returned without making the call.
  *
  * @author Paul Parrone
  */
 @Slf4j(topic = "lush.core.debug")
 public abstract class ControllerDecorator {
     protected final Tracer tracer;
+    protected final ConcurrencyLimiters limiters;
+    protected final AdmissionController admissionController;
+    protected final ResponseCaches responseCaches;
 
     @Autowired
-    public ControllerDecorator(Tracer tracer) {
+    public ControllerDecorator(Tracer tracer, ConcurrencyLimiters limiters, AdmissionController admissionController, ResponseCaches responseCaches) {
         this.tracer = tracer;
+        this.limiters = limiters;
+        this.admissionController = admissionController;
+        this.responseCaches = responseCaches;
     }
 
-    @Pointcut("@annotation(com.px3j.lush.web.common.LushControllerMethod)")
-    public void lushControllerMethods() {
-    }
-
+    /**
+     * Admit a call to a controller method.
+     *
+     * @param plan The plan for the method being called.
+     * @param lushContext The context of the call, its advice is populated if the call is shed or rejected.
+     * @param ticket The ticket of the caller.
+     * @return The permit to release when the call completes, null if the call is shed or rejected and must not be
+     *         made.
+     */
+    protected ConcurrencyLimiter.Permit admit(InvocationPlan plan, LushContext lushContext, LushTicket ticket) {
+        ConcurrencyLimiter.Permit admitted = admissionController.admit(ticket, lushContext.getAdvice());
+        if( admitted == null ) {
+            return null;
+        }
 
+        ConcurrencyLimiter limiter = limiters.limiterFor(plan);
+        if( limiter == null ) {
+            return admitted;
+        }
 
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if( permit == null ) {
+            log.debug( "Lush :: rejected call to {}, concurrency limit: {}", plan, limiter.getLimit() );
+            limiter.reject(lushContext.getAdvice());
+            admitted.release();
+            return null;
+        }
 
+        return admitted == ConcurrencyLimiter.Permit.UNLIMITED ? permit : () -> {
+            permit.release();
+            admitted.release();
+        };
+    }
 }
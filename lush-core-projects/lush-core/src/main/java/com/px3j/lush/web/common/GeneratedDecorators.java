@@ -0,0 +1,91 @@
+package com.px3j.lush.web.common;
+
+import com.px3j.lush.core.exception.LushException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Used when lush.aop.mode is generated, replaces the class of each Lush controller bean with the subclass generated
+ * for it by the Lush annotation processor (lush-core-processor).  The generated subclasses apply the decorator
+ * directly, so no Lush aspect is registered and nothing is matched against pointcuts at startup.
+ * <br/><br/>
+ * The processor lists the classes it generated in META-INF/lush/decorators (one original=generated line per class),
+ * every such file on the classpath is read.  Only beans defined by class (component scanning, @Import) are replaced,
+ * a controller created by a @Bean method should create the generated class itself.
+ *
+ * @author Paul Parrone
+ */
+@Component
+@ConditionalOnProperty(name = ControllerAspect.MODE_PROPERTY, havingValue = "generated")
+@Slf4j(topic = "lush.core.debug")
+public class GeneratedDecorators implements BeanFactoryPostProcessor, BeanClassLoaderAware {
+    public static final String INDEX = "META-INF/lush/decorators";
+
+    private ClassLoader classLoader;
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        Map<String, String> generated = loadIndex(classLoader);
+        if( generated.isEmpty() ) {
+            log.warn( "Lush :: lush.aop.mode is generated but no generated decorators were found, is lush-core-processor on the annotation processor path?" );
+            return;
+        }
+
+        int replaced = 0;
+        for( String beanName : beanFactory.getBeanDefinitionNames() ) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+            String generatedClass = generated.get(definition.getBeanClassName());
+            if( generatedClass != null ) {
+                definition.setBeanClassName(generatedClass);
+                replaced++;
+            }
+        }
+
+        log.debug( "Lush :: using {} generated decorators", replaced );
+    }
+
+    /**
+     * @param classLoader The class loader to read the index files from.
+     * @return Map of controller class name to generated class name.
+     */
+    public static Map<String, String> loadIndex(ClassLoader classLoader) {
+        Map<String, String> generated = new HashMap<>();
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(INDEX);
+            while( indexes.hasMoreElements() ) {
+                URL index = indexes.nextElement();
+                try( BufferedReader in = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8)) ) {
+                    for( String line = in.readLine(); line != null; line = in.readLine() ) {
+                        int separator = line.indexOf('=');
+                        if( separator > 0 ) {
+                            generated.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+                        }
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new LushException("Unable to read the Lush generated decorator index", e);
+        }
+        return generated;
+    }
+}
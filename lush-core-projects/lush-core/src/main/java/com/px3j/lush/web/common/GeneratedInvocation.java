@@ -0,0 +1,44 @@
+package com.px3j.lush.web.common;
+
+import com.px3j.lush.core.exception.LushException;
+
+/**
+ * Base class of the invocations created by the controller subclasses that the Lush annotation processor
+ * (lush-core-processor) generates, the subclass implements proceed(Object[]) by calling the controller method.
+ *
+ * @author Paul Parrone
+ */
+public abstract class GeneratedInvocation implements LushInvocation {
+    private final Object[] args;
+
+    protected GeneratedInvocation(Object... args) {
+        this.args = args;
+    }
+
+    @Override
+    public Object[] getArgs() {
+        return args;
+    }
+
+    @Override
+    public Object proceed() throws Throwable {
+        return proceed(args);
+    }
+
+    /**
+     * Create the plan for a controller method, used by generated subclasses to create their plans once.
+     *
+     * @param type The controller class.
+     * @param name The name of the method.
+     * @param parameterTypes The parameter types of the method.
+     * @return The plan.
+     */
+    public static InvocationPlan plan(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return InvocationPlan.of(type, type.getDeclaredMethod(name, parameterTypes));
+        }
+        catch (NoSuchMethodException e) {
+            throw new LushException("Generated Lush decorator is out of date, no method: " + type.getName() + "::" + name, e);
+        }
+    }
+}
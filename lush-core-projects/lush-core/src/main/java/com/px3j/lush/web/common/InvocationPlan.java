@@ -0,0 +1,118 @@
+package com.px3j.lush.web.common;
+
+import com.px3j.lush.core.model.LushContext;
+import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.core.ticket.TicketScope;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Everything about a call to a Lush controller method that doesn't change from one request to the next: the method
+ * being called, its LushControllerMethod and LushCacheable settings and which of its arguments are the LushTicket and LushContext.  Plans are created once per method
+ * (see InvocationPlanCache) so that no reflection is done while handling a request.
+ *
+ * @author Paul Parrone
+ */
+public final class InvocationPlan {
+    public static final int NONE = -1;
+
+    private final Method method;
+    private final LushControllerMethod annotation;
+    private final LushCacheable cacheable;
+    private final int contextIndex;
+    private final int ticketIndex;
+    private final String description;
+
+    private InvocationPlan(Method method) {
+        this.method = method;
+        this.annotation = AnnotatedElementUtils.findMergedAnnotation(method, LushControllerMethod.class);
+        this.cacheable = AnnotatedElementUtils.findMergedAnnotation(method, LushCacheable.class);
+        this.contextIndex = indexOf(method, LushContext.class);
+        this.ticketIndex = indexOf(method, LushTicket.class);
+        this.description = method.getDeclaringClass().getName() + "::" + method.getName();
+    }
+
+    /**
+     * Create the plan for a method called on an instance of targetClass.
+     *
+     * @param targetClass The class of the controller.
+     * @param method The method being called, an interface method is resolved against targetClass.
+     * @return The plan.
+     */
+    public static InvocationPlan of(Class<?> targetClass, Method method) {
+        if( method.getDeclaringClass().isInterface() ) {
+            try {
+                method = targetClass.getDeclaredMethod(method.getName(), method.getParameterTypes());
+            }
+            catch (NoSuchMethodException e) {
+                // the implementation is inherited, the interface method describes it well enough
+            }
+        }
+
+        return new InvocationPlan(method);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return The LushControllerMethod annotation of the method, null if it isn't annotated.
+     */
+    public LushControllerMethod getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * @return The LushCacheable annotation of the method, null if its results aren't cached.
+     */
+    public LushCacheable getCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * @return true if concurrent identical calls to the method are coalesced.
+     */
+    public boolean isCoalesced() {
+        return annotation != null && annotation.coalesce();
+    }
+
+    /**
+     * @return The part of the caller's ticket that coalesced calls must have in common.  A method that takes the
+     *         LushTicket builds its result from it, so NONE is taken as USERNAME.
+     */
+    public TicketScope getCoalesceScope() {
+        TicketScope scope = annotation == null ? TicketScope.NONE : annotation.coalesceScope();
+        return scope == TicketScope.NONE && ticketIndex != NONE ? TicketScope.USERNAME : scope;
+    }
+
+    /**
+     * @return Index of the LushContext argument or NONE.
+     */
+    public int getContextIndex() {
+        return contextIndex;
+    }
+
+    /**
+     * @return Index of the LushTicket argument or NONE.
+     */
+    public int getTicketIndex() {
+        return ticketIndex;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    private static int indexOf(Method method, Class<?> type) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for( int i = 0; i < parameterTypes.length; i++ ) {
+            if( parameterTypes[i] == type ) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,81 @@
+package com.px3j.lush.web.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent cache of InvocationPlans.  Spring AOP creates a new MethodSignature for every call so plans are keyed by
+ * the Method of the signature, along with the target class when the method is declared by an interface (the plan
+ * then depends on the implementation).  The cache is warmed at startup with every @LushControllerMethod, see
+ * {@link #warm(ApplicationContext)}.
+ *
+ * @author Paul Parrone
+ */
+@Slf4j(topic = "lush.core.debug")
+public class InvocationPlanCache {
+    private final Map<Method, InvocationPlan> plans = new ConcurrentHashMap<>();
+    private final Map<InterfaceKey, InvocationPlan> interfacePlans = new ConcurrentHashMap<>();
+
+    /**
+     * @param pjp The join point of a call to a Lush controller method.
+     * @return The plan for the method being called.
+     */
+    public InvocationPlan get(ProceedingJoinPoint pjp) {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        Class<?> targetClass = pjp.getTarget().getClass();
+        return get(targetClass, method);
+    }
+
+    public InvocationPlan get(Class<?> targetClass, Method method) {
+        if( !method.getDeclaringClass().isInterface() ) {
+            InvocationPlan plan = plans.get(method);
+            return plan != null ? plan : plans.computeIfAbsent(method, m -> InvocationPlan.of(targetClass, m));
+        }
+
+        return interfacePlans.computeIfAbsent(new InterfaceKey(targetClass, method), k -> InvocationPlan.of(targetClass, method));
+    }
+
+    /**
+     * Create the plans for every @LushControllerMethod of the beans in the passed in context.
+     *
+     * @param context The application context.
+     * @return The number of plans created.
+     */
+    public int warm(ApplicationContext context) {
+        int before = size();
+
+        for( String beanName : context.getBeanDefinitionNames() ) {
+            Class<?> beanType = context.getType(beanName, false);
+            if( beanType == null ) {
+                continue;
+            }
+
+            Class<?> targetClass = ClassUtils.getUserClass(beanType);
+            ReflectionUtils.doWithMethods(
+                    targetClass,
+                    method -> get(targetClass, method),
+                    method -> AnnotatedElementUtils.hasAnnotation(method, LushControllerMethod.class)
+            );
+        }
+
+        int warmed = size() - before;
+        log.debug( "Lush :: created {} invocation plans", warmed );
+        return warmed;
+    }
+
+    public int size() {
+        return plans.size() + interfacePlans.size();
+    }
+
+    private record InterfaceKey(Class<?> targetClass, Method method) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.px3j.lush.web.common;
+
+import com.px3j.lush.core.ticket.TicketScope;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lush annotation that caches the results of a Lush controller method (it must also have LushControllerMethod).  A
+ * result is cached by the method, its arguments and the part of the caller's ticket it depends on (see CallKey and
+ * TicketScope), a caller whose call is in the cache gets the result along with the status code, warnings and extras
+ * of the call that produced it.  Its LushAdvice keeps its own trace id:
+ * <pre>
+ *  &#64;LushControllerMethod
+ *  &#64;LushCacheable(scope = TicketScope.AUTHORITIES, expireAfterWrite = "5m", maximumSize = 500)
+ * </pre>
+ *
+ * Only calls that succeed are cached, not those that fail or are shed or rejected (a negative LushAdvice status
+ * code).  Methods returning a value, a ResponseEntity, a CompletionStage, a Mono or a Flux can be cached, the
+ * elements of a Flux are held until it completes so only finite streams should be cached.  See ResponseCaches.
+ *
+ * @author Paul Parrone
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LushCacheable {
+    /**
+     * @return The part of the caller's ticket the result depends on, USERNAME (the default) caches a result per
+     *         user, NONE shares it with every caller.
+     */
+    TicketScope scope() default TicketScope.USERNAME;
+
+    /**
+     * @return How long a result is held (ISO-8601 or 10m style duration), empty for lush.cache.expire-after-write.
+     */
+    String expireAfterWrite() default "";
+
+    /**
+     * @return The maximum number of results held, 0 for lush.cache.maximum-size.
+     */
+    long maximumSize() default 0;
+}
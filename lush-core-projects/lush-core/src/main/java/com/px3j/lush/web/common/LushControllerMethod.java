@@ -1,5 +1,8 @@
 package com.px3j.lush.web.common;
 
+import com.px3j.lush.core.limit.LimitAlgorithm;
+import com.px3j.lush.core.ticket.TicketScope;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -8,9 +11,56 @@ import java.lang.annotation.Target;
 /**
  * Lush annotation to be used to inject Lush related functionality into a controller method.  Lush will automatically
  * decorate methods that have this annotation and that return either a Mono or a Flux.
+ * <br/><br/>
+ * The calls in flight to a method can be limited, the limit adapts to the latency of the calls (see LimitAlgorithm).
+ * A call over the limit isn't made, it returns straight away with the LushAdvice status code
+ * ConcurrencyLimiter.REJECTED_STATUS_CODE:
+ * <pre>
+ *  &#64;LushControllerMethod(concurrencyLimit = LimitAlgorithm.GRADIENT, initialLimit = 50, maxLimit = 500)
+ * </pre>
+ *
+ * Concurrent identical calls to an idempotent method can be coalesced: the first call is made and the callers that
+ * arrive while it is in flight share its result (see CallKey).  Each caller's LushAdvice keeps its own trace id, the
+ * status code, warnings and extras of the call are replayed to it.  A method that takes the LushTicket builds its result
+ * from it, so its calls are coalesced per user unless coalesceScope says otherwise (NONE is taken as USERNAME).  Only
+ * methods returning a value, a CompletionStage or a Mono are coalesced:
+ * <pre>
+ *  &#64;LushControllerMethod(coalesce = true, coalesceScope = TicketScope.AUTHORITIES)
+ * </pre>
  *
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface LushControllerMethod {
+    /**
+     * @return The algorithm limiting concurrent calls, NONE (the default) for no limit.
+     */
+    LimitAlgorithm concurrencyLimit() default LimitAlgorithm.NONE;
+
+    /**
+     * @return The concurrency limit to start with.
+     */
+    int initialLimit() default 20;
+
+    /**
+     * @return The lowest the concurrency limit can go.
+     */
+    int minLimit() default 1;
+
+    /**
+     * @return The highest the concurrency limit can go.
+     */
+    int maxLimit() default 200;
+
+    /**
+     * @return true to have concurrent identical calls share a single call.
+     */
+    boolean coalesce() default false;
+
+    /**
+     * @return The part of the caller's ticket that calls must have in common to be coalesced, NONE (the default) if
+     *         the result doesn't depend on the caller.  NONE is taken as USERNAME for a method that takes the
+     *         LushTicket, see InvocationPlan::getCoalesceScope.
+     */
+    TicketScope coalesceScope() default TicketScope.NONE;
 }
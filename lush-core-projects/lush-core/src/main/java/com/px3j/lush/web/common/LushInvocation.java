@@ -0,0 +1,50 @@
+package com.px3j.lush.web.common;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+
+/**
+ * A call to a Lush controller method, as seen by the Lush decorators.  In proxy mode this is the ProceedingJoinPoint
+ * of the Lush aspect, in generated mode it is a GeneratedInvocation created by the generated subclass of the
+ * controller.
+ *
+ * @author Paul Parrone
+ */
+public interface LushInvocation {
+    /**
+     * @return The arguments the method was called with, the array may be modified and passed to proceed(Object[]).
+     */
+    Object[] getArgs();
+
+    /**
+     * Call the method with the arguments it was called with.
+     */
+    Object proceed() throws Throwable;
+
+    /**
+     * Call the method with the passed in arguments.
+     */
+    Object proceed(Object[] args) throws Throwable;
+
+    /**
+     * @param pjp The join point of a Lush aspect.
+     * @return A LushInvocation that delegates to the join point.
+     */
+    static LushInvocation of(ProceedingJoinPoint pjp) {
+        return new LushInvocation() {
+            @Override
+            public Object[] getArgs() {
+                return pjp.getArgs();
+            }
+
+            @Override
+            public Object proceed() throws Throwable {
+                return pjp.proceed();
+            }
+
+            @Override
+            public Object proceed(Object[] args) throws Throwable {
+                return pjp.proceed(args);
+            }
+        };
+    }
+}
@@ -5,21 +5,31 @@ import com.px3j.lush.core.exception.StackTraceToLoggerWriter;
 import com.px3j.lush.core.model.LushAdvice;
 import com.px3j.lush.core.model.LushContext;
 import com.px3j.lush.core.ticket.LushTicket;
+import com.px3j.lush.web.security.TicketAuthenticationToken;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.security.core.Authentication;
 
-import java.lang.reflect.Method;
-import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
 @Slf4j(topic = "lush.core.debug")
 public class LushWrappedInvocation<T> {
-    private final ProceedingJoinPoint pjp;
+    private final LushInvocation invocation;
+    private final InvocationPlan plan;
     private final LushContext context;
-    private final LushTicket ticket;
+    private final Supplier<LushTicket> ticket;
 
-    public static <T> LushWrappedInvocation<T> wrap(ProceedingJoinPoint pjp, LushContext context, LushTicket ticket) {
-        return new LushWrappedInvocation<>(pjp, context, ticket);
+    /**
+     * Wrap an invocation for the passed in Authentication.  LushTicket and LushContext arguments are normally resolved
+     * by the Lush argument resolvers, if the method is called without them (the arguments are null) the working
+     * ticket of the TicketAuthenticationToken and the passed in context are supplied.
+     *
+     * @param invocation The call to the controller method.
+     * @param plan The plan for the method being called.
+     */
+    public static <T> LushWrappedInvocation<T> wrap(LushInvocation invocation, InvocationPlan plan, LushContext context, Authentication authentication) {
+        return new LushWrappedInvocation<>(invocation, plan, context, () -> TicketAuthenticationToken.workingTicketOf(authentication));
     }
 
     public T invoke()  {
@@ -29,14 +39,24 @@ public class LushWrappedInvocation<T> {
                 log.debug("lush wrapped");
             }
 
-            // Get the target method from the join point, use this to inject parameters.
-            Method method = getMethodBeingCalled(pjp);
-            // If the method declares an argument of LushContext, inject it (we inject it by copying the values)
-            injectLushContext(method, pjp, context);
-            // If the method declares an argument of LushTicket, inject it (we inject it by copying the values)
-            injectTicket(method, pjp, ticket);
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Lush ControllerDecorator - invoking: %s", plan));
+            }
+
+            // Lush arguments are resolved by the argument resolvers, the plan tells us if there are any to check.
+            Object result;
+            if (plan.getContextIndex() == InvocationPlan.NONE && plan.getTicketIndex() == InvocationPlan.NONE) {
+                result = invocation.proceed();
+            }
+            else {
+                Object[] args = invocation.getArgs();
+                boolean supplied = supplyLushContext(args, context);
+                supplied |= supplyTicket(args, ticket);
+
+                result = supplied ? invocation.proceed(args) : invocation.proceed();
+            }
 
-            return (T) pjp.proceed();
+            return (T) (result instanceof CompletionStage<?> stage ? handleAsyncError(stage) : result);
         }
         catch (Throwable throwable) {
             handleError(context, throwable);
@@ -48,102 +68,83 @@ public class LushWrappedInvocation<T> {
         }
     }
 
-    private LushWrappedInvocation(ProceedingJoinPoint pjp, LushContext context, LushTicket ticket) {
-        this.pjp = pjp;
+    private LushWrappedInvocation(LushInvocation invocation, InvocationPlan plan, LushContext context, Supplier<LushTicket> ticket) {
+        this.invocation = invocation;
+        this.plan = plan;
         this.context = context;
         this.ticket = ticket;
     }
 
 
     /**
-     * Helper method to inject the LushTicket if the method being called requests it.
+     * Helper method to supply the LushTicket if the method being called declares it and it wasn't resolved.
      *
-     * @param method The method being called.
-     * @param pjp    The joinpoint.
-     * @param ticket The ticket instance to inject.
+     * @param args   The arguments the method will be called with.
+     * @param ticket Supplies the ticket instance.
+     * @return true if the ticket was supplied.
      */
-    private void injectTicket(Method method, ProceedingJoinPoint pjp, LushTicket ticket) {
-        findArgumentIndex(method, LushTicket.class)
-                .ifPresent((i) -> {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Lush - Injecting LushTicket");
-                    }
-
-                    LushTicket contextArg = (LushTicket) pjp.getArgs()[i];
-                    contextArg.populateFrom(ticket);
-                });
-    }
+    private boolean supplyTicket(Object[] args, Supplier<LushTicket> ticket) {
+        int i = plan.getTicketIndex();
+        if (i == InvocationPlan.NONE || args[i] != null) {
+            return false;
+        }
 
-    /**
-     * Helper method to inject the LushContext if the method being called requests it.
-     *
-     * @param method      The method being called
-     * @param pjp         The joinpoint.
-     * @param lushContext The context instance to inject.
-     */
-    private void injectLushContext(Method method, ProceedingJoinPoint pjp, LushContext lushContext) {
-        findArgumentIndex(method, LushContext.class)
-                .ifPresent((i) -> {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Lush - Injecting LushContext");
-                    }
-
-                    LushContext contextArg = (LushContext) pjp.getArgs()[i];
-                    contextArg.setTraceId(lushContext.getTraceId());
-                    contextArg.setAdvice(lushContext.getAdvice());
-                });
+        if (log.isDebugEnabled()) {
+            log.debug("Lush - Supplying LushTicket");
+        }
+
+        args[i] = ticket.get();
+        return true;
     }
 
     /**
-     * Find the argument index of the parameter of type clazz (if there is one) and return the index.
+     * Helper method to supply the LushContext if the method being called declares it and it wasn't resolved.
      *
-     * @param method The method object to check.
-     * @param clazz  The type of argument to find.
-     * @return The index if found, or empty.
+     * @param args        The arguments the method will be called with.
+     * @param lushContext The context instance.
+     * @return true if the context was supplied.
      */
-    private Optional<Integer> findArgumentIndex(Method method, Class clazz) {
-        Class<?>[] parameterTypes = method.getParameterTypes();
-        for (int i = 0; i < parameterTypes.length; i++) {
-            if (parameterTypes[i] == clazz) {
-                return Optional.of(i);
-            }
+    private boolean supplyLushContext(Object[] args, LushContext lushContext) {
+        int i = plan.getContextIndex();
+        if (i == InvocationPlan.NONE || args[i] != null) {
+            return false;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Lush - Supplying LushContext");
         }
 
-        return Optional.empty();
+        args[i] = lushContext;
+        return true;
     }
 
     /**
-     * Extract a Method object representing the method being called from the joinpoint.
+     * An asynchronous result fails when it completes, that failure is handled as a failure of the call itself: the
+     * advice is populated and the result completes with null.
      *
-     * @param pjp The joinpoint to inspect.
-     * @return A Method instance represent the method being called.
-     * @throws NoSuchMethodException If the method being called cannot be found.
-     * @throws SecurityException     If the method cannot be accessed.
+     * @param stage The result of the method.
+     * @return A stage completing with the result, or null if it failed.
      */
-    private Method getMethodBeingCalled(ProceedingJoinPoint pjp) throws NoSuchMethodException, SecurityException {
-        MethodSignature signature = (MethodSignature) pjp.getSignature();
-        Method method = signature.getMethod();
-
-        if (method.getDeclaringClass().isInterface()) {
-            method = pjp.getTarget().getClass().getDeclaredMethod(signature.getName(), method.getParameterTypes());
-        }
-
-        if (log.isDebugEnabled()) {
-            log.debug(String.format("Lush ControllerDecorator - invoking: %s::%s", method.getDeclaringClass(), method.getName()));
-        }
+    private CompletionStage<?> handleAsyncError(CompletionStage<?> stage) {
+        return stage.handle((value, throwable) -> {
+            if (throwable == null) {
+                return value;
+            }
 
-        return method;
+            handleError(context, throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+            return null;
+        });
     }
 
 
     /**
      * Helper method to populate the returned LushAdvice properly in the event that an unexpected exception occurs during
-     * this call.
+     * this call (or while a streamed result is being produced).
      *
      * @param lushContext The context to populate.
      * @param throwable   The exception causing the error.
      */
-    private void handleError(LushContext lushContext, Throwable throwable) {
+    public static void handleError(LushContext lushContext, Throwable throwable) {
         throwable.printStackTrace(new StackTraceToLoggerWriter(log));
 
         LushAdvice advice = lushContext.getAdvice();
@@ -0,0 +1,28 @@
+package com.px3j.lush.web.common;
+
+import com.px3j.lush.core.model.LushAdvice;
+import com.px3j.lush.core.model.LushContext;
+
+/**
+ * The result of a call shared with other callers (see LushControllerMethod::coalesce), along with the advice of the
+ * call that produced it.
+ *
+ * @param value The value returned by the method, can be null.
+ * @param advice The advice of the call that produced the value.
+ * @author Paul Parrone
+ */
+public record SharedResult(Object value, LushAdvice advice) {
+    /**
+     * Hand the result to a caller, the status code, warnings and extras of the advice are replayed to the caller's
+     * advice which keeps its own trace id.
+     *
+     * @param lushContext The context of the caller.
+     * @return The value.
+     */
+    public Object replayTo(LushContext lushContext) {
+        if( advice != null && lushContext.getAdvice() != null ) {
+            lushContext.getAdvice().replay(advice);
+        }
+        return value;
+    }
+}
@@ -2,20 +2,101 @@ package com.px3j.lush.web.security;
 
 import com.px3j.lush.core.ticket.LushTicket;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 /**
  * Integrate our LushTicket with Spring Security
+ * <br/><br/>
+ * The authorities are not copied, getAuthorities() returns the (read only) authorities of the ticket and
+ * hasAuthority() is a bit test against the ticket's AuthoritySet.
+ * <br/><br/>
+ * The token also carries the raw ticket header it was created from and, once requested, a mutable working copy of
+ * the ticket for this request (this is the ticket given to controllers).  Outbound calls forward the raw header
+ * unless the working ticket has been modified, see TicketForwarder.
  *
  * @author Paul Parrone
  */
 public class TicketAuthenticationToken extends AbstractAuthenticationToken {
     private final LushTicket ticket;
+    private final String rawTicket;
+    private LushTicket workingTicket;
 
     public TicketAuthenticationToken(LushTicket ticket) {
-        super(ticket.getAuthorities());
+        this(ticket, null);
+    }
+
+    /**
+     * @param ticket The (frozen) ticket.
+     * @param rawTicket The value of the ticket header the ticket was decoded from.
+     */
+    public TicketAuthenticationToken(LushTicket ticket, String rawTicket) {
+        super(null);
         this.ticket = ticket;
+        this.rawTicket = rawTicket;
+    }
+
+    /**
+     * @return The value of the ticket header this token was created from, or null if it wasn't created from one.
+     */
+    public String getRawTicket() {
+        return rawTicket;
+    }
+
+    /**
+     * @return The mutable copy of the ticket for this request, created on first use.
+     */
+    public synchronized LushTicket getWorkingTicket() {
+        if( workingTicket == null ) {
+            workingTicket = ticket.toMutable();
+        }
+        return workingTicket;
+    }
+
+    /**
+     * The ticket given to a controller for the passed in Authentication, the working ticket of a
+     * TicketAuthenticationToken or a mutable copy of any other LushTicket principal.
+     *
+     * @param authentication The Authentication of the current request, may be null.
+     * @return The ticket, or null if the request wasn't authenticated with a LushTicket.
+     */
+    public static LushTicket workingTicketOf(Authentication authentication) {
+        if( authentication instanceof TicketAuthenticationToken token ) {
+            return token.getWorkingTicket();
+        }
+        return authentication != null && authentication.getPrincipal() instanceof LushTicket ticket ? ticket.toMutable() : null;
+    }
+
+    /**
+     * @return true if the working ticket has been created and modified.
+     */
+    public synchronized boolean isTicketModified() {
+        return workingTicket != null && workingTicket.isModified();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<GrantedAuthority> getAuthorities() {
+        Collection<? extends GrantedAuthority> authorities = ticket.getAuthorities();
+        if( authorities == null ) {
+            return AuthorityUtils.NO_AUTHORITIES;
+        }
+
+        // a frozen ticket's authorities are already read only
+        return ticket.isImmutable() ? (Collection<GrantedAuthority>) authorities : Collections.unmodifiableCollection(authorities);
+    }
+
+    /**
+     * @param authority The name of an authority.
+     * @return true if the ticket holds the authority.
+     */
+    public boolean hasAuthority(String authority) {
+        return ticket.getAuthoritySet().contains(authority);
     }
 
     @Override